@@ -0,0 +1,144 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Red Hat Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat Inc. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ls.core.internal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+
+/**
+ * Hands log statuses over to a single background thread, which forwards them
+ * to a sink, typically the Platform log.
+ *
+ * Logging threads never wait: statuses are queued in a bounded buffer, and
+ * are dropped when the buffer is full. The number of dropped statuses is
+ * reported once the logger catches up.
+ */
+public class AsyncLogger {
+
+	private static final int DRAIN_BATCH_SIZE = 128;
+
+	private final Consumer<IStatus> sink;
+	private final BlockingQueue<IStatus> queue;
+	private final AtomicLong dropped = new AtomicLong();
+	private final Object sinkLock = new Object();
+	private volatile Thread thread;
+	private volatile boolean stopped;
+
+	public AsyncLogger(Consumer<IStatus> sink, int capacity) {
+		this.sink = sink;
+		this.queue = new ArrayBlockingQueue<>(capacity);
+	}
+
+	/**
+	 * Queues a status, without blocking. Once the logger is shut down, the
+	 * status is forwarded synchronously instead.
+	 */
+	public void log(IStatus status) {
+		if (stopped) {
+			logNow(status);
+			return;
+		}
+		if (!queue.offer(status)) {
+			dropped.incrementAndGet();
+		}
+		if (thread == null) {
+			start();
+		}
+	}
+
+	/**
+	 * Forwards a status to the sink synchronously, after the already queued
+	 * statuses.
+	 */
+	public void logNow(IStatus status) {
+		synchronized (sinkLock) {
+			drain();
+			forward(status);
+		}
+	}
+
+	/**
+	 * Synchronously forwards all the queued statuses to the sink.
+	 */
+	public void flush() {
+		synchronized (sinkLock) {
+			drain();
+		}
+	}
+
+	/**
+	 * Flushes the queued statuses and stops the logging thread for good.
+	 */
+	public void shutdown() {
+		stopped = true;
+		Thread current = thread;
+		thread = null;
+		if (current != null) {
+			current.interrupt();
+		}
+		flush();
+	}
+
+	private synchronized void start() {
+		if (thread != null || stopped) {
+			return;
+		}
+		Thread logThread = new Thread(this::run, "jdt.ls-logger");
+		logThread.setDaemon(true);
+		thread = logThread;
+		logThread.start();
+	}
+
+	private void run() {
+		Thread current = Thread.currentThread();
+		while (thread == current) {
+			try {
+				IStatus first = queue.poll(1, TimeUnit.SECONDS);
+				if (first != null) {
+					synchronized (sinkLock) {
+						forward(first);
+						drain();
+					}
+				}
+			} catch (InterruptedException e) {
+				return;
+			}
+		}
+	}
+
+	private void drain() {
+		List<IStatus> batch = new ArrayList<>(DRAIN_BATCH_SIZE);
+		while (queue.drainTo(batch, DRAIN_BATCH_SIZE) > 0) {
+			batch.forEach(this::forward);
+			batch.clear();
+		}
+		long lost = dropped.getAndSet(0);
+		if (lost > 0) {
+			forward(new Status(IStatus.WARNING, JavaLanguageServerPlugin.PLUGIN_ID, lost + " log messages were dropped"));
+		}
+	}
+
+	private void forward(IStatus status) {
+		try {
+			sink.accept(status);
+		} catch (RuntimeException e) {
+			// the log is the last resort, don't let a faulty listener kill the logging thread
+		}
+	}
+}
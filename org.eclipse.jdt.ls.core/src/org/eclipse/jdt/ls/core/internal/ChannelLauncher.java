@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Red Hat Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat Inc. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ls.core.internal;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+import org.eclipse.lsp4j.jsonrpc.Launcher;
+import org.eclipse.lsp4j.jsonrpc.MessageConsumer;
+import org.eclipse.lsp4j.jsonrpc.MessageProducer;
+import org.eclipse.lsp4j.jsonrpc.RemoteEndpoint;
+import org.eclipse.lsp4j.jsonrpc.json.ConcurrentMessageProcessor;
+import org.eclipse.lsp4j.jsonrpc.json.JsonRpcMethod;
+import org.eclipse.lsp4j.jsonrpc.json.JsonRpcMethodProvider;
+import org.eclipse.lsp4j.jsonrpc.json.MessageJsonHandler;
+import org.eclipse.lsp4j.jsonrpc.json.StreamMessageProducer;
+import org.eclipse.lsp4j.jsonrpc.services.ServiceEndpoints;
+
+/**
+ * Creates {@link Launcher}s communicating over NIO channels, using
+ * {@link ChannelMessageProducer} and {@link ChannelMessageConsumer} in place of
+ * lsp4j's stream based reader and writer.
+ *
+ * Launchers communicating over streams are also available: they read messages
+ * with lsp4j's {@link StreamMessageProducer}, but write them with a
+ * {@link StreamingMessageConsumer}, so that responses are encoded without
+ * intermediate copies.
+ *
+ * @see Launcher#createIoLauncher(Object, Class, java.io.InputStream,
+ *      java.io.OutputStream, ExecutorService, Function)
+ */
+public final class ChannelLauncher {
+
+	private ChannelLauncher() {
+		//Don't instantiate
+	}
+
+	public static <T> Launcher<T> createLauncher(Object localService, Class<T> remoteInterface, ReadableByteChannel in, WritableByteChannel out) {
+		return createLauncher(localService, remoteInterface, in, out, Executors.newCachedThreadPool(), null);
+	}
+
+	public static <T> Launcher<T> createLauncher(Object localService, Class<T> remoteInterface, ReadableByteChannel in, WritableByteChannel out, ExecutorService executorService,
+			Function<MessageConsumer, MessageConsumer> wrapper) {
+		return createLauncher(localService, remoteInterface, jsonHandler -> new ChannelMessageProducer(in, jsonHandler), jsonHandler -> new ChannelMessageConsumer(out, jsonHandler), executorService, wrapper);
+	}
+
+	public static <T> Launcher<T> createLauncher(Object localService, Class<T> remoteInterface, InputStream in, OutputStream out) {
+		return createLauncher(localService, remoteInterface, in, out, Executors.newCachedThreadPool(), null);
+	}
+
+	public static <T> Launcher<T> createLauncher(Object localService, Class<T> remoteInterface, InputStream in, OutputStream out, ExecutorService executorService,
+			Function<MessageConsumer, MessageConsumer> wrapper) {
+		return createLauncher(localService, remoteInterface, jsonHandler -> new StreamMessageProducer(in, jsonHandler), jsonHandler -> new StreamingMessageConsumer(out, jsonHandler), executorService, wrapper);
+	}
+
+	private static <T> Launcher<T> createLauncher(Object localService, Class<T> remoteInterface, Function<MessageJsonHandler, MessageProducer> producerFactory,
+			Function<MessageJsonHandler, MessageConsumer> consumerFactory, ExecutorService executorService, Function<MessageConsumer, MessageConsumer> wrapper) {
+		Map<String, JsonRpcMethod> supportedMethods = new LinkedHashMap<>();
+		supportedMethods.putAll(ServiceEndpoints.getSupportedMethods(remoteInterface));
+		if (localService instanceof JsonRpcMethodProvider) {
+			supportedMethods.putAll(((JsonRpcMethodProvider) localService).supportedMethods());
+		} else {
+			supportedMethods.putAll(ServiceEndpoints.getSupportedMethods(localService.getClass()));
+		}
+		MessageJsonHandler jsonHandler = new MessageJsonHandler(supportedMethods);
+		MessageConsumer outgoingMessageStream = wrap(consumerFactory.apply(jsonHandler), wrapper);
+		RemoteEndpoint serverEndpoint = new RemoteEndpoint(outgoingMessageStream, ServiceEndpoints.toEndpoint(localService));
+		jsonHandler.setMethodProvider(serverEndpoint);
+		MessageConsumer messageConsumer = wrap(serverEndpoint, wrapper);
+		MessageProducer reader = producerFactory.apply(jsonHandler);
+		T remoteProxy = ServiceEndpoints.toServiceObject(serverEndpoint, remoteInterface);
+		return new Launcher<T>() {
+
+			@Override
+			public Future<?> startListening() {
+				return ConcurrentMessageProcessor.startProcessing(reader, messageConsumer, executorService);
+			}
+
+			@Override
+			public T getRemoteProxy() {
+				return remoteProxy;
+			}
+		};
+	}
+
+	private static MessageConsumer wrap(MessageConsumer consumer, Function<MessageConsumer, MessageConsumer> wrapper) {
+		return wrapper == null ? consumer : wrapper.apply(consumer);
+	}
+}
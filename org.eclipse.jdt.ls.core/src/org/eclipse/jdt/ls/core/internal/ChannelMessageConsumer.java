@@ -0,0 +1,345 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Red Hat Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat Inc. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ls.core.internal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+import org.eclipse.lsp4j.jsonrpc.MessageConsumer;
+import org.eclipse.lsp4j.jsonrpc.json.MessageConstants;
+import org.eclipse.lsp4j.jsonrpc.json.MessageJsonHandler;
+import org.eclipse.lsp4j.jsonrpc.messages.Message;
+
+/**
+ * A {@link MessageConsumer} writing JSON-RPC messages to a
+ * {@link WritableByteChannel}.
+ *
+ * Messages are serialized straight into a pooled direct buffer, which is then
+ * written to the channel together with the <code>Content-Length</code> header
+ * in a single gathering write. Unlike
+ * {@link org.eclipse.lsp4j.jsonrpc.json.StreamMessageConsumer}, no
+ * <code>String</code> or <code>byte[]</code> copy of the message is created.
+ *
+ * Messages that don't fit in the largest buffer, such as multi-megabyte
+ * completion lists or workspace symbols, are streamed: a first serialization
+ * pass only counts their encoded length, and a second one writes them to the
+ * channel chunk by chunk, as they are serialized. The memory used to write a
+ * message is thus bounded, whatever its size. The message object itself is
+ * still built in full by its handler beforehand.
+ */
+public class ChannelMessageConsumer implements MessageConsumer, MessageConstants {
+
+	private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+	/**
+	 * Messages larger than that are streamed, in chunks of that size.
+	 */
+	private static final int MAX_BUFFER_SIZE = 4 * 1024 * 1024;
+	private static final byte[] HEADER_PREFIX = (CONTENT_LENGTH_HEADER + ": ").getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] HEADER_SUFFIX = (CRLF + CRLF).getBytes(StandardCharsets.US_ASCII);
+
+	private final WritableByteChannel channel;
+	private final MessageJsonHandler jsonHandler;
+	private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder().onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+	private final ByteBuffer header = ByteBuffer.allocateDirect(64);
+	private final ByteBuffer[] frame = new ByteBuffer[2];
+	private final ContentWriter writer = new ContentWriter();
+	private final Object outputLock = new Object();
+	private final int maxBufferSize;
+	private ByteBuffer content;
+	/**
+	 * What is done with the content buffer once full
+	 */
+	private Pass pass;
+	private long streamedLength;
+
+	public ChannelMessageConsumer(WritableByteChannel channel, MessageJsonHandler jsonHandler) {
+		this(channel, jsonHandler, MAX_BUFFER_SIZE);
+	}
+
+	/**
+	 * For testing purposes
+	 */
+	ChannelMessageConsumer(WritableByteChannel channel, MessageJsonHandler jsonHandler, int maxBufferSize) {
+		this.channel = channel;
+		this.jsonHandler = jsonHandler;
+		this.maxBufferSize = maxBufferSize;
+		this.content = ByteBuffer.allocateDirect(Math.min(INITIAL_BUFFER_SIZE, maxBufferSize));
+	}
+
+	@Override
+	public void consume(Message message) {
+		if (message.getJsonrpc() == null) {
+			message.setJsonrpc(JSONRPC_VERSION);
+		}
+		synchronized (outputLock) {
+			try {
+				try {
+					serialize(message, Pass.BUFFER);
+					content.flip();
+					writeHeader(content.remaining());
+					write();
+				} catch (BufferFullException e) {
+					stream(message);
+				}
+				flush();
+			} catch (IOException exception) {
+				throw new RuntimeException(exception);
+			}
+		}
+	}
+
+	/**
+	 * Writes a message too large for the content buffer.
+	 */
+	private void stream(Message message) throws IOException {
+		streamedLength = 0;
+		serialize(message, Pass.COUNT);
+		streamedLength += content.position();
+		if (streamedLength > Integer.MAX_VALUE) {
+			throw new IOException("Message too large: " + streamedLength + " bytes");
+		}
+		writeHeader((int) streamedLength);
+		writeFully(header);
+		serialize(message, Pass.STREAM);
+		content.flip();
+		writeFully(content);
+	}
+
+	private void serialize(Message message, Pass newPass) {
+		pass = newPass;
+		content.clear();
+		encoder.reset();
+		writer.reset();
+		jsonHandler.serialize(message, writer);
+		writer.finish();
+	}
+
+	/**
+	 * Makes room in the full content buffer, according to the current pass.
+	 */
+	private void overflow() {
+		switch (pass) {
+		case BUFFER:
+			if (content.capacity() * 2 > maxBufferSize) {
+				throw BufferFullException.INSTANCE;
+			}
+			grow();
+			break;
+		case COUNT:
+			streamedLength += content.position();
+			content.clear();
+			break;
+		case STREAM:
+			content.flip();
+			try {
+				writeFully(content);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			content.clear();
+			break;
+		}
+	}
+
+	private void writeHeader(int contentLength) {
+		header.clear();
+		header.put(HEADER_PREFIX);
+		int digits = 1;
+		for (int value = contentLength; value >= 10; value /= 10) {
+			digits++;
+		}
+		int position = header.position();
+		for (int i = digits - 1, value = contentLength; i >= 0; i--, value /= 10) {
+			header.put(position + i, (byte) ('0' + value % 10));
+		}
+		header.position(position + digits);
+		header.put(HEADER_SUFFIX);
+		header.flip();
+	}
+
+	private void writeFully(ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+
+	private void write() throws IOException {
+		if (channel instanceof GatheringByteChannel) {
+			frame[0] = header;
+			frame[1] = content;
+			GatheringByteChannel gatheringChannel = (GatheringByteChannel) channel;
+			while (content.hasRemaining()) {
+				gatheringChannel.write(frame);
+			}
+		} else {
+			writeFully(header);
+			writeFully(content);
+		}
+	}
+
+	/**
+	 * Called once a message was fully written to the channel. Subclasses
+	 * writing to buffered destinations can flush them here.
+	 */
+	protected void flush() {
+		// channels are not buffered
+	}
+
+	private void grow() {
+		ByteBuffer larger = ByteBuffer.allocateDirect(content.capacity() * 2);
+		content.flip();
+		larger.put(content);
+		content = larger;
+	}
+
+	/**
+	 * Encodes characters as UTF-8 directly into the content buffer.
+	 */
+	private final class ContentWriter extends Writer {
+
+		/**
+		 * Holds a high surrogate ending a write call, until the matching low
+		 * surrogate comes in.
+		 */
+		private final CharBuffer pending = CharBuffer.allocate(2);
+		private final CharBuffer single = CharBuffer.allocate(1);
+		private char[] lastArray;
+		private CharBuffer lastWrapper;
+
+		@Override
+		public void write(int c) {
+			single.clear();
+			single.put((char) c);
+			single.flip();
+			encode(single);
+		}
+
+		@Override
+		public void write(char[] cbuf, int off, int len) {
+			if (cbuf != lastArray) {
+				lastArray = cbuf;
+				lastWrapper = CharBuffer.wrap(cbuf);
+			}
+			lastWrapper.clear();
+			lastWrapper.limit(off + len);
+			lastWrapper.position(off);
+			encode(lastWrapper);
+		}
+
+		@Override
+		public void write(String str, int off, int len) {
+			encode(CharBuffer.wrap(str, off, off + len));
+		}
+
+		@Override
+		public Writer append(CharSequence csq) {
+			CharSequence sequence = csq == null ? "null" : csq;
+			encode(CharBuffer.wrap(sequence));
+			return this;
+		}
+
+		private void encode(CharBuffer in) {
+			if (pending.position() > 0) {
+				if (!in.hasRemaining()) {
+					return;
+				}
+				pending.put(in.get());
+				pending.flip();
+				encode(pending, false);
+				pending.compact();
+				if (pending.position() > 0) {
+					encode(in);
+					return;
+				}
+			}
+			encode(in, false);
+			if (in.hasRemaining()) {
+				pending.put(in.get());
+			}
+		}
+
+		private void encode(CharBuffer in, boolean endOfInput) {
+			while (true) {
+				CoderResult result = encoder.encode(in, content, endOfInput);
+				if (!result.isOverflow()) {
+					return;
+				}
+				overflow();
+			}
+		}
+
+		/**
+		 * Completes the encoding of the current message.
+		 */
+		void finish() {
+			pending.flip();
+			encode(pending, true);
+			pending.clear();
+			while (encoder.flush(content).isOverflow()) {
+				overflow();
+			}
+		}
+
+		/**
+		 * Prepares the encoding of a new serialization pass.
+		 */
+		void reset() {
+			pending.clear();
+		}
+
+		@Override
+		public void flush() {
+			// content is sent once the buffer is full or the message serialized
+		}
+
+		@Override
+		public void close() {
+			// the underlying channel outlives a single message
+		}
+	}
+
+	private enum Pass {
+		/**
+		 * Serializes the message in the content buffer, grown as needed
+		 */
+		BUFFER,
+		/**
+		 * Counts the encoded length of the message
+		 */
+		COUNT,
+		/**
+		 * Writes the message to the channel as it is serialized
+		 */
+		STREAM
+	}
+
+	/**
+	 * Aborts the serialization of a message too large to be buffered.
+	 */
+	private static final class BufferFullException extends RuntimeException {
+
+		private static final long serialVersionUID = 1L;
+		private static final BufferFullException INSTANCE = new BufferFullException();
+
+		private BufferFullException() {
+			super(null, null, false, false);
+		}
+	}
+}
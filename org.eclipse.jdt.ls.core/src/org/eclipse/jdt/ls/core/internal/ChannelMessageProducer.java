@@ -0,0 +1,314 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Red Hat Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat Inc. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ls.core.internal;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+import org.eclipse.lsp4j.jsonrpc.MessageConsumer;
+import org.eclipse.lsp4j.jsonrpc.MessageProducer;
+import org.eclipse.lsp4j.jsonrpc.json.MessageConstants;
+import org.eclipse.lsp4j.jsonrpc.json.MessageJsonHandler;
+import org.eclipse.lsp4j.jsonrpc.messages.Message;
+
+/**
+ * A {@link MessageProducer} reading JSON-RPC messages from a
+ * {@link ReadableByteChannel}.
+ *
+ * Headers are parsed in place from a reusable direct buffer, and the message
+ * content is decoded straight from that buffer into the JSON parser, so no
+ * intermediate <code>String</code> or <code>byte[]</code> copy of the message
+ * is ever created. Content is always decoded as UTF-8, as mandated by the
+ * language server protocol.
+ *
+ * @see org.eclipse.lsp4j.jsonrpc.json.StreamMessageProducer
+ */
+public class ChannelMessageProducer implements MessageProducer, Closeable, MessageConstants {
+
+	private static final int BUFFER_SIZE = 8192;
+	private static final int END_OF_STREAM = -2;
+	private static final int INVALID_CONTENT_LENGTH = -3;
+	private static final byte[] CONTENT_LENGTH = CONTENT_LENGTH_HEADER.toLowerCase().getBytes(StandardCharsets.US_ASCII);
+
+	private final ReadableByteChannel channel;
+	private final MessageJsonHandler jsonHandler;
+	private final ByteBuffer buffer;
+	private final ContentReader content = new ContentReader();
+	private volatile boolean keepRunning;
+
+	public ChannelMessageProducer(ReadableByteChannel channel, MessageJsonHandler jsonHandler) {
+		this.channel = channel;
+		this.jsonHandler = jsonHandler;
+		this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+		this.buffer.flip();
+	}
+
+	@Override
+	public void listen(MessageConsumer callback) {
+		if (keepRunning) {
+			throw new IllegalStateException("This message producer is already listening.");
+		}
+		keepRunning = true;
+		try {
+			while (keepRunning) {
+				int contentLength = readHeaders();
+				if (contentLength == END_OF_STREAM) {
+					break;
+				}
+				if (contentLength == INVALID_CONTENT_LENGTH) {
+					fireError(new IllegalStateException("Invalid header " + CONTENT_LENGTH_HEADER + " in input"));
+					continue;
+				}
+				if (contentLength < 0) {
+					fireError(new IllegalStateException("Missing header " + CONTENT_LENGTH_HEADER + " in input"));
+					continue;
+				}
+				handleMessage(contentLength, callback);
+			}
+		} catch (InterruptedIOException | ClosedChannelException exception) {
+			// The channel was closed or the reading thread was interrupted: stop listening
+		} catch (IOException exception) {
+			throw new RuntimeException(exception);
+		} finally {
+			keepRunning = false;
+		}
+	}
+
+	private void handleMessage(int contentLength, MessageConsumer callback) throws IOException {
+		content.reset(contentLength);
+		try {
+			Message message = jsonHandler.parseMessage(content);
+			callback.consume(message);
+		} catch (RuntimeException exception) {
+			fireError(exception);
+		} finally {
+			content.skipRemaining();
+		}
+	}
+
+	/**
+	 * Reads the header block of the next message.
+	 *
+	 * @return the content length, <code>-1</code> if the header block did not
+	 *         declare it, {@link #INVALID_CONTENT_LENGTH} if it declared a
+	 *         length too large or {@link #END_OF_STREAM} if the channel
+	 *         reached its end
+	 */
+	private int readHeaders() throws IOException {
+		int contentLength = -1;
+		boolean hasHeaders = false;
+		while (true) {
+			int lineEnd = indexOfLineFeed();
+			while (lineEnd < 0) {
+				if (buffer.position() == 0 && buffer.limit() == buffer.capacity()) {
+					throw new IOException("Header line exceeds " + BUFFER_SIZE + " bytes");
+				}
+				if (!fill()) {
+					return END_OF_STREAM;
+				}
+				lineEnd = indexOfLineFeed();
+			}
+			int start = buffer.position();
+			int end = lineEnd;
+			if (end > start && buffer.get(end - 1) == '\r') {
+				end--;
+			}
+			buffer.position(lineEnd + 1);
+			if (end == start) {
+				// an empty line terminates the header block
+				if (hasHeaders) {
+					return contentLength;
+				}
+				// skip blank lines between messages
+				continue;
+			}
+			hasHeaders = true;
+			int length = parseContentLength(start, end);
+			if (length >= 0 || length == INVALID_CONTENT_LENGTH) {
+				contentLength = length;
+			}
+		}
+	}
+
+	private int indexOfLineFeed() {
+		for (int i = buffer.position(); i < buffer.limit(); i++) {
+			if (buffer.get(i) == '\n') {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Parses a <code>Content-Length: nnn</code> header line located between the
+	 * given absolute buffer indices, without decoding it to a String.
+	 *
+	 * @return the declared length, <code>-1</code> if the line is another
+	 *         header, or {@link #INVALID_CONTENT_LENGTH} if the length doesn't
+	 *         fit in an <code>int</code>
+	 */
+	private int parseContentLength(int start, int end) {
+		if (end - start <= CONTENT_LENGTH.length) {
+			return -1;
+		}
+		for (int i = 0; i < CONTENT_LENGTH.length; i++) {
+			byte b = buffer.get(start + i);
+			if (b >= 'A' && b <= 'Z') {
+				b += 'a' - 'A';
+			}
+			if (b != CONTENT_LENGTH[i]) {
+				return -1;
+			}
+		}
+		int i = start + CONTENT_LENGTH.length;
+		while (i < end && buffer.get(i) == ' ') {
+			i++;
+		}
+		if (i == end || buffer.get(i++) != ':') {
+			return -1;
+		}
+		while (i < end && buffer.get(i) == ' ') {
+			i++;
+		}
+		int length = 0;
+		boolean hasDigits = false;
+		for (; i < end; i++) {
+			byte b = buffer.get(i);
+			if (b < '0' || b > '9') {
+				break;
+			}
+			if (length > (Integer.MAX_VALUE - (b - '0')) / 10) {
+				return INVALID_CONTENT_LENGTH;
+			}
+			length = length * 10 + (b - '0');
+			hasDigits = true;
+		}
+		return hasDigits ? length : -1;
+	}
+
+	/**
+	 * Compacts the buffer and reads more bytes from the channel.
+	 *
+	 * @return <code>false</code> if the end of the stream was reached
+	 */
+	private boolean fill() throws IOException {
+		buffer.compact();
+		try {
+			if (!buffer.hasRemaining()) {
+				return true;
+			}
+			int read;
+			do {
+				read = channel.read(buffer);
+			} while (read == 0);
+			return read > 0;
+		} finally {
+			buffer.flip();
+		}
+	}
+
+	protected void fireError(Throwable error) {
+		String message = error.getMessage() != null ? error.getMessage() : "An error occurred while processing an incoming message.";
+		JavaLanguageServerPlugin.logException(message, error);
+	}
+
+	@Override
+	public void close() {
+		keepRunning = false;
+	}
+
+	/**
+	 * Exposes the content of the current message as a character stream, decoding
+	 * directly from the channel buffer.
+	 */
+	private final class ContentReader extends Reader {
+
+		private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder().onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+		private int remaining;
+		private char[] lastArray;
+		private CharBuffer lastWrapper;
+
+		void reset(int contentLength) {
+			remaining = contentLength;
+			decoder.reset();
+		}
+
+		@Override
+		public int read(char[] cbuf, int off, int len) throws IOException {
+			if (len == 0) {
+				return 0;
+			}
+			if (remaining == 0) {
+				return -1;
+			}
+			CharBuffer out = wrap(cbuf, off, len);
+			boolean needMore = false;
+			while (out.position() == off && remaining > 0) {
+				if (needMore || !buffer.hasRemaining()) {
+					if (!fill()) {
+						throw new EOFException("Unexpected end of stream, " + remaining + " bytes of content missing");
+					}
+					needMore = false;
+				}
+				int chunk = Math.min(buffer.remaining(), remaining);
+				int limit = buffer.limit();
+				int start = buffer.position();
+				buffer.limit(start + chunk);
+				decoder.decode(buffer, out, chunk == remaining);
+				int consumed = buffer.position() - start;
+				buffer.limit(limit);
+				remaining -= consumed;
+				// an incomplete multi-byte sequence is left in the buffer until more bytes are read
+				needMore = consumed < chunk && out.hasRemaining();
+			}
+			int read = out.position() - off;
+			return read == 0 ? -1 : read;
+		}
+
+		private CharBuffer wrap(char[] cbuf, int off, int len) {
+			// the JSON reader reuses the same array for every read
+			if (cbuf != lastArray) {
+				lastArray = cbuf;
+				lastWrapper = CharBuffer.wrap(cbuf);
+			}
+			lastWrapper.clear();
+			lastWrapper.limit(off + len);
+			lastWrapper.position(off);
+			return lastWrapper;
+		}
+
+		void skipRemaining() throws IOException {
+			while (remaining > 0) {
+				if (!buffer.hasRemaining() && !fill()) {
+					return;
+				}
+				int skip = Math.min(buffer.remaining(), remaining);
+				buffer.position(buffer.position() + skip);
+				remaining -= skip;
+			}
+		}
+
+		@Override
+		public void close() {
+			// the underlying channel outlives a single message
+		}
+	}
+}
@@ -11,12 +11,20 @@
 package org.eclipse.jdt.ls.core.internal;
 
 import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.RandomAccessFile;
+import java.net.InetSocketAddress;
 import java.net.Socket;
+import java.nio.channels.Channel;
 import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.WritableByteChannel;
 
 import org.eclipse.core.runtime.Platform;
 import org.newsclub.net.unix.AFUNIXSocket;
@@ -30,10 +38,53 @@ import org.newsclub.net.unix.AFUNIXSocketAddress;
  */
 public class ConnectionStreamFactory {
 
+	/**
+	 * System property enabling the NIO channel based transport.
+	 */
+	public static final String CHANNEL_TRANSPORT_PROPERTY = "jdt.ls.nio";
+
 	interface StreamProvider {
 		InputStream getInputStream() throws IOException;
 
 		OutputStream getOutputStream() throws IOException;
+
+		/**
+		 * Providers able to expose a native channel should override this method,
+		 * the default implementation adapts the input stream.
+		 */
+		default ReadableByteChannel getInputChannel() throws IOException {
+			return Channels.newChannel(getInputStream());
+		}
+
+		/**
+		 * Providers able to expose a native channel should override this method,
+		 * the default implementation adapts the output stream.
+		 */
+		default WritableByteChannel getOutputChannel() throws IOException {
+			return Channels.newChannel(getOutputStream());
+		}
+
+		/**
+		 * Closes the channels opened by the provider.
+		 */
+		void close() throws IOException;
+	}
+
+	private static void close(Channel... channels) throws IOException {
+		IOException exception = null;
+		for (Channel channel : channels) {
+			if (channel == null) {
+				continue;
+			}
+			try {
+				channel.close();
+			} catch (IOException e) {
+				exception = e;
+			}
+		}
+		if (exception != null) {
+			throw exception;
+		}
 	}
 
 
@@ -41,6 +92,8 @@ public class ConnectionStreamFactory {
 
 		private final String readFileName;
 		private final String writeFileName;
+		private RandomAccessFile readFile;
+		private RandomAccessFile writeFile;
 
 		public NamedPipeStreamProvider(String readFileName, String writeFileName) {
 			this.readFileName = readFileName;
@@ -72,6 +125,30 @@ public class ConnectionStreamFactory {
 				return writeSocket.getOutputStream();
 			}
 		}
+
+		@Override
+		public ReadableByteChannel getInputChannel() throws IOException {
+			if (isWindows()) {
+				readFile = new RandomAccessFile(new File(readFileName), "rwd");
+				return readFile.getChannel();
+			}
+			return StreamProvider.super.getInputChannel();
+		}
+
+		@Override
+		public WritableByteChannel getOutputChannel() throws IOException {
+			if (isWindows()) {
+				writeFile = new RandomAccessFile(new File(writeFileName), "rwd");
+				return writeFile.getChannel();
+			}
+			return StreamProvider.super.getOutputChannel();
+		}
+
+		@Override
+		public void close() throws IOException {
+			// closing the channel of a file closes the file
+			ConnectionStreamFactory.close(readFile == null ? null : readFile.getChannel(), writeFile == null ? null : writeFile.getChannel());
+		}
 	}
 
 	protected final class SocketStreamProvider implements StreamProvider {
@@ -79,6 +156,7 @@ public class ConnectionStreamFactory {
 		private final int port;
 		private InputStream fInputStream;
 		private OutputStream fOutputStream;
+		private SocketChannel fChannel;
 
 		public SocketStreamProvider(String host, int port) {
 			this.host = host;
@@ -106,6 +184,28 @@ public class ConnectionStreamFactory {
 			}
 			return fOutputStream;
 		}
+
+		private SocketChannel getChannel() throws IOException {
+			if (fChannel == null) {
+				fChannel = SocketChannel.open(new InetSocketAddress(host, port));
+			}
+			return fChannel;
+		}
+
+		@Override
+		public ReadableByteChannel getInputChannel() throws IOException {
+			return getChannel();
+		}
+
+		@Override
+		public WritableByteChannel getOutputChannel() throws IOException {
+			return getChannel();
+		}
+
+		@Override
+		public void close() throws IOException {
+			ConnectionStreamFactory.close(fChannel);
+		}
 	}
 
 	protected final class DualSocketStreamProvider implements StreamProvider {
@@ -113,6 +213,8 @@ public class ConnectionStreamFactory {
 		private final String writeHost;
 		private final int readPort;
 		private final int writePort;
+		private SocketChannel readChannel;
+		private SocketChannel writeChannel;
 
 		public DualSocketStreamProvider(String readHost, int readPort, String writeHost, int writePort) {
 			this.readHost = readHost;
@@ -133,10 +235,30 @@ public class ConnectionStreamFactory {
 			return writeSocket.getOutputStream();
 		}
 
+		@Override
+		public ReadableByteChannel getInputChannel() throws IOException {
+			readChannel = SocketChannel.open(new InetSocketAddress(readHost, readPort));
+			return readChannel;
+		}
+
+		@Override
+		public WritableByteChannel getOutputChannel() throws IOException {
+			writeChannel = SocketChannel.open(new InetSocketAddress(writeHost, writePort));
+			return writeChannel;
+		}
+
+		@Override
+		public void close() throws IOException {
+			ConnectionStreamFactory.close(readChannel, writeChannel);
+		}
+
 	}
 
 	protected final class StdIOStreamProvider implements StreamProvider {
 
+		private FileInputStream input;
+		private FileOutputStream output;
+
 		/* (non-Javadoc)
 		 * @see org.eclipse.jdt.ls.core.internal.ConnectionStreamFactory.StreamProvider#getInputStream()
 		 */
@@ -153,6 +275,32 @@ public class ConnectionStreamFactory {
 			return JavaLanguageServerPlugin.getOut();
 		}
 
+		/* (non-Javadoc)
+		 * @see org.eclipse.jdt.ls.core.internal.ConnectionStreamFactory.StreamProvider#getInputChannel()
+		 */
+		@Override
+		public ReadableByteChannel getInputChannel() throws IOException {
+			input = new FileInputStream(FileDescriptor.in);
+			return input.getChannel();
+		}
+
+		/* (non-Javadoc)
+		 * @see org.eclipse.jdt.ls.core.internal.ConnectionStreamFactory.StreamProvider#getOutputChannel()
+		 */
+		@Override
+		public WritableByteChannel getOutputChannel() throws IOException {
+			output = new FileOutputStream(FileDescriptor.out);
+			return output.getChannel();
+		}
+
+		/* (non-Javadoc)
+		 * @see org.eclipse.jdt.ls.core.internal.ConnectionStreamFactory.StreamProvider#close()
+		 */
+		@Override
+		public void close() throws IOException {
+			ConnectionStreamFactory.close(input == null ? null : input.getChannel(), output == null ? null : output.getChannel());
+		}
+
 	}
 
 	private StreamProvider provider;
@@ -198,6 +346,31 @@ public class ConnectionStreamFactory {
 		return getSelectedStream().getOutputStream();
 	}
 
+	public ReadableByteChannel getInputChannel() throws IOException {
+		return getSelectedStream().getInputChannel();
+	}
+
+	public WritableByteChannel getOutputChannel() throws IOException {
+		return getSelectedStream().getOutputChannel();
+	}
+
+	/**
+	 * Closes the channels opened for the connection.
+	 */
+	public void close() throws IOException {
+		if (provider != null) {
+			provider.close();
+		}
+	}
+
+	/**
+	 * @return true if the connection should use NIO channels rather than
+	 *         streams, see {@link #CHANNEL_TRANSPORT_PROPERTY}
+	 */
+	public static boolean isChannelTransportEnabled() {
+		return Boolean.getBoolean(CHANNEL_TRANSPORT_PROPERTY);
+	}
+
 	protected static boolean isWindows() {
 		return Platform.OS_WIN32.equals(Platform.getOS());
 	}
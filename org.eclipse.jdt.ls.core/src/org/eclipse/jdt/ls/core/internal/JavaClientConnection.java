@@ -11,6 +11,7 @@
 package org.eclipse.jdt.ls.core.internal;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import org.eclipse.jdt.ls.core.internal.handlers.LogHandler;
 import org.eclipse.lsp4j.ApplyWorkspaceEditParams;
@@ -86,16 +87,30 @@ public class JavaClientConnection {
 	 * Waits for an answer from the user and returns the selected
 	 * action.
 	 *
+	 * Blocks the calling thread until the user answers, prefer
+	 * {@link #showNotificationMessageRequestAsync(MessageType, String, List)}.
+	 *
 	 * @param type
 	 * @param msg
 	 * @return
 	 */
 	public MessageActionItem showNotificationMessageRequest(MessageType type, String msg, List<MessageActionItem> actions){
+		return showNotificationMessageRequestAsync(type, msg, actions).join();
+	}
+
+	/**
+	 * Sends the message to the client, to be displayed on a UI element.
+	 *
+	 * @param type
+	 * @param msg
+	 * @return a future completed with the action selected by the user
+	 */
+	public CompletableFuture<MessageActionItem> showNotificationMessageRequestAsync(MessageType type, String msg, List<MessageActionItem> actions) {
 		ShowMessageRequestParams $ = new ShowMessageRequestParams();
 		$.setMessage(msg);
 		$.setType(type);
 		$.setActions(actions);
-		return client.showMessageRequest($).join();
+		return client.showMessageRequest($);
 	}
 
 	/**
@@ -133,13 +148,31 @@ public class JavaClientConnection {
 	 * This is available since LSP v3.0 should be used
 	 * only by checking the ClientCapabilities.
 	 *
+	 * Blocks the calling thread until the client answers, prefer
+	 * {@link #applyWorkspaceEditAsync(WorkspaceEdit)}.
+	 *
 	 * @param edit
 	 */
 	public boolean applyWorkspaceEdit(WorkspaceEdit edit){
+		return applyWorkspaceEditAsync(edit).join().booleanValue();
+	}
+
+	/**
+	 * Sends a message to client to apply the given workspace edit.
+	 * This is available since LSP v3.0 should be used
+	 * only by checking the ClientCapabilities.
+	 *
+	 * @param edit
+	 * @return a future completed with whether the edit was applied
+	 */
+	public CompletableFuture<Boolean> applyWorkspaceEditAsync(WorkspaceEdit edit) {
 		ApplyWorkspaceEditParams $ = new ApplyWorkspaceEditParams();
 		$.setEdit(edit);
-		ApplyWorkspaceEditResponse response = client.applyEdit($).join();
-		return response.getApplied().booleanValue();
+		return client.applyEdit($).thenApply(JavaClientConnection::isApplied);
+	}
+
+	private static Boolean isApplied(ApplyWorkspaceEditResponse response) {
+		return Boolean.valueOf(response != null && Boolean.TRUE.equals(response.getApplied()));
 	}
 
 	/**
@@ -23,6 +23,8 @@ import java.net.PasswordAuthentication;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.Hashtable;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
 import java.util.stream.Stream;
 
 import org.apache.commons.lang3.StringUtils;
@@ -42,6 +44,8 @@ import org.eclipse.jdt.ls.core.internal.handlers.JDTLanguageServer;
 import org.eclipse.jdt.ls.core.internal.managers.ProjectsManager;
 import org.eclipse.jdt.ls.core.internal.preferences.PreferenceManager;
 import org.eclipse.lsp4j.jsonrpc.Launcher;
+import org.eclipse.lsp4j.jsonrpc.MessageConsumer;
+import org.eclipse.lsp4j.jsonrpc.RemoteEndpoint;
 import org.osgi.framework.Bundle;
 import org.osgi.framework.BundleActivator;
 import org.osgi.framework.BundleContext;
@@ -69,6 +73,12 @@ public class JavaLanguageServerPlugin implements BundleActivator {
 
 	public static final String PLUGIN_ID = "org.eclipse.jdt.ls.core";
 	private static JavaLanguageServerPlugin pluginInstance;
+	private static final AsyncLogger logger = new AsyncLogger(JavaLanguageServerPlugin::logToPlatform, 4096);
+	/**
+	 * The severities logged, as set by <code>log.level</code>. Without it, the
+	 * workspace log keeps every status
+	 */
+	private static final int logSeverityMask = getLoggedSeverityMask(System.getProperty("log.level"));
 	private static BundleContext context;
 	private ServiceTracker<IProxyService, IProxyService> proxyServiceTracker = null;
 	private static InputStream in;
@@ -77,6 +87,8 @@ public class JavaLanguageServerPlugin implements BundleActivator {
 
 	private LanguageServer languageServer;
 	private ProjectsManager projectsManager;
+	private MessageRecorder recorder;
+	private ConnectionStreamFactory connectionFactory;
 
 	private JDTLanguageServer protocol;
 
@@ -208,22 +220,69 @@ public class JavaLanguageServerPlugin implements BundleActivator {
 
 	private void startConnection() throws IOException {
 		protocol = new JDTLanguageServer(projectsManager, preferenceManager);
-		ConnectionStreamFactory connectionFactory = new ConnectionStreamFactory();
-		Launcher<JavaLanguageClient> launcher = Launcher.createLauncher(protocol, JavaLanguageClient.class,
-				connectionFactory.getInputStream(),
-				connectionFactory.getOutputStream());
+		connectionFactory = new ConnectionStreamFactory();
+		Launcher<JavaLanguageClient> launcher;
+		Function<MessageConsumer, MessageConsumer> wrapper = createMessageRecorder();
+		if (ConnectionStreamFactory.isChannelTransportEnabled()) {
+			launcher = ChannelLauncher.createLauncher(protocol, JavaLanguageClient.class,
+					connectionFactory.getInputChannel(),
+					connectionFactory.getOutputChannel(),
+					Executors.newCachedThreadPool(), wrapper);
+		} else {
+			launcher = ChannelLauncher.createLauncher(protocol, JavaLanguageClient.class,
+					connectionFactory.getInputStream(),
+					connectionFactory.getOutputStream(),
+					Executors.newCachedThreadPool(), wrapper);
+		}
 		protocol.connectClient(launcher.getRemoteProxy());
 		launcher.startListening();
 	}
 
+	/**
+	 * @return a wrapper recording incoming messages if enabled by the
+	 *         {@link MessageRecorder#RECORD_PROPERTY} system property,
+	 *         <code>null</code> otherwise
+	 */
+	private Function<MessageConsumer, MessageConsumer> createMessageRecorder() {
+		String id = "jdt.ls-" + new SimpleDateFormat("yyyyMMddHHmmss").format(new Date());
+		File file = MessageRecorder.getRecordingFile(getMetadataDirectory(), id);
+		if (file == null) {
+			return null;
+		}
+		try {
+			recorder = new MessageRecorder(file);
+		} catch (IOException e) {
+			logException("Unable to record session to " + file, e);
+			return null;
+		}
+		logInfo("Recording session to " + file);
+		// the remote endpoint consumes incoming messages, other consumers write outgoing ones
+		return consumer -> consumer instanceof RemoteEndpoint ? recorder.wrap(consumer) : consumer;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * @see org.osgi.framework.BundleActivator#stop(org.osgi.framework.BundleContext)
 	 */
 	@Override
 	public void stop(BundleContext bundleContext) throws Exception {
-		logInfo(getClass()+" is stopping:");
-		logInfo(getThreadDump());
+		if (isLoggable(IStatus.INFO)) {
+			logInfo(getClass() + " is stopping:");
+			logInfo(getThreadDump());
+		}
+		if (recorder != null) {
+			recorder.close();
+			recorder = null;
+		}
+		if (connectionFactory != null) {
+			try {
+				connectionFactory.close();
+			} catch (IOException e) {
+				logException("Unable to close the connection", e);
+			}
+			connectionFactory = null;
+		}
+		logger.shutdown();
 		JavaLanguageServerPlugin.pluginInstance = null;
 		JavaLanguageServerPlugin.context = null;
 		projectsManager = null;
@@ -250,9 +309,65 @@ public class JavaLanguageServerPlugin implements BundleActivator {
 		return pluginInstance;
 	}
 
+	/**
+	 * Returns whether statuses of the given severity are logged, as configured
+	 * by the <code>log.level</code> system property. Callers can check it before
+	 * building expensive log messages.
+	 */
+	public static boolean isLoggable(int severity) {
+		int effectiveSeverity = severity == IStatus.OK ? IStatus.INFO : severity;
+		return (effectiveSeverity & logSeverityMask) != 0;
+	}
+
+	/**
+	 * For testing purposes
+	 *
+	 * @return the mask of the severities logged for the given
+	 *         <code>log.level</code>, every severity if it isn't set
+	 */
+	static int getLoggedSeverityMask(String logLevel) {
+		return logLevel == null ? -1 : getLogSeverityMask(logLevel);
+	}
+
+	/**
+	 * For testing purposes
+	 *
+	 * @return the mask of the severities sent to the client for the given
+	 *         <code>log.level</code>, errors and warnings by default
+	 */
+	public static int getLogSeverityMask(String logLevel) {
+		if (logLevel == null) {
+			logLevel = "";
+		}
+		switch (logLevel) {
+		case "ALL":
+			return -1;
+		case "ERROR":
+			return IStatus.ERROR;
+		case "WARNING":
+		default:
+			return IStatus.ERROR | IStatus.WARNING;
+		}
+	}
+
+	/**
+	 * Logs a status. Errors are logged synchronously, other statuses are
+	 * handed over to a background thread, so callers never wait for the log.
+	 */
 	public static void log(IStatus status) {
-		if (context != null) {
-			Platform.getLog(JavaLanguageServerPlugin.context.getBundle()).log(status);
+		if (context != null && isLoggable(status.getSeverity())) {
+			if (status.matches(IStatus.ERROR)) {
+				logger.logNow(status);
+			} else {
+				logger.log(status);
+			}
+		}
+	}
+
+	private static void logToPlatform(IStatus status) {
+		BundleContext bundleContext = context;
+		if (bundleContext != null) {
+			Platform.getLog(bundleContext.getBundle()).log(status);
 		}
 	}
 
@@ -261,20 +376,20 @@ public class JavaLanguageServerPlugin implements BundleActivator {
 	}
 
 	public static void logError(String message) {
-		if (context != null) {
-			log(new Status(IStatus.ERROR, context.getBundle().getSymbolicName(), message));
+		if (context != null && isLoggable(IStatus.ERROR)) {
+			log(new Status(IStatus.ERROR, PLUGIN_ID, message));
 		}
 	}
 
 	public static void logInfo(String message) {
-		if (context != null) {
-			log(new Status(IStatus.INFO, context.getBundle().getSymbolicName(), message));
+		if (context != null && isLoggable(IStatus.INFO)) {
+			log(new Status(IStatus.INFO, PLUGIN_ID, message));
 		}
 	}
 
 	public static void logException(String message, Throwable ex) {
-		if (context != null) {
-			log(new Status(IStatus.ERROR, context.getBundle().getSymbolicName(), message, ex));
+		if (context != null && isLoggable(IStatus.ERROR)) {
+			log(new Status(IStatus.ERROR, PLUGIN_ID, message, ex));
 		}
 	}
 
@@ -324,10 +439,7 @@ public class JavaLanguageServerPlugin implements BundleActivator {
 		boolean isDebug = Boolean.getBoolean("jdt.ls.debug");
 		if (isDebug) {
 			String id = "jdt.ls-" + new SimpleDateFormat("yyyyMMddHHmmss").format(new Date());
-			IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
-			File workspaceFile = root.getRawLocation().makeAbsolute().toFile();
-			File rootFile = new File(workspaceFile, ".metadata");
-			rootFile.mkdirs();
+			File rootFile = getMetadataDirectory();
 			File outFile = new File(rootFile, ".out-" + id + ".log");
 			FileOutputStream stdFileOut = new FileOutputStream(outFile);
 			System.setOut(new PrintStream(stdFileOut));
@@ -340,6 +452,14 @@ public class JavaLanguageServerPlugin implements BundleActivator {
 		}
 	}
 
+	private static File getMetadataDirectory() {
+		IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
+		File workspaceFile = root.getRawLocation().makeAbsolute().toFile();
+		File rootFile = new File(workspaceFile, ".metadata");
+		rootFile.mkdirs();
+		return rootFile;
+	}
+
 	public static InputStream getIn() {
 		return in;
 	}
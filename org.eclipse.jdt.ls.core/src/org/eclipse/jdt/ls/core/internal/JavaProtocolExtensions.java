@@ -10,6 +10,7 @@
  *******************************************************************************/
 package org.eclipse.jdt.ls.core.internal;
 
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
 import org.eclipse.lsp4j.TextDocumentIdentifier;
@@ -41,4 +42,11 @@ public interface JavaProtocolExtensions {
 
 	@JsonRequest
 	CompletableFuture<String[]> resolveClasspaths(ClasspathResolveRequestParams param);
+
+	/**
+	 * Request a snapshot of the server metrics: latency statistics of requests
+	 * and background jobs, counters and gauges.
+	 */
+	@JsonRequest
+	CompletableFuture<Map<String, Object>> serverMetrics();
 }
@@ -10,60 +10,37 @@
  *******************************************************************************/
 package org.eclipse.jdt.ls.core.internal;
 
-import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
 
-import org.eclipse.core.runtime.Platform;
 import org.eclipse.equinox.app.IApplication;
 import org.eclipse.equinox.app.IApplicationContext;
 
 public class LanguageServer implements IApplication {
 
-	private volatile boolean shutdown;
+	private final CountDownLatch shutdown = new CountDownLatch(1);
+	private final ParentProcessWatcher parentProcessWatcher = new ParentProcessWatcher(this::parentProcessExited);
 	private long parentProcessId;
 
 	@Override
 	public Object start(IApplicationContext context) throws Exception {
 		JavaLanguageServerPlugin.startLanguageServer(this);
-
-		while (!shutdown && parentProcessStillRunning()) {
-			try {
-				Thread.sleep(1000);
-			} catch (InterruptedException e) {
-				// Not expected. Continue.
-				e.printStackTrace();
-			}
+		try {
+			shutdown.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			parentProcessWatcher.stop();
 		}
 		return IApplication.EXIT_OK;
 	}
 
 	/**
-	 * Checks whether the parent process is still running.
-	 * If not, then we assume it has crashed, and we have to terminate the Java Language Server.
-	 *
-	 * @return true iff the parent process is still running
+	 * Called when the parent process is gone. We assume it has crashed, and we
+	 * have to terminate the Java Language Server.
 	 */
-	private boolean parentProcessStillRunning() {
-		// Wait until parent process id is available
-		long parentProcessId = getParentProcessId();
-		if (parentProcessId == 0) {
-			return true;
-		}
-
-		String command;
-		if (Platform.OS_WIN32.equals(Platform.getOS())) {
-			command = "cmd /c \"tasklist /FI \"PID eq " + parentProcessId + "\" | findstr " + parentProcessId + "\"";
-		} else {
-			command = "ps -p " + parentProcessId;
-		}
-		try {
-			Process process = Runtime.getRuntime().exec(command);
-			int processResult = process.waitFor();
-			return processResult == 0;
-		} catch (IOException | InterruptedException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
-			return true;
-		}
+	private void parentProcessExited() {
+		System.out.println("Parent process " + getParentProcessId() + " stopped running, shutting down language server");
+		shutdown.countDown();
 	}
 
 	@Override
@@ -73,7 +50,7 @@ public class LanguageServer implements IApplication {
 
 	public void shutdown() {
 		System.out.println("Shutting down language server");
-		shutdown = true;
+		shutdown.countDown();
 	}
 
 	public synchronized long getParentProcessId() {
@@ -82,6 +59,7 @@ public class LanguageServer implements IApplication {
 
 	public synchronized void setParentProcessId(long processId) {
 		parentProcessId = processId;
+		parentProcessWatcher.watch(processId);
 	}
 
 }
@@ -0,0 +1,109 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Red Hat Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat Inc. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ls.core.internal;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock free histogram of durations, recorded in microseconds.
+ *
+ * Like HdrHistogram, values are counted in log-linear buckets: every power of
+ * two range is split into {@value #SUB_BUCKET_COUNT} linear sub-buckets, which
+ * bounds the error of reported percentiles to 12.5% whatever the magnitude of
+ * the recorded values, with a fixed footprint of a few kilobytes.
+ */
+public class LatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS = 3;
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	/**
+	 * Values below that threshold get a bucket of their own.
+	 */
+	private static final int LINEAR_LIMIT = SUB_BUCKET_COUNT * 2;
+	private static final int BUCKET_COUNT = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT + LINEAR_LIMIT;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+	private final AtomicLong count = new AtomicLong();
+	private final AtomicLong sum = new AtomicLong();
+	private final AtomicLong max = new AtomicLong();
+
+	/**
+	 * Records a duration.
+	 *
+	 * @param micros
+	 *            the duration in microseconds, negative values are recorded as
+	 *            0
+	 */
+	public void record(long micros) {
+		long value = Math.max(0, micros);
+		counts.incrementAndGet(bucketIndex(value));
+		count.incrementAndGet();
+		sum.addAndGet(value);
+		max.accumulateAndGet(value, Math::max);
+	}
+
+	public static int bucketIndex(long value) {
+		if (value < LINEAR_LIMIT) {
+			return (int) value;
+		}
+		int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+		return shift * SUB_BUCKET_COUNT + (int) (value >>> shift);
+	}
+
+	/**
+	 * @return the highest value counted in the given bucket
+	 */
+	public static long highestValue(int index) {
+		if (index < LINEAR_LIMIT) {
+			return index;
+		}
+		int shift = index / SUB_BUCKET_COUNT - 1;
+		long lowest = (long) (index % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT) << shift;
+		return lowest + (1L << shift) - 1;
+	}
+
+	public long getCount() {
+		return count.get();
+	}
+
+	public long getMax() {
+		return max.get();
+	}
+
+	public double getMean() {
+		long n = count.get();
+		return n == 0 ? 0 : (double) sum.get() / n;
+	}
+
+	/**
+	 * @param percentile
+	 *            the percentile to compute, between 0 and 100
+	 * @return the value at the given percentile, in microseconds. The returned
+	 *         value is the upper bound of the matching bucket, capped by the
+	 *         maximum recorded value
+	 */
+	public long getValueAtPercentile(double percentile) {
+		long total = count.get();
+		if (total == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(total * Math.min(100, percentile) / 100));
+		long cumulated = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			cumulated += counts.get(i);
+			if (cumulated >= rank) {
+				return Math.min(highestValue(i), max.get());
+			}
+		}
+		return max.get();
+	}
+}
@@ -0,0 +1,178 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Red Hat Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat Inc. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ls.core.internal;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.eclipse.lsp4j.jsonrpc.MessageConsumer;
+import org.eclipse.lsp4j.jsonrpc.json.MessageJsonHandler;
+import org.eclipse.lsp4j.jsonrpc.messages.Message;
+
+/**
+ * Records incoming JSON-RPC messages, so that a session can be replayed later,
+ * e.g. to reproduce a performance problem.
+ *
+ * Recording is enabled by the <code>jdt.ls.record</code> system property:
+ * <code>true</code> records into <code>.metadata/.session-*.jsonl.gz</code>
+ * in the workspace, any other value is used as the recording file path.
+ *
+ * A recording is a gzipped text file holding one message per line: the time
+ * elapsed since the start of the recording, in milliseconds, a tab, and the
+ * message in JSON.
+ */
+public class MessageRecorder implements Closeable {
+
+	public static final String RECORD_PROPERTY = "jdt.ls.record";
+
+	private final Writer writer;
+	private final MessageJsonHandler jsonHandler = new MessageJsonHandler(Collections.emptyMap());
+	private final long start = System.currentTimeMillis();
+	private boolean failed;
+
+	public MessageRecorder(File file) throws IOException {
+		// each message is flushed to the file, in case the server is killed
+		this.writer = new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(new FileOutputStream(file), true), StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * @return the recording file configured with the
+	 *         {@link #RECORD_PROPERTY} system property, or <code>null</code> if
+	 *         recording is disabled
+	 */
+	public static File getRecordingFile(File metadataDirectory, String id) {
+		String value = System.getProperty(RECORD_PROPERTY);
+		if (value == null || value.isEmpty() || "false".equalsIgnoreCase(value)) {
+			return null;
+		}
+		if ("true".equalsIgnoreCase(value)) {
+			return new File(metadataDirectory, ".session-" + id + ".jsonl.gz");
+		}
+		return new File(value);
+	}
+
+	/**
+	 * @return a consumer recording messages before passing them on to the given
+	 *         consumer
+	 */
+	public MessageConsumer wrap(MessageConsumer consumer) {
+		return message -> {
+			record(message);
+			consumer.consume(message);
+		};
+	}
+
+	public void record(Message message) {
+		synchronized (writer) {
+			if (failed) {
+				return;
+			}
+			try {
+				writer.write(Long.toString(System.currentTimeMillis() - start));
+				writer.write('\t');
+				jsonHandler.serialize(message, writer);
+				writer.write('\n');
+				writer.flush();
+			} catch (IOException | RuntimeException e) {
+				// don't let recording failures break the session
+				failed = true;
+				JavaLanguageServerPlugin.logException("Failed to record message, recording stopped", e);
+			}
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		synchronized (writer) {
+			writer.close();
+		}
+	}
+
+	/**
+	 * Reads a recording. The recording of a server that was killed ends
+	 * abruptly: the messages recorded until then are read.
+	 */
+	public static List<RecordedMessage> read(File file) throws IOException {
+		ByteArrayOutputStream content = new ByteArrayOutputStream();
+		boolean truncated = false;
+		try (InputStream input = new GZIPInputStream(new FileInputStream(file))) {
+			byte[] buffer = new byte[8192];
+			int read;
+			while ((read = input.read(buffer)) >= 0) {
+				content.write(buffer, 0, read);
+			}
+		} catch (EOFException e) {
+			// the recording was never closed
+			truncated = true;
+			JavaLanguageServerPlugin.logInfo("Recording " + file + " is truncated");
+		}
+		byte[] bytes = content.toByteArray();
+		int length = bytes.length;
+		if (truncated) {
+			// drop the partial last line
+			while (length > 0 && bytes[length - 1] != '\n') {
+				length--;
+			}
+		}
+		List<RecordedMessage> messages = new ArrayList<>();
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(bytes, 0, length), StandardCharsets.UTF_8))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				int separator = line.indexOf('\t');
+				if (separator > 0) {
+					messages.add(new RecordedMessage(Long.parseLong(line.substring(0, separator)), line.substring(separator + 1)));
+				}
+			}
+		}
+		return messages;
+	}
+
+	public static final class RecordedMessage {
+
+		private final long time;
+		private final String json;
+
+		public RecordedMessage(long time, String json) {
+			this.time = time;
+			this.json = json;
+		}
+
+		/**
+		 * @return the time the message was received, in milliseconds since the
+		 *         start of the recording
+		 */
+		public long getTime() {
+			return time;
+		}
+
+		public String getJson() {
+			return json;
+		}
+	}
+}
@@ -0,0 +1,279 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Red Hat Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat Inc. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ls.core.internal;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Platform;
+
+/**
+ * Watches the parent process of the language server, i.e. the client, and
+ * notifies when it is gone, so that the server does not outlive a crashed
+ * client.
+ *
+ * The liveness of the parent process is checked by the first available
+ * {@link LivenessDetector}. By default, in order of preference:
+ * <ul>
+ * <li>waiting for the process exit with <code>ProcessHandle</code>, on Java 9
+ * and later, which costs nothing while the parent is alive</li>
+ * <li>checking the existence of <code>/proc/&lt;pid&gt;</code>, on Linux</li>
+ * <li>running <code>ps</code> or <code>tasklist</code></li>
+ * </ul>
+ */
+public class ParentProcessWatcher {
+
+	/**
+	 * Detects whether a process is alive.
+	 */
+	public interface LivenessDetector {
+
+		/**
+		 * @return whether this detector works on the current platform
+		 */
+		boolean isAvailable();
+
+		/**
+		 * @return whether the process with the given id is running
+		 */
+		boolean isAlive(long pid);
+
+		/**
+		 * @return a future completed when the process with the given id exits,
+		 *         or <code>null</code> if this detector cannot wait for it, in
+		 *         which case {@link #isAlive(long)} is polled
+		 */
+		default CompletableFuture<?> onExit(long pid) {
+			if (JavaLanguageServerPlugin.isLoggable(IStatus.INFO)) {
+				JavaLanguageServerPlugin.logInfo("Polling parent process " + pid + " every " + getPollingInterval() + " ms");
+			}
+			return null;
+		}
+
+		/**
+		 * @return the delay between two calls to {@link #isAlive(long)}, in
+		 *         milliseconds
+		 */
+		default long getPollingInterval() {
+			return 1000;
+		}
+	}
+
+	private final Runnable onParentExit;
+	private final List<LivenessDetector> detectors;
+	private ScheduledExecutorService executor;
+	private ScheduledFuture<?> polling;
+	private CompletableFuture<?> exit;
+	private long watchedPid;
+
+	public ParentProcessWatcher(Runnable onParentExit) {
+		this(onParentExit, Arrays.asList(new ProcessHandleDetector(), new ProcFileSystemDetector(), new CommandDetector()));
+	}
+
+	public ParentProcessWatcher(Runnable onParentExit, List<LivenessDetector> detectors) {
+		this.onParentExit = onParentExit;
+		this.detectors = detectors;
+	}
+
+	/**
+	 * Starts watching the given process, instead of the previously watched one.
+	 *
+	 * @param pid
+	 *            the process id. Values lower or equal to 0 stop watching
+	 */
+	public synchronized void watch(long pid) {
+		if (pid == watchedPid) {
+			return;
+		}
+		cancel();
+		watchedPid = pid;
+		if (pid <= 0) {
+			return;
+		}
+		Optional<LivenessDetector> detector = detectors.stream().filter(LivenessDetector::isAvailable).findFirst();
+		if (!detector.isPresent()) {
+			JavaLanguageServerPlugin.logInfo("Unable to watch parent process " + pid);
+			return;
+		}
+		exit = detector.get().onExit(pid);
+		if (exit != null) {
+			exit.thenRun(() -> parentExited(pid));
+			return;
+		}
+		if (executor == null) {
+			executor = Executors.newSingleThreadScheduledExecutor(r -> {
+				Thread thread = new Thread(r, "jdt.ls-parent-watcher");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+		LivenessDetector pollingDetector = detector.get();
+		long interval = pollingDetector.getPollingInterval();
+		polling = executor.scheduleWithFixedDelay(() -> {
+			if (!pollingDetector.isAlive(pid)) {
+				parentExited(pid);
+			}
+		}, interval, interval, TimeUnit.MILLISECONDS);
+	}
+
+	private void parentExited(long pid) {
+		synchronized (this) {
+			if (pid != watchedPid) {
+				return;
+			}
+			cancel();
+			watchedPid = 0;
+		}
+		onParentExit.run();
+	}
+
+	private void cancel() {
+		if (polling != null) {
+			polling.cancel(false);
+			polling = null;
+		}
+		if (exit != null) {
+			exit.cancel(false);
+			exit = null;
+		}
+	}
+
+	/**
+	 * Stops watching, and releases the watcher thread.
+	 */
+	public synchronized void stop() {
+		cancel();
+		watchedPid = 0;
+		if (executor != null) {
+			executor.shutdownNow();
+			executor = null;
+		}
+	}
+
+	/**
+	 * Waits for the process exit with <code>java.lang.ProcessHandle</code>,
+	 * available since Java 9, accessed reflectively to keep running on Java 8.
+	 */
+	public static class ProcessHandleDetector implements LivenessDetector {
+
+		private Method of;
+		private Method isAlive;
+		private Method onExit;
+
+		public ProcessHandleDetector() {
+			try {
+				Class<?> processHandle = Class.forName("java.lang.ProcessHandle");
+				of = processHandle.getMethod("of", long.class);
+				isAlive = processHandle.getMethod("isAlive");
+				onExit = processHandle.getMethod("onExit");
+			} catch (ReflectiveOperationException e) {
+				of = null;
+			}
+		}
+
+		@Override
+		public boolean isAvailable() {
+			return of != null;
+		}
+
+		@Override
+		public boolean isAlive(long pid) {
+			try {
+				Object handle = getHandle(pid);
+				return handle != null && (Boolean) isAlive.invoke(handle);
+			} catch (ReflectiveOperationException e) {
+				return true;
+			}
+		}
+
+		@Override
+		public CompletableFuture<?> onExit(long pid) {
+			try {
+				Object handle = getHandle(pid);
+				if (handle == null) {
+					return CompletableFuture.completedFuture(null);
+				}
+				return (CompletableFuture<?>) onExit.invoke(handle);
+			} catch (ReflectiveOperationException e) {
+				return null;
+			}
+		}
+
+		private Object getHandle(long pid) throws ReflectiveOperationException {
+			return ((Optional<?>) of.invoke(null, pid)).orElse(null);
+		}
+	}
+
+	/**
+	 * Checks the existence of <code>/proc/&lt;pid&gt;</code>, without spawning
+	 * any process.
+	 */
+	public static class ProcFileSystemDetector implements LivenessDetector {
+
+		@Override
+		public boolean isAvailable() {
+			return new File("/proc/self").exists();
+		}
+
+		@Override
+		public boolean isAlive(long pid) {
+			return new File("/proc/" + pid).exists();
+		}
+	}
+
+	/**
+	 * Runs <code>ps</code>, or <code>tasklist</code> on Windows. As spawning a
+	 * process is expensive, the process is checked less often.
+	 */
+	public static class CommandDetector implements LivenessDetector {
+
+		@Override
+		public boolean isAvailable() {
+			return true;
+		}
+
+		@Override
+		public boolean isAlive(long pid) {
+			String command;
+			if (Platform.OS_WIN32.equals(Platform.getOS())) {
+				command = "cmd /c \"tasklist /FI \"PID eq " + pid + "\" | findstr " + pid + "\"";
+			} else {
+				command = "ps -p " + pid;
+			}
+			try {
+				Process process = Runtime.getRuntime().exec(command);
+				int processResult = process.waitFor();
+				return processResult == 0;
+			} catch (IOException e) {
+				JavaLanguageServerPlugin.logException(e.getMessage(), e);
+				return true;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return true;
+			}
+		}
+
+		@Override
+		public long getPollingInterval() {
+			return 5000;
+		}
+	}
+}
@@ -0,0 +1,223 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Red Hat Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat Inc. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ls.core.internal;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.eclipse.core.runtime.OperationCanceledException;
+
+/**
+ * Registry of the language server metrics: latency histograms, counters and
+ * gauges, reported to clients by the <code>java/serverMetrics</code> request.
+ *
+ * Operations, i.e. requests or background jobs, are timed with:
+ *
+ * <pre>
+ * ServerMetrics.Sample sample = ServerMetrics.getInstance().start("textDocument/completion");
+ * try {
+ * 	...
+ * 	sample.stop();
+ * } catch (Exception e) {
+ * 	sample.stop(e);
+ * }
+ * </pre>
+ */
+public final class ServerMetrics {
+
+	private static final ServerMetrics instance = new ServerMetrics();
+
+	private final long startTime = System.currentTimeMillis();
+	private final Map<String, Operation> operations = new ConcurrentHashMap<>();
+	private final Map<String, AtomicLong> counters = new ConcurrentHashMap<>();
+	private final Map<String, Supplier<? extends Number>> gauges = new ConcurrentHashMap<>();
+
+	public static ServerMetrics getInstance() {
+		return instance;
+	}
+
+	/**
+	 * Starts timing an operation.
+	 *
+	 * @param name
+	 *            the operation name, typically the JSON-RPC method or job name
+	 * @return the sample to stop once the operation is complete
+	 */
+	public Sample start(String name) {
+		Operation operation = operations.computeIfAbsent(name, n -> new Operation());
+		operation.inFlight.incrementAndGet();
+		return new Sample(operation);
+	}
+
+	public void increment(String name) {
+		increment(name, 1);
+	}
+
+	public void increment(String name, long delta) {
+		counters.computeIfAbsent(name, n -> new AtomicLong()).addAndGet(delta);
+	}
+
+	public long getCounter(String name) {
+		AtomicLong counter = counters.get(name);
+		return counter == null ? 0 : counter.get();
+	}
+
+	/**
+	 * Registers a gauge, sampled whenever metrics are reported. A gauge
+	 * registered under an existing name replaces it.
+	 */
+	public void registerGauge(String name, Supplier<? extends Number> gauge) {
+		gauges.put(name, gauge);
+	}
+
+	/**
+	 * Unregisters the given gauge, if it is still registered under the given
+	 * name.
+	 */
+	public void unregisterGauge(String name, Supplier<? extends Number> gauge) {
+		gauges.remove(name, gauge);
+	}
+
+	/**
+	 * @return the statistics of the given operation, or <code>null</code> if it
+	 *         never ran
+	 */
+	public Map<String, Object> getOperation(String name) {
+		Operation operation = operations.get(name);
+		return operation == null ? null : operation.snapshot();
+	}
+
+	/**
+	 * @return a snapshot of all metrics, in a JSON friendly structure. Durations
+	 *         are expressed in milliseconds
+	 */
+	public Map<String, Object> snapshot() {
+		Map<String, Object> snapshot = new LinkedHashMap<>();
+		snapshot.put("uptime", System.currentTimeMillis() - startTime);
+		Map<String, Object> operationsSnapshot = new TreeMap<>();
+		operations.forEach((name, operation) -> operationsSnapshot.put(name, operation.snapshot()));
+		snapshot.put("operations", operationsSnapshot);
+		Map<String, Long> countersSnapshot = new TreeMap<>();
+		counters.forEach((name, counter) -> countersSnapshot.put(name, counter.get()));
+		snapshot.put("counters", countersSnapshot);
+		Map<String, Number> gaugesSnapshot = new TreeMap<>();
+		gauges.forEach((name, gauge) -> {
+			try {
+				gaugesSnapshot.put(name, gauge.get());
+			} catch (RuntimeException e) {
+				JavaLanguageServerPlugin.logException("Failed to sample gauge " + name, e);
+			}
+		});
+		snapshot.put("gauges", gaugesSnapshot);
+		return snapshot;
+	}
+
+	/**
+	 * Discards all recorded operations and counters. Gauges are kept.
+	 */
+	public void reset() {
+		operations.clear();
+		counters.clear();
+	}
+
+	static boolean isCancellation(Throwable error) {
+		Throwable cause = error;
+		while (cause instanceof CompletionException && cause.getCause() != null) {
+			cause = cause.getCause();
+		}
+		return cause instanceof CancellationException || cause instanceof OperationCanceledException;
+	}
+
+	private static double toMillis(double micros) {
+		return Math.round(micros) / 1000d;
+	}
+
+	private static final class Operation {
+
+		private final LatencyHistogram latencies = new LatencyHistogram();
+		private final AtomicInteger inFlight = new AtomicInteger();
+		private final AtomicLong errors = new AtomicLong();
+		private final AtomicLong cancelled = new AtomicLong();
+
+		Map<String, Object> snapshot() {
+			Map<String, Object> snapshot = new LinkedHashMap<>();
+			snapshot.put("count", latencies.getCount());
+			snapshot.put("inFlight", inFlight.get());
+			snapshot.put("errors", errors.get());
+			snapshot.put("cancelled", cancelled.get());
+			snapshot.put("mean", toMillis(latencies.getMean()));
+			snapshot.put("p50", toMillis(latencies.getValueAtPercentile(50)));
+			snapshot.put("p90", toMillis(latencies.getValueAtPercentile(90)));
+			snapshot.put("p99", toMillis(latencies.getValueAtPercentile(99)));
+			snapshot.put("max", toMillis(latencies.getMax()));
+			return snapshot;
+		}
+	}
+
+	/**
+	 * A running operation.
+	 */
+	public static final class Sample {
+
+		private final Operation operation;
+		private final long start = System.nanoTime();
+		private boolean stopped;
+
+		private Sample(Operation operation) {
+			this.operation = operation;
+		}
+
+		/**
+		 * Records the successful completion of the operation.
+		 */
+		public void stop() {
+			stop(null);
+		}
+
+		/**
+		 * Records the completion of the operation.
+		 *
+		 * @param error
+		 *            the error the operation failed with, or <code>null</code>.
+		 *            Cancellation exceptions are counted as cancellations
+		 */
+		public synchronized void stop(Throwable error) {
+			if (stopped) {
+				return;
+			}
+			stopped = true;
+			operation.latencies.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+			operation.inFlight.decrementAndGet();
+			if (error != null) {
+				if (isCancellation(error)) {
+					operation.cancelled.incrementAndGet();
+				} else {
+					operation.errors.incrementAndGet();
+				}
+			}
+		}
+
+		/**
+		 * Records the cancellation of the operation.
+		 */
+		public void cancel() {
+			stop(new CancellationException());
+		}
+	}
+}
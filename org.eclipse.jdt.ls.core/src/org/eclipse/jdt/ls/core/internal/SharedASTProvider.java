@@ -12,9 +12,19 @@ package org.eclipse.jdt.ls.core.internal;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.ISafeRunnable;
@@ -25,10 +35,12 @@ import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.SubMonitor;
 import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.ITypeRoot;
 import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.jdt.core.dom.ASTNode;
 import org.eclipse.jdt.core.dom.ASTParser;
+import org.eclipse.jdt.core.dom.ASTRequestor;
 import org.eclipse.jdt.core.dom.CompilationUnit;
 import org.eclipse.jdt.internal.corext.dom.ASTNodes;
 import org.eclipse.jdt.internal.corext.dom.IASTSharedValues;
@@ -36,18 +48,91 @@ import org.eclipse.jdt.internal.corext.dom.IASTSharedValues;
 /**
  * AST provider that caches the AST generated for files that are known to be
  * open.
+ *
+ * The cache is bounded by a memory budget, in megabytes, set with the
+ * <code>jdt.ls.ast.cache.size</code> system property, and defaulting to an
+ * eighth of the maximum heap. When the estimated size of the cached ASTs
+ * exceeds the budget, the ASTs of the least recently used documents are
+ * released first.
+ *
+ * Each entry holds the future AST of a version of the content of a document,
+ * and the last AST completed for it, possibly of an older version. A change of
+ * the document starts a new version. Concurrent requests for the AST of the
+ * same version share a single creation, which runs in the thread of the first
+ * request, outside of any lock of the cache, and each request can be cancelled
+ * independently.
+ *
+ * ASTs come in two tiers: {@link #getAST(ITypeRoot, IProgressMonitor)} returns
+ * an AST with resolved bindings, while
+ * {@link #getSyntaxAST(ITypeRoot, IProgressMonitor)} returns, for consumers
+ * that only need the structure of a document, an AST that is parsed without
+ * resolving bindings, unless the bound AST of the current content is already
+ * created. The bound AST of an open document is created in the background by
+ * its validation, and replaces the syntax-only one once available.
  */
 @SuppressWarnings("restriction")
 public final class SharedASTProvider {
 
-	private static SharedASTProvider instance = new SharedASTProvider();
+	public static final String CACHE_SIZE_PROPERTY = "jdt.ls.ast.cache.size";
+	public static final String CREATE_METRIC = "ast/create";
+	public static final String PARSE_METRIC = "ast/parse";
+
+	/**
+	 * The estimated memory retained by an AST with resolved bindings, per
+	 * character of its source. Walking the AST to measure it would cost as
+	 * much as a traversal of the whole document on every publish.
+	 */
+	private static final int BYTES_PER_CHARACTER = 40;
 
-	private ConcurrentMap<String, CompilationUnit> cache = new ConcurrentHashMap<>();
-	private int astCreationCount; // to testing purposes
+	/**
+	 * How often a request waiting for an AST created by another request checks
+	 * its own cancellation, in milliseconds
+	 */
+	private static final long CANCELLATION_POLL_INTERVAL = 100;
+
+	private static SharedASTProvider instance = new SharedASTProvider();
 
+	private ConcurrentMap<String, CacheEntry> cache = new ConcurrentHashMap<>();
+	/**
+	 * The number of ASTs being created or published for each document, whose
+	 * entries are not evicted
+	 */
+	private ConcurrentMap<String, Integer> pinned = new ConcurrentHashMap<>();
+	/**
+	 * The syntax-only ASTs of the documents whose bound AST is not created
+	 * yet. At most one per open document, they are not accounted in the
+	 * memory budget.
+	 */
+	private ConcurrentMap<String, SyntaxEntry> syntaxCache = new ConcurrentHashMap<>();
+	private final AtomicInteger astCreationCount = new AtomicInteger(); // to testing purposes
+	private final AtomicLong accessClock = new AtomicLong();
+	private final AtomicLong versionClock = new AtomicLong();
+	private final AtomicLong cacheBytes = new AtomicLong();
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong evictions = new AtomicLong();
+	private final Object evictionLock = new Object();
+	private volatile long memoryBudget;
 
 	private SharedASTProvider() {
-		astCreationCount = 0;
+		memoryBudget = getMemoryBudget(System.getProperty(CACHE_SIZE_PROPERTY));
+		ServerMetrics metrics = ServerMetrics.getInstance();
+		metrics.registerGauge("ast.cache.size", this::getCacheSize);
+		metrics.registerGauge("ast.cache.bytes", cacheBytes::get);
+		metrics.registerGauge("ast.cache.hits", hits::get);
+		metrics.registerGauge("ast.cache.misses", misses::get);
+		metrics.registerGauge("ast.cache.evictions", evictions::get);
+	}
+
+	private static long getMemoryBudget(String megabytes) {
+		if (megabytes != null) {
+			try {
+				return Long.parseLong(megabytes.trim()) * 1024 * 1024;
+			} catch (NumberFormatException e) {
+				JavaLanguageServerPlugin.logInfo("Invalid " + CACHE_SIZE_PROPERTY + ": " + megabytes);
+			}
+		}
+		return Runtime.getRuntime().maxMemory() / 8;
 	}
 
 	public void dispose() {
@@ -63,37 +148,322 @@ public final class SharedASTProvider {
 			return null;
 		}
 		if (!shouldCache(input)) {
-			JavaLanguageServerPlugin.logInfo("Creating uncached AST for " + input.getPath().toString());
+			if (JavaLanguageServerPlugin.isLoggable(IStatus.INFO)) {
+				JavaLanguageServerPlugin.logInfo("Creating uncached AST for " + input.getPath().toString());
+			}
 			return createAST(input, progressMonitor);
 		}
 
 		final String identifier = input.getHandleIdentifier();
-		return cache.computeIfAbsent(identifier, k -> {
+		while (true) {
+			CacheEntry entry = cache.get(identifier);
+			if (entry != null && entry.future != null) {
+				hits.incrementAndGet();
+				entry.touch();
+				try {
+					return join(entry.future, progressMonitor);
+				} catch (CancellationException e) {
+					// the request creating the AST was cancelled, take over
+					continue;
+				}
+			}
+			CompletableFuture<CompilationUnit> future = new CompletableFuture<>();
+			CacheEntry installed = cache.compute(identifier, (k, current) -> {
+				if (current == null) {
+					return new CacheEntry(versionClock.incrementAndGet(), future, null, 0);
+				}
+				return current.future == null ? current.withFuture(future) : current;
+			});
+			if (installed.future == future) {
+				misses.incrementAndGet();
+				return createAST(input, installed.version, future, progressMonitor);
+			}
+		}
+	}
+
+	/**
+	 * Returns an AST of the current content of the given unit, whose bindings
+	 * may not be resolved, for consumers that only need its structure: the bound
+	 * AST if it is already created, or else an AST that is only parsed.
+	 *
+	 * @return the AST, or <code>null</code> if the unit has no source
+	 */
+	public CompilationUnit getSyntaxAST(final ITypeRoot input, IProgressMonitor progressMonitor) {
+		if (progressMonitor != null && progressMonitor.isCanceled()) {
+			return null;
+		}
+		if (!shouldCache(input)) {
+			return parseAST(input, progressMonitor);
+		}
+		final String identifier = input.getHandleIdentifier();
+		CacheEntry entry = cache.get(identifier);
+		if (entry != null && entry.future != null && entry.future.isDone() && !entry.future.isCompletedExceptionally()) {
+			CompilationUnit astRoot = entry.future.getNow(null);
+			if (astRoot != null) {
+				hits.incrementAndGet();
+				entry.touch();
+				return astRoot;
+			}
+		}
+		long version = getVersion(identifier);
+		SyntaxEntry syntaxEntry = syntaxCache.get(identifier);
+		if (syntaxEntry != null && syntaxEntry.version == version) {
+			return syntaxEntry.astRoot;
+		}
+		CompilationUnit astRoot = parseAST(input, progressMonitor);
+		if (astRoot != null) {
+			// a parse of content changed meanwhile is kept under its older version
+			syntaxCache.merge(identifier, new SyntaxEntry(version, astRoot), (current, parsed) -> parsed.version >= current.version ? parsed : current);
+		}
+		return astRoot;
+	}
+
+	/**
+	 * @return the last AST created for the given unit, without waiting for
+	 *         the AST of its current content, or <code>null</code> if none is
+	 *         cached
+	 */
+	public CompilationUnit getLastAST(ITypeRoot input) {
+		if (!shouldCache(input)) {
+			return null;
+		}
+		CacheEntry entry = cache.get(input.getHandleIdentifier());
+		if (entry == null) {
+			return null;
+		}
+		entry.touch();
+		return entry.astRoot;
+	}
+
+	/**
+	 * Creates the AST of the given version of a unit, and completes the given
+	 * future, shared with the concurrent requests of that version.
+	 */
+	private CompilationUnit createAST(ITypeRoot input, long version, CompletableFuture<CompilationUnit> future, IProgressMonitor progressMonitor) {
+		if (JavaLanguageServerPlugin.isLoggable(IStatus.INFO)) {
 			JavaLanguageServerPlugin.logInfo("Caching AST for " + input.getPath().toString());
-			CompilationUnit astRoot = createAST(input, progressMonitor);
-			astCreationCount++;
-			return astRoot;
-		});
+		}
+		String identifier = input.getHandleIdentifier();
+		CompilationUnit astRoot = null;
+		pin(identifier);
+		try {
+			astRoot = createAST(input, progressMonitor);
+		} finally {
+			if (astRoot != null) {
+				astCreationCount.incrementAndGet();
+				publish(identifier, version, future, astRoot, false);
+				future.complete(astRoot);
+			} else {
+				// nothing is cached, so that the next request tries again
+				cache.computeIfPresent(identifier, (k, current) -> current.future == future ? current.withFuture(null) : current);
+				if (progressMonitor != null && progressMonitor.isCanceled()) {
+					future.cancel(false);
+				} else {
+					future.complete(null);
+				}
+			}
+			unpin(identifier);
+		}
+		evict();
+		return astRoot;
+	}
+
+	/**
+	 * Waits for an AST created by another request, until the given monitor is
+	 * cancelled.
+	 *
+	 * @throws CancellationException
+	 *             if the creation of the AST was cancelled
+	 */
+	private static CompilationUnit join(CompletableFuture<CompilationUnit> future, IProgressMonitor progressMonitor) {
+		while (true) {
+			try {
+				return future.get(CANCELLATION_POLL_INTERVAL, TimeUnit.MILLISECONDS);
+			} catch (TimeoutException e) {
+				if (progressMonitor != null && progressMonitor.isCanceled()) {
+					return null;
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return null;
+			} catch (ExecutionException e) {
+				return null;
+			}
+		}
 	}
 
 	public List<CompilationUnit> getASTs(List<ICompilationUnit> inputs, IProgressMonitor progressMonitor) {
 		if (progressMonitor != null && progressMonitor.isCanceled() || inputs.isEmpty()) {
 			return Collections.emptyList();
 		}
+		SubMonitor subMonitor = SubMonitor.convert(progressMonitor, inputs.size() * 2);
+		Map<IJavaProject, List<ICompilationUnit>> missing = new LinkedHashMap<>();
+		for (ICompilationUnit input : inputs) {
+			if (shouldCache(input) && !isCached(input.getHandleIdentifier()) && hasSource(input)) {
+				missing.computeIfAbsent(input.getJavaProject(), p -> new ArrayList<>()).add(input);
+			}
+		}
+		for (Map.Entry<IJavaProject, List<ICompilationUnit>> entry : missing.entrySet()) {
+			List<ICompilationUnit> units = entry.getValue();
+			if (units.size() > 1) {
+				createASTs(entry.getKey(), units, subMonitor.split(units.size()));
+			}
+		}
+		subMonitor.setWorkRemaining(inputs.size());
 		List<CompilationUnit> result = new ArrayList<>();
-		SubMonitor subMonitor = SubMonitor.convert(progressMonitor, inputs.size());
-
 		for (ICompilationUnit input : inputs) {
 			result.add(getAST(input, subMonitor.split(1)));
 		}
 		return result;
 	}
 
+	/**
+	 * Creates and caches the ASTs of the given units of a project in one batch,
+	 * sharing the resolution of their common dependencies.
+	 */
+	private void createASTs(IJavaProject project, List<ICompilationUnit> inputs, IProgressMonitor progressMonitor) {
+		if (JavaLanguageServerPlugin.isLoggable(IStatus.INFO)) {
+			JavaLanguageServerPlugin.logInfo("Caching " + inputs.size() + " ASTs for " + project.getElementName());
+		}
+		Map<String, Long> versions = new HashMap<>();
+		for (ICompilationUnit input : inputs) {
+			versions.put(input.getHandleIdentifier(), getVersion(input.getHandleIdentifier()));
+			pin(input.getHandleIdentifier());
+		}
+		final ASTParser parser = newASTParser();
+		parser.setProject(project);
+		ServerMetrics.Sample sample = ServerMetrics.getInstance().start(CREATE_METRIC);
+		SafeRunner.run(new ISafeRunnable() {
+			@Override
+			public void run() {
+				try {
+					parser.createASTs(inputs.toArray(new ICompilationUnit[inputs.size()]), new String[0], new ASTRequestor() {
+						@Override
+						public void acceptAST(ICompilationUnit source, CompilationUnit ast) {
+							//mark as unmodifiable
+							ASTNodes.setFlagsToAST(ast, ASTNode.PROTECT);
+							String identifier = source.getHandleIdentifier();
+							if (publish(identifier, versions.get(identifier), CompletableFuture.completedFuture(ast), ast, false)) {
+								astCreationCount.incrementAndGet();
+							}
+						}
+					}, progressMonitor);
+					sample.stop();
+				} catch (OperationCanceledException ex) {
+					sample.cancel();
+					return;
+				}
+			}
+
+			@Override
+			public void handleException(Throwable ex) {
+				sample.stop(ex);
+				IStatus status = new Status(IStatus.ERROR, JavaLanguageServerPlugin.PLUGIN_ID, IStatus.OK, "Error in JDT Core during AST creation", ex); //$NON-NLS-1$
+				JavaLanguageServerPlugin.log(status);
+			}
+		});
+		for (String identifier : versions.keySet()) {
+			unpin(identifier);
+		}
+		evict();
+	}
+
+	/**
+	 * Caches the given AST as the AST of the current content of its unit.
+	 */
 	public void setAST(CompilationUnit astRoot) {
 		ITypeRoot typeRoot = astRoot.getTypeRoot();
 		if (shouldCache(typeRoot)) {
-			cache.put(typeRoot.getHandleIdentifier(), astRoot);
+			setAST(astRoot, getVersion(typeRoot.getHandleIdentifier()));
+		}
+	}
+
+	private void setAST(CompilationUnit astRoot, long version) {
+		//mark as unmodifiable
+		ASTNodes.setFlagsToAST(astRoot, ASTNode.PROTECT);
+		String identifier = astRoot.getTypeRoot().getHandleIdentifier();
+		pin(identifier);
+		try {
+			publish(identifier, version, CompletableFuture.completedFuture(astRoot), astRoot, true);
+		} finally {
+			unpin(identifier);
+		}
+		evict();
+	}
+
+	/**
+	 * Caches the given AST of the given version of a unit, unless the unit
+	 * changed or was released since. Unless <code>replace</code> is set, an
+	 * AST created concurrently, with another future, is kept instead.
+	 *
+	 * @return whether the AST was cached
+	 */
+	private boolean publish(String identifier, long version, CompletableFuture<CompilationUnit> future, CompilationUnit astRoot, boolean replace) {
+		CacheEntry entry = new CacheEntry(version, future, astRoot, (long) astRoot.getLength() * BYTES_PER_CHARACTER);
+		CacheEntry published = cache.computeIfPresent(identifier, (k, current) -> {
+			if (current.version != version || !replace && current.future != null && current.future != future) {
+				return current;
+			}
+			cacheBytes.addAndGet(entry.size - current.size);
+			return entry;
+		});
+		if (published != entry) {
+			return false;
+		}
+		// the bound AST supersedes the syntax-only one
+		syntaxCache.computeIfPresent(identifier, (k, syntaxEntry) -> syntaxEntry.version <= version ? null : syntaxEntry);
+		return true;
+	}
+
+	/**
+	 * Keeps the entry of the given document from being evicted, while one of
+	 * its ASTs is created or published.
+	 */
+	private void pin(String identifier) {
+		pinned.merge(identifier, 1, Integer::sum);
+	}
+
+	private void unpin(String identifier) {
+		pinned.computeIfPresent(identifier, (k, count) -> count > 1 ? count - 1 : null);
+	}
+
+	/**
+	 * @return the version of the current content of the given unit
+	 */
+	private long getVersion(String identifier) {
+		return cache.computeIfAbsent(identifier, k -> new CacheEntry(versionClock.incrementAndGet(), null, null, 0)).version;
+	}
+
+	private boolean isCached(String identifier) {
+		CacheEntry entry = cache.get(identifier);
+		return entry != null && entry.future != null;
+	}
+
+	/**
+	 * Reconciles the given working copy, and caches the AST built by the
+	 * reconcile, so that it doesn't need to be parsed and resolved again.
+	 *
+	 * @return the AST, with the problems of the unit, or <code>null</code> if
+	 *         the unit is no longer a working copy
+	 */
+	public CompilationUnit reconcile(ICompilationUnit unit, IProgressMonitor progressMonitor) throws JavaModelException {
+		if (!unit.isWorkingCopy()) {
+			return null;
 		}
+		int flags = ICompilationUnit.FORCE_PROBLEM_DETECTION;
+		if (IASTSharedValues.SHARED_AST_STATEMENT_RECOVERY) {
+			flags |= ICompilationUnit.ENABLE_STATEMENTS_RECOVERY;
+		}
+		if (IASTSharedValues.SHARED_BINDING_RECOVERY) {
+			flags |= ICompilationUnit.ENABLE_BINDINGS_RECOVERY;
+		}
+		// an AST of content changed during the reconcile is not cached
+		long version = getVersion(unit.getHandleIdentifier());
+		CompilationUnit astRoot = unit.reconcile(IASTSharedValues.SHARED_AST_LEVEL, flags, null, progressMonitor);
+		if (astRoot != null) {
+			setAST(astRoot, version);
+		}
+		return astRoot;
 	}
 
 	/**
@@ -108,20 +478,80 @@ public final class SharedASTProvider {
 		return cu.getOwner() == null && cu.isWorkingCopy();
 	}
 
+	/**
+	 * Starts a new version of the content of the given unit, after a change.
+	 * The AST of the previous version is kept for {@link #getLastAST(ITypeRoot)}
+	 * until the AST of the new version is created.
+	 */
+	public void outdate(ITypeRoot root) {
+		if (root != null && shouldCache(root)) {
+			cache.compute(root.getHandleIdentifier(), (k, current) -> {
+				if (current == null) {
+					return new CacheEntry(versionClock.incrementAndGet(), null, null, 0);
+				}
+				return new CacheEntry(versionClock.incrementAndGet(), null, current.astRoot, current.size);
+			});
+		}
+	}
+
 	public void invalidate(ITypeRoot root){
 		if(root != null){
-			CompilationUnit removed = cache.remove(root.getHandleIdentifier());
+			syntaxCache.remove(root.getHandleIdentifier());
+			CacheEntry removed = cache.remove(root.getHandleIdentifier());
 			if (removed != null) {
-				JavaLanguageServerPlugin.logInfo("Releasing AST for " + root.getPath().toString());
+				release(removed);
+				if (JavaLanguageServerPlugin.isLoggable(IStatus.INFO)) {
+					JavaLanguageServerPlugin.logInfo("Releasing AST for " + root.getPath().toString());
+				}
 			}
 		}
 	}
 
 	public void invalidateAll() {
-		cache.clear();
+		for (String identifier : cache.keySet()) {
+			release(cache.remove(identifier));
+		}
+		syntaxCache.clear();
 		JavaLanguageServerPlugin.logInfo("Releasing all ASTs");
 	}
 
+	private void release(CacheEntry entry) {
+		if (entry != null) {
+			cacheBytes.addAndGet(-entry.size);
+		}
+	}
+
+	/**
+	 * Releases the least recently used ASTs until the cache fits in the memory
+	 * budget. The most recently used AST, and the ASTs being created or
+	 * published, are always kept.
+	 */
+	private void evict() {
+		if (cacheBytes.get() <= memoryBudget) {
+			return;
+		}
+		synchronized (evictionLock) {
+			List<Map.Entry<String, CacheEntry>> entries = new ArrayList<>();
+			for (Map.Entry<String, CacheEntry> entry : cache.entrySet()) {
+				CompletableFuture<CompilationUnit> future = entry.getValue().future;
+				if (entry.getValue().astRoot != null && (future == null || future.isDone()) && !pinned.containsKey(entry.getKey())) {
+					entries.add(entry);
+				}
+			}
+			entries.sort((e1, e2) -> Long.compare(e1.getValue().lastAccess, e2.getValue().lastAccess));
+			for (int i = 0; i < entries.size() - 1 && cacheBytes.get() > memoryBudget; i++) {
+				Map.Entry<String, CacheEntry> entry = entries.get(i);
+				if (cache.remove(entry.getKey(), entry.getValue())) {
+					release(entry.getValue());
+					evictions.incrementAndGet();
+					if (JavaLanguageServerPlugin.isLoggable(IStatus.INFO)) {
+						JavaLanguageServerPlugin.logInfo("Evicting AST for " + entry.getValue().astRoot.getTypeRoot().getPath());
+					}
+				}
+			}
+		}
+	}
+
 	/**
 	 * Creates a new compilation unit AST.
 	 *
@@ -142,24 +572,29 @@ public final class SharedASTProvider {
 		parser.setSource(input);
 
 		final CompilationUnit root[]= new CompilationUnit[1];
+		ServerMetrics.Sample sample = ServerMetrics.getInstance().start(CREATE_METRIC);
 
 		SafeRunner.run(new ISafeRunnable() {
 			@Override
 			public void run() {
 				try {
 					if (progressMonitor != null && progressMonitor.isCanceled()) {
+						sample.cancel();
 						return;
 					}
 					root[0] = (CompilationUnit) parser.createAST(progressMonitor);
 
 					//mark as unmodifiable
 					ASTNodes.setFlagsToAST(root[0], ASTNode.PROTECT);
+					sample.stop();
 				} catch (OperationCanceledException ex) {
+					sample.cancel();
 					return;
 				}
 			}
 			@Override
 			public void handleException(Throwable ex) {
+				sample.stop(ex);
 				IStatus status= new Status(IStatus.ERROR, JavaLanguageServerPlugin.PLUGIN_ID, IStatus.OK, "Error in JDT Core during AST creation", ex);  //$NON-NLS-1$
 				JavaLanguageServerPlugin.log(status);
 			}
@@ -167,6 +602,43 @@ public final class SharedASTProvider {
 		return root[0];
 	}
 
+	/**
+	 * Parses the given Java element, without resolving bindings.
+	 */
+	private static CompilationUnit parseAST(final ITypeRoot input, final IProgressMonitor progressMonitor) {
+		if (!hasSource(input)) {
+			return null;
+		}
+		final ASTParser parser = ASTParser.newParser(IASTSharedValues.SHARED_AST_LEVEL);
+		parser.setResolveBindings(false);
+		parser.setStatementsRecovery(IASTSharedValues.SHARED_AST_STATEMENT_RECOVERY);
+		parser.setSource(input);
+
+		final CompilationUnit root[] = new CompilationUnit[1];
+		ServerMetrics.Sample sample = ServerMetrics.getInstance().start(PARSE_METRIC);
+		SafeRunner.run(new ISafeRunnable() {
+			@Override
+			public void run() {
+				try {
+					root[0] = (CompilationUnit) parser.createAST(progressMonitor);
+					//mark as unmodifiable
+					ASTNodes.setFlagsToAST(root[0], ASTNode.PROTECT);
+					sample.stop();
+				} catch (OperationCanceledException ex) {
+					sample.cancel();
+				}
+			}
+
+			@Override
+			public void handleException(Throwable ex) {
+				sample.stop(ex);
+				IStatus status = new Status(IStatus.ERROR, JavaLanguageServerPlugin.PLUGIN_ID, IStatus.OK, "Error in JDT Core during AST parsing", ex); //$NON-NLS-1$
+				JavaLanguageServerPlugin.log(status);
+			}
+		});
+		return root[0];
+	}
+
 	public static ASTParser newASTParser() {
 		final ASTParser parser = ASTParser.newParser(IASTSharedValues.SHARED_AST_LEVEL);
 		parser.setResolveBindings(true);
@@ -198,10 +670,17 @@ public final class SharedASTProvider {
 	/**
 	 * For testing purposes
 	 *
-	 * @return the number of elements currently in the cache
+	 * @return the number of ASTs currently in the cache, not counting the
+	 *         documents whose AST was never created
 	 */
 	public int getCacheSize() {
-		return cache.size();
+		int size = 0;
+		for (CacheEntry entry : cache.values()) {
+			if (entry.astRoot != null) {
+				size++;
+			}
+		}
+		return size;
 	}
 
 	/**
@@ -210,7 +689,7 @@ public final class SharedASTProvider {
 	 * @return the number of ASTs created
 	 */
 	public int getASTCreationCount() {
-		return astCreationCount;
+		return astCreationCount.get();
 	}
 
 	/**
@@ -219,7 +698,88 @@ public final class SharedASTProvider {
 	 * Sets the counter for ASTs created to 0
 	 */
 	public void clearASTCreationCount() {
-		astCreationCount = 0;
+		astCreationCount.set(0);
+	}
+
+	/**
+	 * @return the estimated memory used by the cached ASTs, in bytes
+	 */
+	public long getCacheBytes() {
+		return cacheBytes.get();
+	}
+
+	public long getHitCount() {
+		return hits.get();
+	}
+
+	public long getMissCount() {
+		return misses.get();
+	}
+
+	public long getEvictionCount() {
+		return evictions.get();
+	}
+
+	/**
+	 * @return the memory budget of the cache, in bytes
+	 */
+	public long getMemoryBudget() {
+		return memoryBudget;
+	}
+
+	/**
+	 * For testing purposes
+	 *
+	 * Sets the memory budget of the cache, in bytes
+	 */
+	public void setMemoryBudget(long bytes) {
+		memoryBudget = bytes;
+		evict();
+	}
+
+	private static final class SyntaxEntry {
+
+		private final long version;
+		private final CompilationUnit astRoot;
+
+		SyntaxEntry(long version, CompilationUnit astRoot) {
+			this.version = version;
+			this.astRoot = astRoot;
+		}
+	}
+
+	private final class CacheEntry {
+
+		/**
+		 * The version of the content of the document
+		 */
+		private final long version;
+		/**
+		 * The AST of that version, <code>null</code> until it is requested
+		 */
+		private final CompletableFuture<CompilationUnit> future;
+		/**
+		 * The last AST completed, possibly of an older version
+		 */
+		private final CompilationUnit astRoot;
+		private final long size;
+		private volatile long lastAccess;
+
+		CacheEntry(long version, CompletableFuture<CompilationUnit> future, CompilationUnit astRoot, long size) {
+			this.version = version;
+			this.future = future;
+			this.astRoot = astRoot;
+			this.size = size;
+			touch();
+		}
+
+		CacheEntry withFuture(CompletableFuture<CompilationUnit> future) {
+			return new CacheEntry(version, future, astRoot, size);
+		}
+
+		void touch() {
+			lastAccess = accessClock.incrementAndGet();
+		}
 	}
 
 }
@@ -0,0 +1,48 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Red Hat Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat Inc. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ls.core.internal;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+
+import org.eclipse.lsp4j.jsonrpc.json.MessageJsonHandler;
+
+/**
+ * A message consumer writing JSON-RPC messages to an {@link OutputStream}.
+ *
+ * Unlike {@link org.eclipse.lsp4j.jsonrpc.json.StreamMessageConsumer}, which
+ * renders every message to a <code>String</code> and then to a
+ * <code>byte[]</code> before writing it, messages are encoded from the JSON
+ * writer into a reusable buffer, as they are serialized, and the buffer is
+ * then written to the stream. Messages too large for the buffer (completion
+ * lists, references, workspace symbols) are written to the stream as they are
+ * serialized, once their length is counted, as {@link ChannelMessageConsumer}
+ * does.
+ */
+public class StreamingMessageConsumer extends ChannelMessageConsumer {
+
+	private final OutputStream output;
+
+	public StreamingMessageConsumer(OutputStream output, MessageJsonHandler jsonHandler) {
+		super(Channels.newChannel(output), jsonHandler);
+		this.output = output;
+	}
+
+	@Override
+	protected void flush() {
+		try {
+			output.flush();
+		} catch (IOException exception) {
+			throw new RuntimeException(exception);
+		}
+	}
+}
@@ -0,0 +1,756 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Red Hat Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat Inc. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ls.core.internal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.IAccessRule;
+import org.eclipse.jdt.core.IClasspathEntry;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.core.compiler.CharOperation;
+import org.eclipse.jdt.core.search.IJavaSearchConstants;
+import org.eclipse.jdt.core.search.IJavaSearchScope;
+import org.eclipse.jdt.core.search.SearchEngine;
+import org.eclipse.jdt.core.search.SearchPattern;
+import org.eclipse.jdt.core.search.TypeNameMatch;
+import org.eclipse.jdt.core.search.TypeNameRequestor;
+
+/**
+ * Resident index of the names of the types visible to each project, for the
+ * type name queries of interactive requests, which would otherwise scan the
+ * indexes of the search engine, and wait for them to be ready.
+ *
+ * The types of each library are indexed once, by path, for all the projects
+ * referencing it, and again after its archive changes. The types of the
+ * sources of each project, shared by the projects requiring it, are then
+ * updated per compilation unit from the Java element deltas, including the
+ * reconciling of working copies. The libraries and the projects are indexed
+ * in the background, the first time they are queried: the queries made
+ * before they are indexed aren't answered, so that the callers search the
+ * indexes of the search engine instead. The access rules of the classpath of
+ * the querying project are applied to the types found. Names are kept sorted
+ * ignoring case, so that prefix and camel case queries only visit the names
+ * starting like the query. The types found are only looked up in the Java
+ * model when their element is requested.
+ */
+public final class TypeNameIndex implements IElementChangedListener {
+
+	public static final String BUILD_METRIC = "typeindex/build";
+	public static final String INDEX_JOBS = "TypeNameIndexJobs";
+
+	private static TypeNameIndex instance = new TypeNameIndex();
+
+	/**
+	 * The types of each library, by path
+	 */
+	private final ConcurrentMap<String, TypeTable> libraries = new ConcurrentHashMap<>();
+	/**
+	 * The libraries and the source projects visible to each project, computed
+	 * again after a classpath change
+	 */
+	private final ConcurrentMap<String, Visibility> visibilities = new ConcurrentHashMap<>();
+	/**
+	 * The types of each compilation unit of the indexed projects, by path
+	 */
+	private final Map<String, TypeName[]> sources = new HashMap<>();
+	/**
+	 * The types of the indexed projects, by lower case simple name
+	 */
+	private final NavigableMap<String, List<TypeName>> sourceTypes = new TreeMap<>();
+	/**
+	 * The projects whose sources are indexed
+	 */
+	private final Set<String> sourceProjects = new HashSet<>();
+	/**
+	 * The libraries and the projects waiting to be indexed
+	 */
+	private final Map<String, IPackageFragmentRoot> pendingLibraries = new LinkedHashMap<>();
+	private final Set<String> pendingProjects = new LinkedHashSet<>();
+	private final Job job;
+	private boolean listening;
+
+	private TypeNameIndex() {
+		job = new Job("Index type names") {
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				return index(monitor);
+			}
+
+			@Override
+			public boolean belongsTo(Object family) {
+				return INDEX_JOBS.equals(family);
+			}
+		};
+		job.setPriority(Job.DECORATE);
+		job.setSystem(true);
+		ServerMetrics.getInstance().registerGauge("typeindex.types", this::size);
+	}
+
+	public static TypeNameIndex getInstance() {
+		return instance;
+	}
+
+	/**
+	 * @return the types visible to the given project with one of the given
+	 *         simple names, or <code>null</code> if they are still being
+	 *         indexed
+	 */
+	public List<TypeNameMatch> findTypes(IJavaProject project, char[][] simpleNames) throws JavaModelException {
+		return find(project, simpleNames, false, false);
+	}
+
+	/**
+	 * @return the types visible to the given project whose simple name starts
+	 *         with the given prefix, ignoring case, or matches it in camel case
+	 *         if requested, or <code>null</code> if they are still being
+	 *         indexed
+	 */
+	public List<TypeNameMatch> findTypesByPrefix(IJavaProject project, char[] prefix, boolean camelCase) throws JavaModelException {
+		return find(project, new char[][] { prefix }, true, camelCase);
+	}
+
+	private List<TypeNameMatch> find(IJavaProject project, char[][] names, boolean prefix, boolean camelCase) throws JavaModelException {
+		startListening();
+		Visibility visibility = getVisibility(project);
+		boolean ready = true;
+		List<TypeName> types = new ArrayList<>();
+		synchronized (this) {
+			for (String name : visibility.sourceProjects) {
+				if (!sourceProjects.contains(name)) {
+					pendingProjects.add(name);
+					ready = false;
+				}
+			}
+			for (char[] name : names) {
+				findSources(name, prefix, camelCase, visibility.sourceProjects, types);
+			}
+		}
+		for (Map.Entry<String, IPackageFragmentRoot> library : visibility.libraries.entrySet()) {
+			TypeTable table = libraries.get(library.getKey());
+			if (table == null) {
+				synchronized (this) {
+					pendingLibraries.put(library.getKey(), library.getValue());
+				}
+				ready = false;
+			} else {
+				for (char[] name : names) {
+					table.find(name, prefix, camelCase, types);
+				}
+			}
+		}
+		if (!ready) {
+			job.schedule();
+			return null;
+		}
+		// the first type of the classpath hides the others
+		types.sort(Comparator.comparingInt(type -> visibility.getPosition(type.container)));
+		List<TypeNameMatch> matches = new ArrayList<>(types.size());
+		Set<String> found = new HashSet<>();
+		for (TypeName type : types) {
+			if (found.add(type.getFullyQualifiedName())) {
+				matches.add(new IndexedTypeNameMatch(project, type, getAccessibility(visibility.accessRules.get(type.container), type)));
+			}
+		}
+		return matches;
+	}
+
+	/**
+	 * Adds the source types of the given projects matching the given name to
+	 * the given list.
+	 */
+	private void findSources(char[] name, boolean prefix, boolean camelCase, Set<String> projects, List<TypeName> result) {
+		String key = String.valueOf(CharOperation.toLowerCase(name));
+		// camel case matches start with the same letter only
+		String start = camelCase && key.length() > 0 ? key.substring(0, 1) : key;
+		for (Map.Entry<String, List<TypeName>> entry : sourceTypes.tailMap(start, true).entrySet()) {
+			if (prefix ? !entry.getKey().startsWith(start) : !entry.getKey().equals(key)) {
+				break;
+			}
+			for (TypeName type : entry.getValue()) {
+				if (projects.contains(type.container) && type.matches(name, prefix, camelCase)) {
+					result.add(type);
+				}
+			}
+		}
+	}
+
+	private Visibility getVisibility(IJavaProject project) throws JavaModelException {
+		Visibility visibility = visibilities.get(project.getElementName());
+		if (visibility == null) {
+			visibility = new Visibility(project);
+			visibilities.put(project.getElementName(), visibility);
+		}
+		return visibility;
+	}
+
+	/**
+	 * @return the accessibility of the given type, as defined by the first
+	 *         of the given access rules matching it
+	 */
+	private static int getAccessibility(IAccessRule[] rules, TypeName type) {
+		if (rules == null || rules.length == 0) {
+			return IAccessRule.K_ACCESSIBLE;
+		}
+		char[] path = CharOperation.concat(CharOperation.replaceOnCopy(type.packageName, '.', '/'), CharOperation.replaceOnCopy(type.getTypeQualifiedName().toCharArray(), '.', '$'), '/');
+		for (IAccessRule rule : rules) {
+			if (CharOperation.pathMatch(rule.getPattern().toString().toCharArray(), path, true, '/')) {
+				return rule.getKind() & ~IAccessRule.IGNORE_IF_BETTER;
+			}
+		}
+		return IAccessRule.K_ACCESSIBLE;
+	}
+
+	private IStatus index(IProgressMonitor monitor) {
+		while (!monitor.isCanceled()) {
+			IPackageFragmentRoot library = null;
+			String projectName = null;
+			synchronized (this) {
+				if (!pendingLibraries.isEmpty()) {
+					library = pendingLibraries.remove(pendingLibraries.keySet().iterator().next());
+				} else if (!pendingProjects.isEmpty()) {
+					projectName = pendingProjects.iterator().next();
+					pendingProjects.remove(projectName);
+				} else {
+					return Status.OK_STATUS;
+				}
+			}
+			try {
+				if (library != null) {
+					indexLibrary(library, monitor);
+				} else {
+					indexProject(projectName, monitor);
+				}
+			} catch (JavaModelException e) {
+				JavaLanguageServerPlugin.logException("Unable to index the types of " + (library != null ? library.getPath() : projectName), e);
+			}
+		}
+		return Status.CANCEL_STATUS;
+	}
+
+	private void indexLibrary(IPackageFragmentRoot library, IProgressMonitor monitor) throws JavaModelException {
+		String path = library.getPath().toString();
+		if (!libraries.containsKey(path) && library.exists()) {
+			List<TypeName> types = new ArrayList<>();
+			search(library, IJavaSearchScope.APPLICATION_LIBRARIES | IJavaSearchScope.SYSTEM_LIBRARIES, path, monitor).values().forEach(types::addAll);
+			libraries.put(path, new TypeTable(types));
+		}
+	}
+
+	private void indexProject(String projectName, IProgressMonitor monitor) throws JavaModelException {
+		synchronized (this) {
+			// the units changed meanwhile are updated from the deltas
+			if (!sourceProjects.add(projectName)) {
+				return;
+			}
+		}
+		IJavaProject project = JavaCore.create(ResourcesPlugin.getWorkspace().getRoot().getProject(projectName));
+		if (!project.exists()) {
+			return;
+		}
+		Map<String, List<TypeName>> types;
+		try {
+			types = search(project, IJavaSearchScope.SOURCES, projectName, monitor);
+		} catch (JavaModelException | RuntimeException e) {
+			synchronized (this) {
+				sourceProjects.remove(projectName);
+			}
+			throw e;
+		}
+		synchronized (this) {
+			if (sourceProjects.contains(projectName)) {
+				types.forEach((path, names) -> {
+					if (!sources.containsKey(path)) {
+						put(path, names.toArray(new TypeName[names.size()]));
+					}
+				});
+			}
+		}
+	}
+
+	/**
+	 * @return the types of the given scope of the given element, by path of
+	 *         their compilation unit or class file
+	 */
+	private static Map<String, List<TypeName>> search(IJavaElement element, int includeMask, String container, IProgressMonitor monitor) throws JavaModelException {
+		ServerMetrics.Sample sample = ServerMetrics.getInstance().start(BUILD_METRIC);
+		Map<String, List<TypeName>> types = new HashMap<>();
+		IJavaSearchScope scope = SearchEngine.createJavaSearchScope(new IJavaElement[] { element }, includeMask);
+		try {
+			new SearchEngine().searchAllTypeNames(null, SearchPattern.R_PREFIX_MATCH, null, SearchPattern.R_PREFIX_MATCH, IJavaSearchConstants.TYPE, scope, new TypeNameRequestor() {
+				@Override
+				public void acceptType(int modifiers, char[] packageName, char[] simpleTypeName, char[][] enclosingTypeNames, String path) {
+					types.computeIfAbsent(path, p -> new ArrayList<>(1)).add(new TypeName(simpleTypeName, packageName, CharOperation.concatWith(enclosingTypeNames, '.'), modifiers, container));
+				}
+			}, IJavaSearchConstants.WAIT_UNTIL_READY_TO_SEARCH, monitor);
+			sample.stop();
+		} catch (JavaModelException | RuntimeException e) {
+			sample.stop(e);
+			throw e;
+		}
+		return types;
+	}
+
+	private synchronized void startListening() {
+		if (!listening) {
+			JavaCore.addElementChangedListener(this, ElementChangedEvent.POST_CHANGE | ElementChangedEvent.POST_RECONCILE);
+			listening = true;
+		}
+	}
+
+	@Override
+	public void elementChanged(ElementChangedEvent event) {
+		processDelta(event.getDelta());
+	}
+
+	private void processDelta(IJavaElementDelta delta) {
+		IJavaElement element = delta.getElement();
+		switch (element.getElementType()) {
+		case IJavaElement.JAVA_MODEL:
+			break;
+		case IJavaElement.JAVA_PROJECT:
+			if (delta.getKind() != IJavaElementDelta.CHANGED || (delta.getFlags() & (IJavaElementDelta.F_OPENED | IJavaElementDelta.F_CLOSED | IJavaElementDelta.F_CLASSPATH_CHANGED | IJavaElementDelta.F_RESOLVED_CLASSPATH_CHANGED)) != 0) {
+				// the exported classpath of the project changes the visibility of the others
+				visibilities.clear();
+				invalidateSources(element.getElementName());
+				return;
+			}
+			break;
+		case IJavaElement.PACKAGE_FRAGMENT_ROOT:
+			if (delta.getKind() != IJavaElementDelta.CHANGED || (delta.getFlags() & (IJavaElementDelta.F_ARCHIVE_CONTENT_CHANGED | IJavaElementDelta.F_ADDED_TO_CLASSPATH | IJavaElementDelta.F_REMOVED_FROM_CLASSPATH)) != 0) {
+				visibilities.clear();
+				if ((delta.getFlags() & IJavaElementDelta.F_ARCHIVE_CONTENT_CHANGED) != 0) {
+					libraries.remove(element.getPath().toString());
+				}
+				invalidateSources(element.getJavaProject().getElementName());
+				return;
+			}
+			break;
+		case IJavaElement.PACKAGE_FRAGMENT:
+			if (delta.getKind() == IJavaElementDelta.REMOVED) {
+				// without the deltas of its compilation units
+				invalidateSources(element.getJavaProject().getElementName());
+				return;
+			}
+			break;
+		case IJavaElement.COMPILATION_UNIT:
+			ICompilationUnit unit = (ICompilationUnit) element;
+			// the working copies of other owners don't change the sources
+			if (unit.getOwner() == null) {
+				update(unit, delta.getKind() == IJavaElementDelta.REMOVED);
+			}
+			return;
+		default:
+			return;
+		}
+		for (IJavaElementDelta child : delta.getAffectedChildren()) {
+			processDelta(child);
+		}
+	}
+
+	/**
+	 * Indexes the sources of the given project again, on its next query.
+	 */
+	private synchronized void invalidateSources(String projectName) {
+		if (sourceProjects.remove(projectName)) {
+			String prefix = "/" + projectName + "/";
+			for (String path : new ArrayList<>(sources.keySet())) {
+				if (path.startsWith(prefix)) {
+					put(path, null);
+				}
+			}
+		}
+	}
+
+	private void update(ICompilationUnit unit, boolean removed) {
+		String projectName = unit.getJavaProject().getElementName();
+		synchronized (this) {
+			if (!sourceProjects.contains(projectName)) {
+				return;
+			}
+		}
+		TypeName[] types = null;
+		if (!removed && unit.exists()) {
+			try {
+				IType[] allTypes = unit.getAllTypes();
+				types = new TypeName[allTypes.length];
+				for (int i = 0; i < allTypes.length; i++) {
+					IType type = allTypes[i];
+					String qualifiedName = type.getTypeQualifiedName('.');
+					int index = qualifiedName.lastIndexOf('.');
+					char[] enclosingTypeNames = index < 0 ? CharOperation.NO_CHAR : qualifiedName.substring(0, index).toCharArray();
+					types[i] = new TypeName(type.getElementName().toCharArray(), type.getPackageFragment().getElementName().toCharArray(), enclosingTypeNames, type.getFlags(), projectName);
+				}
+			} catch (JavaModelException e) {
+				JavaLanguageServerPlugin.logException("Unable to index the types of " + unit.getElementName(), e);
+			}
+		}
+		synchronized (this) {
+			if (sourceProjects.contains(projectName)) {
+				put(unit.getPath().toString(), types);
+			}
+		}
+	}
+
+	/**
+	 * Replaces the types of the compilation unit with the given path, only
+	 * updating the names it declares.
+	 *
+	 * @param types
+	 *            the types, <code>null</code> to remove them
+	 */
+	private void put(String path, TypeName[] types) {
+		TypeName[] previous = types == null ? sources.remove(path) : sources.put(path, types);
+		if (previous != null) {
+			for (TypeName type : previous) {
+				String key = type.getKey();
+				List<TypeName> named = sourceTypes.get(key);
+				if (named != null && named.remove(type) && named.isEmpty()) {
+					sourceTypes.remove(key);
+				}
+			}
+		}
+		if (types != null) {
+			for (TypeName type : types) {
+				sourceTypes.computeIfAbsent(type.getKey(), k -> new ArrayList<>(1)).add(type);
+			}
+		}
+	}
+
+	public synchronized int size() {
+		int size = sources.values().stream().mapToInt(types -> types.length).sum();
+		for (TypeTable table : libraries.values()) {
+			size += table.size();
+		}
+		return size;
+	}
+
+	public void dispose() {
+		JavaCore.removeElementChangedListener(this);
+		job.cancel();
+		synchronized (this) {
+			listening = false;
+			sources.clear();
+			sourceTypes.clear();
+			sourceProjects.clear();
+			pendingLibraries.clear();
+			pendingProjects.clear();
+		}
+		libraries.clear();
+		visibilities.clear();
+	}
+
+	/**
+	 * The libraries and the source projects visible to a project, with their
+	 * access rules.
+	 */
+	private static final class Visibility {
+
+		/**
+		 * The roots of the libraries, by path
+		 */
+		private final Map<String, IPackageFragmentRoot> libraries = new LinkedHashMap<>();
+		private final Set<String> sourceProjects = new LinkedHashSet<>();
+		/**
+		 * The position on the classpath of the libraries, by path, and of the
+		 * source projects, by name
+		 */
+		private final Map<String, Integer> positions = new HashMap<>();
+		/**
+		 * The access rules of the libraries, by path, and of the source
+		 * projects, by name
+		 */
+		private final Map<String, IAccessRule[]> accessRules = new HashMap<>();
+
+		Visibility(IJavaProject project) throws JavaModelException {
+			sourceProjects.add(project.getElementName());
+			// with the exported entries of the required projects
+			for (IPackageFragmentRoot root : project.getAllPackageFragmentRoots()) {
+				if (root.getKind() == IPackageFragmentRoot.K_SOURCE) {
+					sourceProjects.add(root.getJavaProject().getElementName());
+					positions.putIfAbsent(root.getJavaProject().getElementName(), positions.size());
+				} else {
+					String path = root.getPath().toString();
+					positions.putIfAbsent(path, positions.size());
+					if (!libraries.containsKey(path)) {
+						libraries.put(path, root);
+						IClasspathEntry entry = root.getResolvedClasspathEntry();
+						if (entry != null) {
+							accessRules.put(path, entry.getAccessRules());
+						}
+					}
+				}
+			}
+			for (IClasspathEntry entry : project.getResolvedClasspath(true)) {
+				if (entry.getEntryKind() == IClasspathEntry.CPE_PROJECT) {
+					accessRules.put(entry.getPath().lastSegment(), entry.getAccessRules());
+				}
+			}
+		}
+
+		/**
+		 * @return the position on the classpath of the given library or source
+		 *         project
+		 */
+		int getPosition(String container) {
+			Integer position = positions.get(container);
+			return position == null ? Integer.MAX_VALUE : position;
+		}
+	}
+
+	/**
+	 * A type found in the index, looked up in the Java model when its element
+	 * is requested only.
+	 */
+	private static final class IndexedTypeNameMatch extends TypeNameMatch {
+
+		private final IJavaProject project;
+		private final TypeName type;
+		private final int accessibility;
+		private IType element;
+		private boolean resolved;
+
+		IndexedTypeNameMatch(IJavaProject project, TypeName type, int accessibility) {
+			this.project = project;
+			this.type = type;
+			this.accessibility = accessibility;
+		}
+
+		@Override
+		public int getAccessibility() {
+			return accessibility;
+		}
+
+		@Override
+		public int getModifiers() {
+			return type.modifiers;
+		}
+
+		/**
+		 * @return the type, or <code>null</code> if it doesn't exist anymore
+		 */
+		@Override
+		public synchronized IType getType() {
+			if (!resolved) {
+				try {
+					element = project.findType(type.getPackageName(), type.getTypeQualifiedName());
+				} catch (JavaModelException e) {
+					JavaLanguageServerPlugin.logException("Unable to find " + type, e);
+				}
+				resolved = true;
+			}
+			return element;
+		}
+
+		@Override
+		public String getFullyQualifiedName() {
+			return type.getFullyQualifiedName();
+		}
+
+		@Override
+		public String getPackageName() {
+			return type.getPackageName();
+		}
+
+		@Override
+		public String getSimpleTypeName() {
+			return type.getSimpleName();
+		}
+
+		@Override
+		public String getTypeContainerName() {
+			if (type.enclosingTypeNames.length == 0) {
+				return type.getPackageName();
+			}
+			return type.packageName.length == 0 ? String.valueOf(type.enclosingTypeNames) : type.getPackageName() + '.' + String.valueOf(type.enclosingTypeNames);
+		}
+
+		@Override
+		public String getTypeQualifiedName() {
+			return type.getTypeQualifiedName();
+		}
+
+		/**
+		 * The same type, declared by the same library or source project, is
+		 * found once for all the projects it is visible to.
+		 */
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof IndexedTypeNameMatch)) {
+				return false;
+			}
+			TypeName other = ((IndexedTypeNameMatch) obj).type;
+			return type.container.equals(other.container) && type.getFullyQualifiedName().equals(other.getFullyQualifiedName());
+		}
+
+		@Override
+		public int hashCode() {
+			return type.getFullyQualifiedName().hashCode();
+		}
+
+		@Override
+		public String toString() {
+			return type.toString();
+		}
+	}
+
+	/**
+	 * A type name, with its modifiers.
+	 */
+	private static final class TypeName {
+
+		private final char[] simpleName;
+		private final char[] packageName;
+		private final char[] enclosingTypeNames;
+		private final int modifiers;
+		/**
+		 * The path of the library, or the name of the project, declaring the
+		 * type
+		 */
+		private final String container;
+
+		TypeName(char[] simpleName, char[] packageName, char[] enclosingTypeNames, int modifiers, String container) {
+			this.simpleName = simpleName;
+			this.packageName = packageName;
+			this.enclosingTypeNames = enclosingTypeNames;
+			this.modifiers = modifiers;
+			this.container = container;
+		}
+
+		String getSimpleName() {
+			return String.valueOf(simpleName);
+		}
+
+		/**
+		 * @return the lower case simple name
+		 */
+		String getKey() {
+			return String.valueOf(CharOperation.toLowerCase(simpleName));
+		}
+
+		/**
+		 * @return whether the simple name is the given name, or starts with it
+		 *         ignoring case, or matches it in camel case, as requested
+		 */
+		boolean matches(char[] name, boolean prefix, boolean camelCase) {
+			if (!prefix) {
+				return CharOperation.equals(name, simpleName);
+			}
+			return CharOperation.prefixEquals(name, simpleName, false) || camelCase && CharOperation.camelCaseMatch(name, simpleName);
+		}
+
+		String getPackageName() {
+			return String.valueOf(packageName);
+		}
+
+		/**
+		 * @return the simple name, qualified by the enclosing types
+		 */
+		String getTypeQualifiedName() {
+			return enclosingTypeNames.length == 0 ? getSimpleName() : String.valueOf(CharOperation.concat(enclosingTypeNames, simpleName, '.'));
+		}
+
+		String getFullyQualifiedName() {
+			return packageName.length == 0 ? getTypeQualifiedName() : getPackageName() + '.' + getTypeQualifiedName();
+		}
+
+		@Override
+		public String toString() {
+			return getFullyQualifiedName();
+		}
+	}
+
+	/**
+	 * Immutable table of type names, sorted by simple name ignoring case.
+	 */
+	private static final class TypeTable {
+
+		private final TypeName[] types;
+
+		TypeTable(List<TypeName> types) {
+			this.types = types.toArray(new TypeName[types.size()]);
+			Arrays.sort(this.types, (a, b) -> compareIgnoreCase(a.simpleName, b.simpleName));
+		}
+
+		int size() {
+			return types.length;
+		}
+
+		/**
+		 * Adds the types matching the given name to the given list.
+		 */
+		void find(char[] name, boolean prefix, boolean camelCase, List<TypeName> result) {
+			// camel case matches start with the same letter only
+			char[] start = camelCase && name.length > 0 ? new char[] { name[0] } : name;
+			for (int i = lowerBound(start); i < types.length; i++) {
+				TypeName type = types[i];
+				if (prefix ? !CharOperation.prefixEquals(start, type.simpleName, false) : !CharOperation.equals(name, type.simpleName, false)) {
+					break;
+				}
+				if (type.matches(name, prefix, camelCase)) {
+					result.add(type);
+				}
+			}
+		}
+
+		private int lowerBound(char[] name) {
+			int low = 0;
+			int high = types.length;
+			while (low < high) {
+				int mid = (low + high) >>> 1;
+				if (compareIgnoreCase(types[mid].simpleName, name) < 0) {
+					low = mid + 1;
+				} else {
+					high = mid;
+				}
+			}
+			return low;
+		}
+
+		private static int compareIgnoreCase(char[] a, char[] b) {
+			int length = Math.min(a.length, b.length);
+			for (int i = 0; i < length; i++) {
+				char x = Character.toLowerCase(a[i]);
+				char y = Character.toLowerCase(b[i]);
+				if (x != y) {
+					return x - y;
+				}
+			}
+			return a.length - b.length;
+		}
+	}
+}
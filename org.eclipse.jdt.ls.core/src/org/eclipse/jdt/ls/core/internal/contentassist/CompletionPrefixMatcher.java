@@ -0,0 +1,101 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Red Hat Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat Inc. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ls.core.internal.contentassist;
+
+import org.eclipse.jdt.core.CompletionProposal;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.Signature;
+import org.eclipse.jdt.core.compiler.CharOperation;
+
+/**
+ * Matches completion proposals against the prefix typed by the user, the way
+ * the completion engine does, so that the proposals computed for a prefix can
+ * be filtered and ranked again when the prefix gets longer.
+ */
+public final class CompletionPrefixMatcher {
+
+	// the relevances given by the completion engine to the matches of the prefix
+	private static final int R_CASE = 10;
+	private static final int R_EXACT_NAME = 4;
+	private static final int R_CAMEL_CASE = 5;
+	private static final int R_SUBSTRING = -20;
+
+	private final boolean camelCaseMatch;
+	private final boolean substringMatch;
+
+	public CompletionPrefixMatcher(IJavaProject project) {
+		this(JavaCore.ENABLED.equals(project.getOption(JavaCore.CODEASSIST_CAMEL_CASE_MATCH, true)), JavaCore.ENABLED.equals(project.getOption(JavaCore.CODEASSIST_SUBSTRING_MATCH, true)));
+	}
+
+	public CompletionPrefixMatcher(boolean camelCaseMatch, boolean substringMatch) {
+		this.camelCaseMatch = camelCaseMatch;
+		this.substringMatch = substringMatch;
+	}
+
+	/**
+	 * @return whether the completion engine would propose the given proposal
+	 *         for the given prefix
+	 */
+	public boolean matches(char[] prefix, CompletionProposal proposal) {
+		char[] name = getName(proposal);
+		if (name == null || prefix.length == 0) {
+			return true;
+		}
+		return CharOperation.prefixEquals(prefix, name, false) || camelCaseMatch && CharOperation.camelCaseMatch(prefix, name) || substringMatch && CharOperation.substringMatch(prefix, name);
+	}
+
+	/**
+	 * @return the relevance of the given proposal, computed by the completion
+	 *         engine for the given prefix, for the new prefix
+	 */
+	public int getRelevance(CompletionProposal proposal, char[] enginePrefix, char[] prefix) {
+		char[] name = getName(proposal);
+		if (name == null || CharOperation.equals(enginePrefix, prefix)) {
+			return proposal.getRelevance();
+		}
+		return proposal.getRelevance() - getCaseMatchingRelevance(enginePrefix, name) + getCaseMatchingRelevance(prefix, name);
+	}
+
+	private int getCaseMatchingRelevance(char[] prefix, char[] name) {
+		if (CharOperation.equals(prefix, name, true)) {
+			return R_EXACT_NAME + R_CASE;
+		} else if (CharOperation.equals(prefix, name, false)) {
+			return R_EXACT_NAME;
+		} else if (CharOperation.prefixEquals(prefix, name, false)) {
+			return CharOperation.prefixEquals(prefix, name, true) ? R_CASE : 0;
+		} else if (camelCaseMatch && CharOperation.camelCaseMatch(prefix, name)) {
+			return R_CAMEL_CASE;
+		} else if (substringMatch && CharOperation.substringMatch(prefix, name)) {
+			return R_SUBSTRING;
+		}
+		return 0;
+	}
+
+	/**
+	 * @return the name matched against the prefix, <code>null</code> if
+	 *         unknown
+	 */
+	private static char[] getName(CompletionProposal proposal) {
+		switch (proposal.getKind()) {
+		case CompletionProposal.TYPE_REF:
+		case CompletionProposal.JAVADOC_TYPE_REF:
+			return proposal.getSignature() == null ? null : Signature.getSignatureSimpleName(proposal.getSignature());
+		case CompletionProposal.ANONYMOUS_CLASS_CONSTRUCTOR_INVOCATION:
+		case CompletionProposal.ANONYMOUS_CLASS_DECLARATION:
+			return proposal.getDeclarationSignature() == null ? null : Signature.getSignatureSimpleName(proposal.getDeclarationSignature());
+		case CompletionProposal.PACKAGE_REF:
+			return proposal.getDeclarationSignature();
+		default:
+			return proposal.getName() != null ? proposal.getName() : proposal.getCompletion();
+		}
+	}
+}
@@ -43,13 +43,28 @@ public class CompletionProposalDescriptionProvider {
 	 */
 	private CompletionContext fContext;
 
+	/**
+	 * Whether to compute the detail of the items, and the data used to
+	 * resolve their documentation
+	 */
+	private final boolean fDetails;
+
 	/**
 	 * Creates a new label provider.
 	 * @param iCompilationUnit
 	 */
 	public CompletionProposalDescriptionProvider(CompletionContext context) {
+		this(context, true);
+	}
+
+	/**
+	 * Creates a new label provider, which only computes the details of the
+	 * items if <code>details</code> is set.
+	 */
+	public CompletionProposalDescriptionProvider(CompletionContext context, boolean details) {
 		super();
 		fContext = context;
+		fDetails = details;
 	}
 
 	/**
@@ -296,6 +311,9 @@ public class CompletionProposalDescriptionProvider {
 		StringBuilder description = this.createMethodProposalDescription(methodProposal);
 		item.setLabel(description.toString());
 		item.setInsertText(String.valueOf(methodProposal.getName()));
+		if (!fDetails) {
+			return;
+		}
 
 		// declaring type
 		StringBuilder typeInfo = new StringBuilder();
@@ -332,6 +350,9 @@ public class CompletionProposalDescriptionProvider {
 	private void createJavadocMethodProposalLabel(CompletionProposal methodProposal, CompletionItem item) {
 		// method name
 		item.setLabel(String.valueOf(methodProposal.getCompletion()));
+		if (!fDetails) {
+			return;
+		}
 		// declaring type
 		String declaringType= extractDeclaringTypeFQN(methodProposal);
 		declaringType= Signature.getSimpleName(declaringType);
@@ -358,6 +379,9 @@ public class CompletionProposalDescriptionProvider {
 		nameBuffer.append(returnType);
 		item.setLabel(nameBuffer.toString());
 		item.setFilterText(name);
+		if (!fDetails) {
+			return;
+		}
 
 		// declaring type
 		StringBuilder typeBuffer = new StringBuilder();
@@ -456,7 +480,7 @@ public class CompletionProposalDescriptionProvider {
 		nameBuffer.append('}');
 		item.setLabel(nameBuffer.toString());
 		item.setFilterText(name);
-		if (qIndex > 0) {
+		if (fDetails && qIndex > 0) {
 			item.setDetail(new String(fullName, 0, qIndex - 1));
 		}
 	}
@@ -516,7 +540,7 @@ public class CompletionProposalDescriptionProvider {
 		item.setLabel(buf.toString());
 
 		char[] declaration= proposal.getDeclarationSignature();
-		if (declaration != null) {
+		if (fDetails && declaration != null) {
 			setDeclarationSignature(item, String.valueOf(declaration));
 			StringBuilder declBuf = new StringBuilder();
 			declaration= Signature.getSignatureSimpleName(declaration);
@@ -561,7 +585,7 @@ public class CompletionProposalDescriptionProvider {
 		buf.append("Anonymous Inner Type"); //TODO: consider externalization
 		item.setLabel(buf.toString());
 
-		if (proposal.getRequiredProposals() != null) {
+		if (fDetails && proposal.getRequiredProposals() != null) {
 			char[] signatureQualifier= Signature.getSignatureQualifier(declaringTypeSignature);
 			if (signatureQualifier.length > 0) {
 				item.setDetail(String.valueOf(signatureQualifier));
@@ -577,7 +601,9 @@ public class CompletionProposalDescriptionProvider {
 	 */
 	@SuppressWarnings("unchecked")
 	private void setSignature(CompletionItem item, String signature){
-		((Map<String, String>)item.getData()).put(CompletionResolveHandler.DATA_FIELD_SIGNATURE,String.valueOf(signature));
+		if (fDetails) {
+			((Map<String, String>)item.getData()).put(CompletionResolveHandler.DATA_FIELD_SIGNATURE,String.valueOf(signature));
+		}
 	}
 	/**
 	 * Sets the declaration signature to data that is used on the resolve call.
@@ -586,7 +612,9 @@ public class CompletionProposalDescriptionProvider {
 	 */
 	@SuppressWarnings("unchecked")
 	private void setDeclarationSignature(CompletionItem item, String signature){
-		((Map<String, String>)item.getData()).put(CompletionResolveHandler.DATA_FIELD_DECLARATION_SIGNATURE,String.valueOf(signature));
+		if (fDetails) {
+			((Map<String, String>)item.getData()).put(CompletionResolveHandler.DATA_FIELD_DECLARATION_SIGNATURE,String.valueOf(signature));
+		}
 	}
 
 	/**
@@ -596,7 +624,9 @@ public class CompletionProposalDescriptionProvider {
 	 */
 	@SuppressWarnings("unchecked")
 	private void setName(CompletionItem item, String name){
-		((Map<String, String>)item.getData()).put(CompletionResolveHandler.DATA_FIELD_NAME,String.valueOf(name));
+		if (fDetails) {
+			((Map<String, String>)item.getData()).put(CompletionResolveHandler.DATA_FIELD_NAME,String.valueOf(name));
+		}
 	}
 
 	/**
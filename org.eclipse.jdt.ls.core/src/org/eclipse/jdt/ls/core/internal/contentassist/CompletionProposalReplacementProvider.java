@@ -77,13 +77,24 @@ public class CompletionProposalReplacementProvider {
 	private final CompletionContext context;
 	private ImportRewrite importRewrite;
 	private final ClientPreferences client;
+	private final CompletionResolveContext resolveContext;
 
 	public CompletionProposalReplacementProvider(ICompilationUnit compilationUnit, CompletionContext context, int offset, ClientPreferences prefs){
+		this(compilationUnit, context, offset, prefs, null);
+	}
+
+	/**
+	 * @param resolveContext
+	 *            the analysis of the compilation unit shared with the other
+	 *            proposals of the same response, or <code>null</code>
+	 */
+	public CompletionProposalReplacementProvider(ICompilationUnit compilationUnit, CompletionContext context, int offset, ClientPreferences prefs, CompletionResolveContext resolveContext){
 		super();
 		this.compilationUnit = compilationUnit;
 		this.context = context;
 		this.offset = offset;
 		this.client = prefs;
+		this.resolveContext = resolveContext;
 	}
 
 	/**
@@ -96,7 +107,7 @@ public class CompletionProposalReplacementProvider {
 	public void updateReplacement(CompletionProposal proposal, CompletionItem item, char trigger) {
 
 		// reset importRewrite
-		this.importRewrite = TypeProposalUtils.createImportRewrite(compilationUnit);
+		this.importRewrite = resolveContext == null ? TypeProposalUtils.createImportRewrite(compilationUnit) : resolveContext.createImportRewrite();
 
 		List<org.eclipse.lsp4j.TextEdit> additionalTextEdits = new ArrayList<>();
 
@@ -622,6 +633,13 @@ public class CompletionProposalReplacementProvider {
 	}
 
 	private ITypeBinding getExpectedTypeForGenericParameters() {
+		if (resolveContext != null) {
+			return resolveContext.getExpectedType(this::computeExpectedTypeForGenericParameters);
+		}
+		return computeExpectedTypeForGenericParameters();
+	}
+
+	private ITypeBinding computeExpectedTypeForGenericParameters() {
 		char[][] chKeys= context.getExpectedTypesKeys();
 		if (chKeys == null || chKeys.length == 0) {
 			return null;
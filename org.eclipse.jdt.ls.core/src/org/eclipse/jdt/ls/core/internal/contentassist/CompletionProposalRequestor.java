@@ -11,9 +11,9 @@
 package org.eclipse.jdt.ls.core.internal.contentassist;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
 
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.jdt.core.CompletionContext;
@@ -22,12 +22,14 @@ import org.eclipse.jdt.core.CompletionRequestor;
 import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.jdt.ls.core.internal.JavaLanguageServerPlugin;
 import org.eclipse.jdt.ls.core.internal.handlers.CompletionResolveHandler;
 import org.eclipse.jdt.ls.core.internal.handlers.CompletionResponse;
 import org.eclipse.jdt.ls.core.internal.handlers.CompletionResponses;
 import org.eclipse.lsp4j.CompletionItem;
 import org.eclipse.lsp4j.CompletionItemKind;
+import org.eclipse.lsp4j.CompletionList;
 
 public final class CompletionProposalRequestor extends CompletionRequestor {
 
@@ -35,14 +37,33 @@ public final class CompletionProposalRequestor extends CompletionRequestor {
 	private final ICompilationUnit unit;
 	private CompletionProposalDescriptionProvider descriptionProvider;
 	private CompletionResponse response;
+	private final int offset;
+	private final int maxResults;
+	private boolean incomplete;
 
-	public CompletionProposalRequestor(ICompilationUnit aUnit, int offset) {
+	/**
+	 * @param maxResults
+	 *            the maximum number of items of a completion list, 0 for no
+	 *            limit
+	 */
+	public CompletionProposalRequestor(ICompilationUnit aUnit, int offset, int maxResults) {
 		this.unit = aUnit;
+		this.offset = offset;
+		this.maxResults = maxResults;
 		response = new CompletionResponse();
 		response.setOffset(offset);
 		setRequireExtendedContext(true);
 	}
 
+	private CompletionProposalRequestor(ICompilationUnit aUnit, CompletionResponse response, int offset, int maxResults) {
+		this.unit = aUnit;
+		this.response = response;
+		this.offset = offset;
+		this.maxResults = maxResults;
+		this.proposals = response.getProposals();
+		this.descriptionProvider = new CompletionProposalDescriptionProvider(response.getContext(), false);
+	}
+
 	@Override
 	public void accept(CompletionProposal proposal) {
 		if (!isIgnored(proposal.getKind())) {
@@ -61,33 +82,126 @@ public final class CompletionProposalRequestor extends CompletionRequestor {
 
 	public List<CompletionItem> getCompletionItems() {
 		response.setProposals(proposals);
+		response.setUri(getUri());
+		try {
+			response.setSource(unit.getSource());
+		} catch (JavaModelException e) {
+			// the response can't be filtered again
+		}
+		// the resolution doesn't need the engine and its compiler structures
+		response.detach(unit.getJavaProject());
 		CompletionResponses.store(response);
-		List<CompletionItem> completionItems = new ArrayList<>(proposals.size());
+		String[] sortTexts = new String[proposals.size()];
+		for (int i = 0; i < proposals.size(); i++) {
+			sortTexts[i] = SortTextHelper.computeSortText(proposals.get(i));
+		}
+		return toCompletionItems(sortTexts);
+	}
+
+	/**
+	 * @return whether the last created items are only the best ranked among
+	 *         the proposals
+	 */
+	public boolean isIncomplete() {
+		return incomplete;
+	}
+
+	/**
+	 * Creates the items of the proposals of the given response, computed by
+	 * the completion engine for a shorter prefix, that match the given prefix,
+	 * ranked for it. The response isn't modified, the items are resolved at
+	 * the given offset.
+	 *
+	 * @param offset
+	 *            the offset of the end of the prefix in the document
+	 * @param enginePrefix
+	 *            the prefix the proposals were computed for
+	 * @param prefix
+	 *            the prefix typed since, starting with <code>enginePrefix</code>
+	 * @param maxResults
+	 *            the maximum number of items, 0 for no limit
+	 */
+	public static CompletionList getCompletionItems(ICompilationUnit unit, CompletionResponse response, int offset, char[] enginePrefix, char[] prefix, int maxResults) {
+		CompletionProposalRequestor requestor = new CompletionProposalRequestor(unit, response, offset, maxResults);
+		CompletionPrefixMatcher matcher = new CompletionPrefixMatcher(unit.getJavaProject());
+		List<CompletionProposal> proposals = response.getProposals();
+		String[] sortTexts = new String[proposals.size()];
 		for (int i = 0; i < proposals.size(); i++) {
-			completionItems.add(toCompletionItem(proposals.get(i), i));
+			CompletionProposal proposal = proposals.get(i);
+			if (matcher.matches(prefix, proposal)) {
+				sortTexts[i] = SortTextHelper.computeSortText(proposal, matcher.getRelevance(proposal, enginePrefix, prefix));
+			}
+		}
+		CompletionList list = new CompletionList(requestor.toCompletionItems(sortTexts));
+		list.setIsIncomplete(requestor.isIncomplete());
+		return list;
+	}
+
+	/**
+	 * Creates the items of the best ranked proposals, by sort text, at most
+	 * the maximum number of results. The description of the other proposals
+	 * isn't computed, the client requests the completion again as the prefix
+	 * gets longer, and the response, which keeps all the proposals, is
+	 * filtered.
+	 *
+	 * @param sortTexts
+	 *            the sort text of each proposal, <code>null</code> for the
+	 *            proposals to leave out
+	 */
+	private List<CompletionItem> toCompletionItems(String[] sortTexts) {
+		Integer[] indexes = new Integer[sortTexts.length];
+		int count = 0;
+		for (int i = 0; i < sortTexts.length; i++) {
+			if (sortTexts[i] != null) {
+				indexes[count++] = i;
+			}
+		}
+		int max = maxResults;
+		incomplete = max > 0 && count > max;
+		if (incomplete) {
+			// ties keep the order of the engine
+			Arrays.sort(indexes, 0, count, Comparator.comparing((Integer i) -> sortTexts[i]).thenComparing(i -> i));
+			count = max;
+		}
+		List<CompletionItem> completionItems = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			completionItems.add(toCompletionItem(proposals.get(indexes[i]), indexes[i], sortTexts[indexes[i]]));
 		}
 		return completionItems;
 	}
 
+	private String getUri() {
+		return unit.getResource().getLocationURI().toString();
+	}
+
 	public CompletionItem toCompletionItem(CompletionProposal proposal, int index) {
+		return toCompletionItem(proposal, index, SortTextHelper.computeSortText(proposal));
+	}
+
+	private CompletionItem toCompletionItem(CompletionProposal proposal, int index, String sortText) {
 		final CompletionItem $ = new CompletionItem();
 		$.setKind(mapKind(proposal.getKind()));
-		Map<String, String> data = new HashMap<>();
 		// append data field so that resolve request can use it.
-		data.put(CompletionResolveHandler.DATA_FIELD_URI,unit.getResource().getLocationURI().toString());
-		data.put(CompletionResolveHandler.DATA_FIELD_REQUEST_ID,String.valueOf(response.getId()));
-		data.put(CompletionResolveHandler.DATA_FIELD_PROPOSAL_ID,String.valueOf(index));
-		$.setData(data);
+		$.setData(offset == response.getOffset() ? CompletionResolveHandler.toData(response.getId(), index) : CompletionResolveHandler.toData(response.getId(), index, offset));
+		// the detail is computed on resolve
 		this.descriptionProvider.updateDescription(proposal, $);
-		$.setSortText(SortTextHelper.computeSortText(proposal));
+		$.setSortText(sortText);
 		return $;
 	}
 
+	/**
+	 * @return the context of the completion, <code>null</code> until it is
+	 *         accepted
+	 */
+	public CompletionContext getContext() {
+		return response.getContext();
+	}
+
 	@Override
 	public void acceptContext(CompletionContext context) {
 		super.acceptContext(context);
 		response.setContext(context);
-		this.descriptionProvider = new CompletionProposalDescriptionProvider(context);
+		this.descriptionProvider = new CompletionProposalDescriptionProvider(context, false);
 	}
 
 
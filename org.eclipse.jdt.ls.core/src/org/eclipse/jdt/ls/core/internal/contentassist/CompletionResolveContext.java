@@ -0,0 +1,88 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Red Hat Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat Inc. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ls.core.internal.contentassist;
+
+import java.util.function.Supplier;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.ITypeBinding;
+import org.eclipse.jdt.core.dom.rewrite.ImportRewrite;
+import org.eclipse.jdt.ls.core.internal.SharedASTProvider;
+
+/**
+ * The analysis of a document shared by the replacements of the proposals of a
+ * completion response, as they are resolved one by one: the syntax-only AST of
+ * the document, shared by all the import rewrites, and the binding of the
+ * expected type. It is only valid for the content it was computed from.
+ */
+public final class CompletionResolveContext {
+
+	private final ICompilationUnit unit;
+	private final String source;
+	private final CompilationUnit importsRoot;
+	private ITypeBinding expectedType;
+	private boolean expectedTypeComputed;
+
+	private CompletionResolveContext(ICompilationUnit unit, String source, CompilationUnit importsRoot) {
+		this.unit = unit;
+		this.source = source;
+		this.importsRoot = importsRoot;
+	}
+
+	/**
+	 * @return the context of the current content of the given compilation
+	 *         unit, or <code>null</code> if it can't be parsed
+	 */
+	public static CompletionResolveContext create(ICompilationUnit unit) throws JavaModelException {
+		String source = unit.getSource();
+		// the import rewrite only needs the structure, the cached AST of an open document will do
+		CompilationUnit importsRoot = SharedASTProvider.getInstance().getSyntaxAST(unit, new NullProgressMonitor());
+		if (importsRoot == null) {
+			return null;
+		}
+		return new CompletionResolveContext(unit, source, importsRoot);
+	}
+
+	/**
+	 * @return whether the context was computed from the current content of
+	 *         the given compilation unit
+	 */
+	public boolean isValid(ICompilationUnit unit) {
+		try {
+			return this.unit.equals(unit) && source != null && source.equals(unit.getSource());
+		} catch (JavaModelException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * @return a new import rewrite, restoring the existing imports from the
+	 *         shared import section
+	 */
+	ImportRewrite createImportRewrite() {
+		return TypeProposalUtils.createImportRewrite(importsRoot);
+	}
+
+	/**
+	 * @return the binding of the expected type, computed the first time by
+	 *         the given supplier
+	 */
+	synchronized ITypeBinding getExpectedType(Supplier<ITypeBinding> supplier) {
+		if (!expectedTypeComputed) {
+			expectedType = supplier.get();
+			expectedTypeComputed = true;
+		}
+		return expectedType;
+	}
+}
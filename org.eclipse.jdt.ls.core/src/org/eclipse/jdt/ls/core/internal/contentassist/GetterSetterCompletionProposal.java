@@ -103,6 +103,22 @@ public class GetterSetterCompletionProposal extends InternalCompletionProposal {
 		fIsGetter = isGetter;
 	}
 
+	/**
+	 * @return a copy of the proposal, whose ranges can be changed
+	 */
+	public GetterSetterCompletionProposal copy() {
+		GetterSetterCompletionProposal copy = new GetterSetterCompletionProposal(fField, fIsGetter, getCompletionLocation());
+		copy.setName(getName());
+		copy.setReplaceRange(getReplaceStart(), getReplaceEnd());
+		copy.setTokenRange(getTokenStart(), getTokenEnd());
+		copy.setSignature(getSignature());
+		copy.setParameterNames(findParameterNames(null));
+		copy.setCompletion(getCompletion());
+		copy.setDeclarationSignature(getDeclarationSignature());
+		copy.setRelevance(getRelevance());
+		return copy;
+	}
+
 	/**
 	 * @param document
 	 * @param offset
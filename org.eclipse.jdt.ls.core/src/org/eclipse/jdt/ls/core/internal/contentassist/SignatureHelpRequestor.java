@@ -13,12 +13,9 @@ package org.eclipse.jdt.ls.core.internal.contentassist;
 
 import static org.eclipse.jdt.internal.corext.template.java.SignatureUtil.getLowerBound;
 
-import java.io.IOException;
-import java.io.Reader;
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.jdt.core.CompletionContext;
@@ -33,35 +30,24 @@ import org.eclipse.jdt.core.Signature;
 import org.eclipse.jdt.internal.corext.template.java.SignatureUtil;
 import org.eclipse.jdt.internal.corext.util.JavaModelUtil;
 import org.eclipse.jdt.ls.core.internal.JavaLanguageServerPlugin;
-import org.eclipse.jdt.ls.core.internal.handlers.CompletionResponse;
-import org.eclipse.jdt.ls.core.internal.handlers.CompletionResponses;
-import org.eclipse.jdt.ls.core.internal.javadoc.JavadocContentAccess;
+import org.eclipse.jdt.ls.core.internal.javadoc.JavadocCache;
 import org.eclipse.lsp4j.ParameterInformation;
 import org.eclipse.lsp4j.SignatureHelp;
 import org.eclipse.lsp4j.SignatureInformation;
 
-import com.google.common.io.CharStreams;
-import com.google.common.util.concurrent.SimpleTimeLimiter;
-import com.google.common.util.concurrent.UncheckedTimeoutException;
-
 public final class SignatureHelpRequestor extends CompletionRequestor {
 
 	private List<CompletionProposal> proposals = new ArrayList<>();
 	private final ICompilationUnit unit;
 	private CompletionProposalDescriptionProvider descriptionProvider;
-	private CompletionResponse response;
 
-	public SignatureHelpRequestor(ICompilationUnit aUnit, int offset) {
+	public SignatureHelpRequestor(ICompilationUnit aUnit) {
 		this.unit = aUnit;
-		response = new CompletionResponse();
-		response.setOffset(offset);
 		setRequireExtendedContext(true);
 	}
 
 	public SignatureHelp getSignatureHelp(IProgressMonitor monitor) {
 		SignatureHelp signatureHelp = new SignatureHelp();
-		response.setProposals(proposals);
-		CompletionResponses.store(response);
 
 		List<SignatureInformation> infos = new ArrayList<>();
 		for (int i = 0; i < proposals.size(); i++) {
@@ -100,7 +86,6 @@ public final class SignatureHelpRequestor extends CompletionRequestor {
 	@Override
 	public void acceptContext(CompletionContext context) {
 		super.acceptContext(context);
-		response.setContext(context);
 		this.descriptionProvider = new CompletionProposalDescriptionProvider(context);
 	}
 
@@ -179,17 +164,7 @@ public final class SignatureHelpRequestor extends CompletionRequestor {
 						unit.reconcile(ICompilationUnit.NO_AST, false, null, null);
 					}
 
-					String javadoc = null;
-					try {
-						javadoc = new SimpleTimeLimiter().callWithTimeout(() -> {
-							Reader reader = JavadocContentAccess.getPlainTextContentReader(method);
-							return reader == null? null:CharStreams.toString(reader);
-						}, 500, TimeUnit.MILLISECONDS, true);
-					} catch (UncheckedTimeoutException tooSlow) {
-					} catch (Exception e) {
-						JavaLanguageServerPlugin.logException("Unable to read documentation", e);
-					}
-					return javadoc;
+					return JavadocCache.getInstance().getPlainText(method, 500);
 				}
 			}
 
@@ -198,20 +173,4 @@ public final class SignatureHelpRequestor extends CompletionRequestor {
 		}
 		return null;
 	}
-
-	/**
-	 * Gets the reader content as a String
-	 *
-	 * @param reader
-	 *            the reader
-	 * @return the reader content as string
-	 */
-	private static String getString(Reader reader) {
-		try {
-			return CharStreams.toString(reader);
-		} catch (IOException ignored) {
-			//meh
-		}
-		return null;
-	}
 }
\ No newline at end of file
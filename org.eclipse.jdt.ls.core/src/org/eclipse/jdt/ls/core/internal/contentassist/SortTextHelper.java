@@ -49,7 +49,19 @@ public final class SortTextHelper {
 	 * @return the relevance for <code>proposal</code>
 	 */
 	public static String computeSortText(CompletionProposal proposal) {
-		final int baseRelevance= proposal.getRelevance() * 16;
+		return computeSortText(proposal, proposal.getRelevance());
+	}
+
+	/**
+	 * Computes the relevance for a given <code>CompletionProposal</code>, with
+	 * the given relevance instead of its own.
+	 *
+	 * @param proposal the proposal to compute the relevance for
+	 * @param relevance the relevance of the proposal
+	 * @return the relevance for <code>proposal</code>
+	 */
+	public static String computeSortText(CompletionProposal proposal, int relevance) {
+		final int baseRelevance= relevance * 16;
 		switch (proposal.getKind()) {
 		case CompletionProposal.LABEL_REF:
 			return convertRelevance( baseRelevance + 1);
@@ -22,6 +22,7 @@ import org.eclipse.jdt.core.ITypeParameter;
 import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.jdt.core.Signature;
+import org.eclipse.jdt.core.dom.CompilationUnit;
 import org.eclipse.jdt.core.dom.ITypeBinding;
 import org.eclipse.jdt.core.dom.rewrite.ImportRewrite;
 import org.eclipse.jdt.internal.corext.template.java.SignatureUtil;
@@ -161,11 +162,7 @@ public class TypeProposalUtils {
 
 	static ImportRewrite createImportRewrite(ICompilationUnit compilationUnit) {
 		try {
-			ImportRewrite rewrite = ImportRewrite.create(compilationUnit, true);
-			rewrite.setImportOrder(IMPORTS_ORDER);
-			rewrite.setOnDemandImportThreshold(IMPORTS_THRESHOLD);
-			rewrite.setStaticOnDemandImportThreshold(IMPORTS_THRESHOLD);
-			return rewrite;
+			return configure(ImportRewrite.create(compilationUnit, true));
 		} catch (JavaModelException e) {
 			// TODO Auto-generated catch block
 			e.printStackTrace();
@@ -173,6 +170,23 @@ public class TypeProposalUtils {
 		}
 	}
 
+	/**
+	 * @param astRoot
+	 *            the AST of the compilation unit, from which the existing
+	 *            imports are restored, and which the rewrite uses instead of
+	 *            parsing the compilation unit again
+	 */
+	static ImportRewrite createImportRewrite(CompilationUnit astRoot) {
+		return configure(ImportRewrite.create(astRoot, true));
+	}
+
+	private static ImportRewrite configure(ImportRewrite rewrite) {
+		rewrite.setImportOrder(IMPORTS_ORDER);
+		rewrite.setOnDemandImportThreshold(IMPORTS_THRESHOLD);
+		rewrite.setStaticOnDemandImportThreshold(IMPORTS_THRESHOLD);
+		return rewrite;
+	}
+
 	static boolean isImplicitImport(String qualifier, ICompilationUnit cu) {
 		if ("java.lang".equals(qualifier)) { //$NON-NLS-1$
 			return true;
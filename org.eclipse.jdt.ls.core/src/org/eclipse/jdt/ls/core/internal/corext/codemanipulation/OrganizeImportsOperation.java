@@ -36,6 +36,7 @@ import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.IPackageFragment;
 import org.eclipse.jdt.core.ISourceRange;
+import org.eclipse.jdt.core.IType;
 import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.jdt.core.SourceRange;
@@ -66,6 +67,7 @@ import org.eclipse.jdt.internal.corext.util.JavaModelUtil;
 import org.eclipse.jdt.internal.corext.util.JdtFlags;
 import org.eclipse.jdt.ls.core.internal.Messages;
 import org.eclipse.jdt.ls.core.internal.SharedASTProvider;
+import org.eclipse.jdt.ls.core.internal.TypeNameIndex;
 import org.eclipse.jdt.ls.core.internal.corext.utils.TypeNameMatchCollector;
 import org.eclipse.jdt.ls.core.internal.corrections.SimilarElementsRequestor;
 import org.eclipse.text.edits.TextEdit;
@@ -343,9 +345,7 @@ public class OrganizeImportsOperation {
 				}
 				final ArrayList<TypeNameMatch> typesFound= new ArrayList<>();
 				final IJavaProject project= fCurrPackage.getJavaProject();
-				IJavaSearchScope scope= SearchEngine.createJavaSearchScope(new IJavaElement[] { project });
-				TypeNameMatchCollector collector= new TypeNameMatchCollector(typesFound);
-				new SearchEngine().searchAllTypeNames(null, allTypes, scope, collector, IJavaSearchConstants.WAIT_UNTIL_READY_TO_SEARCH, monitor);
+				findTypes(project, allTypes, typesFound, monitor);
 
 				boolean is50OrHigher= JavaModelUtil.is50OrHigher(project);
 
@@ -392,6 +392,21 @@ public class OrganizeImportsOperation {
 			}
 		}
 
+		/**
+		 * Looks the types with the given names up in the resident type name
+		 * index, or in the indexes of the search engine while it is built.
+		 */
+		private void findTypes(IJavaProject project, char[][] typeNames, List<TypeNameMatch> typesFound, IProgressMonitor monitor) throws JavaModelException {
+			List<TypeNameMatch> indexed= TypeNameIndex.getInstance().findTypes(project, typeNames);
+			if (indexed != null) {
+				typesFound.addAll(indexed);
+				return;
+			}
+			IJavaSearchScope scope= SearchEngine.createJavaSearchScope(new IJavaElement[] { project });
+			TypeNameMatchCollector collector= new TypeNameMatchCollector(typesFound);
+			new SearchEngine().searchAllTypeNames(null, typeNames, scope, collector, IJavaSearchConstants.WAIT_UNTIL_READY_TO_SEARCH, monitor);
+		}
+
 		private TypeNameMatch[] processTypeInfo(List<TypeNameMatch> typeRefsFound) {
 			int nFound= typeRefsFound.size();
 			if (nFound == 0) {
@@ -453,7 +468,8 @@ public class OrganizeImportsOperation {
 			}
 			boolean isPublic;
 			try {
-				isPublic= JdtFlags.isPublic(curr.getType());
+				IType type= curr.getType();
+				isPublic= type != null ? JdtFlags.isPublic(type) : Flags.isPublic(flags);
 			} catch (JavaModelException e) {
 				isPublic= Flags.isPublic(flags);
 			}
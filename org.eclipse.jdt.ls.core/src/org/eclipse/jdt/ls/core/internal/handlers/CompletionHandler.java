@@ -12,16 +12,22 @@ package org.eclipse.jdt.ls.core.internal.handlers;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.jdt.core.CompletionContext;
 import org.eclipse.jdt.core.CompletionProposal;
 import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IMember;
 import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.jdt.ls.core.internal.JDTUtils;
 import org.eclipse.jdt.ls.core.internal.JavaLanguageServerPlugin;
+import org.eclipse.jdt.ls.core.internal.ServerMetrics;
 import org.eclipse.jdt.ls.core.internal.contentassist.CompletionProposalRequestor;
+import org.eclipse.jdt.ls.core.internal.javadoc.JavadocCache;
+import org.eclipse.jdt.ls.core.internal.preferences.PreferenceManager;
 import org.eclipse.lsp4j.CompletionItem;
 import org.eclipse.lsp4j.CompletionList;
 import org.eclipse.lsp4j.TextDocumentPositionParams;
@@ -29,6 +35,26 @@ import org.eclipse.lsp4j.jsonrpc.messages.Either;
 
 public class CompletionHandler{
 
+	public static final String FILTERED_METRIC = "textDocument/completion.filtered";
+
+	/**
+	 * The number of best ranked items whose documentation is read ahead of
+	 * their resolution
+	 */
+	private static final int PREFETCH_COUNT = 5;
+
+	/**
+	 * Whether the client must request the completion again as the prefix gets
+	 * longer, rather than filter the items itself
+	 */
+	private boolean incomplete;
+
+	private final PreferenceManager manager;
+
+	public CompletionHandler(PreferenceManager manager) {
+		this.manager = manager;
+	}
+
 	Either<List<CompletionItem>, CompletionList> completion(TextDocumentPositionParams position,
 			IProgressMonitor monitor) {
 		List<CompletionItem> completionItems = null;
@@ -37,6 +63,7 @@ public class CompletionHandler{
 			completionItems = this.computeContentAssist(unit,
 					position.getPosition().getLine(),
 					position.getPosition().getCharacter(), monitor);
+			prefetchDocumentation(unit, completionItems);
 		} catch (OperationCanceledException ignorable) {
 			// No need to pollute logs when query is cancelled
 		} catch (Exception e) {
@@ -44,19 +71,25 @@ public class CompletionHandler{
 		}
 		CompletionList $ = new CompletionList();
 		$.setItems(completionItems == null ? Collections.emptyList() : completionItems);
+		$.setIsIncomplete(incomplete);
 		JavaLanguageServerPlugin.logInfo("Completion request completed");
 		return Either.forRight($);
 	}
 
 	private List<CompletionItem> computeContentAssist(ICompilationUnit unit, int line, int column, IProgressMonitor monitor) throws JavaModelException {
-		CompletionResponses.clear();
 		if (unit == null) {
 			return Collections.emptyList();
 		}
+		final int offset = JsonRpcHelpers.toOffset(unit.getBuffer(), line, column);
+		CompletionList filtered = filterPreviousResponse(unit, offset);
+		if (filtered != null) {
+			ServerMetrics.getInstance().increment(FILTERED_METRIC);
+			incomplete = filtered.isIncomplete();
+			return filtered.getItems();
+		}
 		List<CompletionItem> proposals = new ArrayList<>();
 
-		final int offset = JsonRpcHelpers.toOffset(unit.getBuffer(), line, column);
-		CompletionProposalRequestor collector = new CompletionProposalRequestor(unit, offset);
+		CompletionProposalRequestor collector = new CompletionProposalRequestor(unit, offset, manager.getPreferences().getCompletionMaxResults());
 		// Allow completions for unresolved types - since 3.3
 		collector.setAllowsRequiredProposals(CompletionProposal.FIELD_REF, CompletionProposal.TYPE_REF, true);
 		collector.setAllowsRequiredProposals(CompletionProposal.FIELD_REF, CompletionProposal.TYPE_IMPORT, true);
@@ -76,8 +109,102 @@ public class CompletionHandler{
 		if (offset >-1 && !monitor.isCanceled()) {
 			unit.codeComplete(offset, collector, monitor);
 			proposals.addAll(collector.getCompletionItems());
+			CompletionContext context = collector.getContext();
+			// with an empty unqualified prefix, the engine doesn't propose all the types
+			incomplete = collector.isIncomplete() || context == null || context.getToken() == null || (context.getToken().length == 0 && !isQualified(unit.getSource(), context.getTokenStart()));
 		}
 
 		return proposals;
 	}
+
+	/**
+	 * Reads ahead the documentation of the best ranked items, which are the
+	 * most likely to be resolved.
+	 */
+	private void prefetchDocumentation(ICompilationUnit unit, List<CompletionItem> items) {
+		if (unit == null || items.isEmpty()) {
+			return;
+		}
+		CompletionResponse response = CompletionResponses.getSession(unit.getResource().getLocationURI().toString());
+		if (response == null) {
+			return;
+		}
+		List<CompletionProposal> proposals = new ArrayList<>(PREFETCH_COUNT);
+		items.stream().sorted(Comparator.comparing(CompletionItem::getSortText)).limit(PREFETCH_COUNT).forEach(item -> {
+			int proposalId = CompletionResolveHandler.getProposalId(item.getData());
+			if (proposalId >= 0 && proposalId < response.getProposals().size()) {
+				proposals.add(response.getProposals().get(proposalId));
+			}
+		});
+		CompletionContext context = response.getContext();
+		JavadocCache.getInstance().prefetch(() -> {
+			List<IMember> members = new ArrayList<>(proposals.size());
+			for (CompletionProposal proposal : proposals) {
+				IMember member = CompletionResolveHandler.getMember(unit, context, proposal);
+				if (member != null) {
+					members.add(member);
+				}
+			}
+			return members;
+		});
+	}
+
+	/**
+	 * Filters the proposals computed for the previous completion request of
+	 * the document, when the prefix being completed was only extended since,
+	 * instead of running the completion engine again.
+	 *
+	 * @return the list, or <code>null</code> if the previous response can't
+	 *         be reused
+	 */
+	private CompletionList filterPreviousResponse(ICompilationUnit unit, int offset) throws JavaModelException {
+		CompletionResponse response = CompletionResponses.getSession(unit.getResource().getLocationURI().toString());
+		if (response == null || response.getContext() == null || response.getSource() == null) {
+			return null;
+		}
+		CompletionContext context = response.getContext();
+		char[] enginePrefix = context.getToken();
+		int tokenStart = context.getTokenStart();
+		if (context.getTokenKind() != CompletionContext.TOKEN_KIND_NAME || context.isInJavadoc() || enginePrefix == null || tokenStart < 0) {
+			return null;
+		}
+		String previousSource = response.getSource();
+		if (enginePrefix.length == 0 && !isQualified(previousSource, tokenStart)) {
+			// the engine didn't propose all the types
+			return null;
+		}
+		int previousOffset = response.getOffset();
+		String source = unit.getSource();
+		// the document may only differ by the typed prefix
+		int suffixLength = previousSource.length() - previousOffset;
+		if (source == null || offset < tokenStart + enginePrefix.length || source.length() - offset != suffixLength
+				|| !source.regionMatches(0, previousSource, 0, tokenStart) || !source.regionMatches(offset, previousSource, previousOffset, suffixLength)) {
+			return null;
+		}
+		String prefix = source.substring(tokenStart, offset);
+		if (!prefix.startsWith(String.valueOf(enginePrefix))) {
+			return null;
+		}
+		for (int i = 0; i < prefix.length(); i++) {
+			if (!Character.isJavaIdentifierPart(prefix.charAt(i))) {
+				return null;
+			}
+		}
+		return CompletionProposalRequestor.getCompletionItems(unit, response, offset, enginePrefix, prefix.toCharArray(), manager.getPreferences().getCompletionMaxResults());
+	}
+
+	/**
+	 * @return whether the token starting at the given offset is qualified, as
+	 *         in <code>foo.|</code>
+	 */
+	private static boolean isQualified(String source, int tokenStart) {
+		if (source == null || tokenStart > source.length()) {
+			return false;
+		}
+		int i = tokenStart - 1;
+		while (i >= 0 && Character.isWhitespace(source.charAt(i))) {
+			i--;
+		}
+		return i >= 0 && source.charAt(i) == '.';
+	}
 }
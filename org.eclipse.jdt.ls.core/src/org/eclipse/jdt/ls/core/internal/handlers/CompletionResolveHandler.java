@@ -14,11 +14,12 @@ import static org.eclipse.jdt.internal.corext.template.java.SignatureUtil.fix836
 import static org.eclipse.jdt.internal.corext.template.java.SignatureUtil.getLowerBound;
 import static org.eclipse.jdt.internal.corext.template.java.SignatureUtil.stripSignatureToFQN;
 
-import java.io.Reader;
+import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.TimeUnit;
 
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.jdt.core.CompletionContext;
+import org.eclipse.jdt.core.CompletionProposal;
 import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.IField;
 import org.eclipse.jdt.core.IMember;
@@ -29,15 +30,13 @@ import org.eclipse.jdt.core.Signature;
 import org.eclipse.jdt.core.compiler.CharOperation;
 import org.eclipse.jdt.ls.core.internal.JDTUtils;
 import org.eclipse.jdt.ls.core.internal.JavaLanguageServerPlugin;
+import org.eclipse.jdt.ls.core.internal.contentassist.CompletionProposalDescriptionProvider;
 import org.eclipse.jdt.ls.core.internal.contentassist.CompletionProposalReplacementProvider;
-import org.eclipse.jdt.ls.core.internal.javadoc.JavadocContentAccess;
+import org.eclipse.jdt.ls.core.internal.contentassist.CompletionResolveContext;
+import org.eclipse.jdt.ls.core.internal.javadoc.JavadocCache;
 import org.eclipse.jdt.ls.core.internal.preferences.PreferenceManager;
 import org.eclipse.lsp4j.CompletionItem;
 import org.eclipse.osgi.util.NLS;
-
-import com.google.common.io.CharStreams;
-import com.google.common.util.concurrent.SimpleTimeLimiter;
-import com.google.common.util.concurrent.UncheckedTimeoutException;
 /**
  * Adds the completion string and documentation.
  * It checks the client capabilities.
@@ -55,90 +54,193 @@ public class CompletionResolveHandler {
 		this.manager = manager;
 	}
 
+	/**
+	 * @deprecated the data of an item is now a string, see
+	 *             {@link #toData(long, int)}
+	 */
+	@Deprecated
 	public static final String DATA_FIELD_URI = "uri";
 	public static final String DATA_FIELD_DECLARATION_SIGNATURE = "decl_signature";
 	public static final String DATA_FIELD_SIGNATURE= "signature";
 	public static final String DATA_FIELD_NAME = "name";
+	/**
+	 * @deprecated the data of an item is now a string, see
+	 *             {@link #toData(long, int)}
+	 */
+	@Deprecated
 	public static final String DATA_FIELD_REQUEST_ID = "rid";
+	/**
+	 * @deprecated the data of an item is now a string, see
+	 *             {@link #toData(long, int)}
+	 */
+	@Deprecated
 	public static final String DATA_FIELD_PROPOSAL_ID = "pid";
 
+	/**
+	 * Separates the request id, the proposal id and the offset of the list in
+	 * the data of an item
+	 */
+	private static final char DATA_SEPARATOR = ':';
+
+	/**
+	 * How long to wait for the documentation of an item, in milliseconds
+	 */
+	private static final long JAVADOC_TIMEOUT = 500;
+
+	/**
+	 * @return the data of the item of the given proposal, used to resolve it
+	 */
+	public static String toData(long requestId, int proposalId) {
+		return String.valueOf(requestId) + DATA_SEPARATOR + proposalId;
+	}
+
+	/**
+	 * @return the data of the item of the given proposal in a list filtered
+	 *         at another offset than the one of its response
+	 */
+	public static String toData(long requestId, int proposalId, int offset) {
+		return toData(requestId, proposalId) + DATA_SEPARATOR + offset;
+	}
+
+	/**
+	 * @return the id of the proposal of the item with the given data, -1 if
+	 *         invalid
+	 */
+	public static int getProposalId(Object data) {
+		String[] fields = getFields(data);
+		return fields == null ? -1 : Integer.parseInt(fields[1]);
+	}
+
+	/**
+	 * @return the fields of the given data, or <code>null</code> if it isn't
+	 *         the data of an item
+	 */
+	private static String[] getFields(Object data) {
+		if (!(data instanceof String)) {
+			return null;
+		}
+		String[] fields = ((String) data).split(String.valueOf(DATA_SEPARATOR));
+		if (fields.length < 2 || fields.length > 3) {
+			return null;
+		}
+		try {
+			Long.parseLong(fields[0]);
+			for (int i = 1; i < fields.length; i++) {
+				Integer.parseInt(fields[i]);
+			}
+		} catch (NumberFormatException e) {
+			return null;
+		}
+		return fields;
+	}
+
 	public CompletionItem resolve(CompletionItem param, IProgressMonitor monitor) {
 
-		@SuppressWarnings("unchecked")
-		Map<String, String> data = (Map<String, String>) param.getData();
+		Object token = param.getData();
 		// clean resolve data
 		param.setData(null);
 
-		if (!data.containsKey(DATA_FIELD_URI) || !data.containsKey(DATA_FIELD_REQUEST_ID) || !data.containsKey(DATA_FIELD_PROPOSAL_ID)) {
+		String[] fields = getFields(token);
+		if (fields == null) {
 			return param;
 		}
-		int proposalId = Integer.parseInt(data.get(DATA_FIELD_PROPOSAL_ID));
-		long requestId = Long.parseLong(data.get(DATA_FIELD_REQUEST_ID));
-		CompletionResponse completionResponse = CompletionResponses.get(requestId);
+		int proposalId = Integer.parseInt(fields[1]);
+		CompletionResponse completionResponse = CompletionResponses.get(Long.parseLong(fields[0]));
 		if (completionResponse == null || completionResponse.getProposals().size() <= proposalId) {
 			throw new IllegalStateException("Invalid completion proposal");
 		}
-		String uri = data.get(DATA_FIELD_URI);
+		// the offset the list was filtered at, as the prefix got longer
+		int offset = fields.length > 2 ? Integer.parseInt(fields[2]) : completionResponse.getOffset();
+		String uri = completionResponse.getUri();
 		ICompilationUnit unit = JDTUtils.resolveCompilationUnit(uri);
 		if (unit == null) {
 			throw new IllegalStateException(NLS.bind("Unable to match Compilation Unit from {0} ", uri));
 		}
+		CompletionResolveContext resolveContext = null;
+		try {
+			// shared by the items of the response until the document is edited
+			resolveContext = CompletionResponses.getResolveContext(completionResponse, unit);
+		} catch (JavaModelException e) {
+			JavaLanguageServerPlugin.logException("Unable to analyze " + uri, e);
+		}
 		CompletionProposalReplacementProvider proposalProvider = new CompletionProposalReplacementProvider(unit,
 				completionResponse.getContext(),
-				completionResponse.getOffset(),
-				this.manager.getClientPreferences());
-		proposalProvider.updateReplacement(completionResponse.getProposals().get(proposalId), param, '\0');
-
-		if (data.containsKey(DATA_FIELD_DECLARATION_SIGNATURE)) {
-			String typeName = stripSignatureToFQN(String.valueOf(data.get(DATA_FIELD_DECLARATION_SIGNATURE)));
-			try {
-				IMember member = null;
-				IType type = unit.getJavaProject().findType(typeName);
-
-				if (type!=null && data.containsKey(DATA_FIELD_NAME)) {
-					String name = data.get(DATA_FIELD_NAME);
-					String[] paramSigs = CharOperation.NO_STRINGS;
-					if(data.containsKey( DATA_FIELD_SIGNATURE)){
-						String[] parameters= Signature.getParameterTypes(String.valueOf(fix83600(data.get(DATA_FIELD_SIGNATURE).toCharArray())));
-						for (int i= 0; i < parameters.length; i++) {
-							parameters[i]= getLowerBound(parameters[i]);
-						}
-						paramSigs = parameters;
-					}
-					IMethod method = type.getMethod(name, paramSigs);
-					if (method.exists()) {
-						member = method;
-					} else {
-						IField field = type.getField(name);
-						if (field.exists()) {
-							member = field;
-						}
+				offset,
+				this.manager.getClientPreferences(),
+				resolveContext);
+		CompletionProposal proposal = completionResponse.getProposal(proposalId, offset);
+		proposalProvider.updateReplacement(proposal, param, '\0');
+
+		// the detail, and the member documented, are only computed on resolve
+		Map<String, String> data = new HashMap<>();
+		param.setDetail(updateDetails(completionResponse.getContext(), proposal, data));
+		if (!monitor.isCanceled()) {
+			IMember member = getMember(unit, data);
+			if (member != null && !monitor.isCanceled()) {
+				param.setDocumentation(JavadocCache.getInstance().getPlainText(member, JAVADOC_TIMEOUT));
+			}
+		}
+		return param;
+	}
+
+	/**
+	 * @return the member documented by the item of the given proposal, or
+	 *         <code>null</code>
+	 */
+	public static IMember getMember(ICompilationUnit unit, CompletionContext context, CompletionProposal proposal) {
+		Map<String, String> data = new HashMap<>();
+		updateDetails(context, proposal, data);
+		return getMember(unit, data);
+	}
+
+	/**
+	 * Puts the signatures of the member documented by the item of the given
+	 * proposal in the given data.
+	 *
+	 * @return the detail of the item
+	 */
+	private static String updateDetails(CompletionContext context, CompletionProposal proposal, Map<String, String> data) {
+		CompletionItem details = new CompletionItem();
+		details.setData(data);
+		new CompletionProposalDescriptionProvider(context).updateDescription(proposal, details);
+		return details.getDetail();
+	}
+
+	private static IMember getMember(ICompilationUnit unit, Map<String, String> data) {
+		if (!data.containsKey(DATA_FIELD_DECLARATION_SIGNATURE)) {
+			return null;
+		}
+		String typeName = stripSignatureToFQN(String.valueOf(data.get(DATA_FIELD_DECLARATION_SIGNATURE)));
+		try {
+			IMember member = null;
+			IType type = unit.getJavaProject().findType(typeName);
+
+			if (type!=null && data.containsKey(DATA_FIELD_NAME)) {
+				String name = data.get(DATA_FIELD_NAME);
+				String[] paramSigs = CharOperation.NO_STRINGS;
+				if(data.containsKey( DATA_FIELD_SIGNATURE)){
+					String[] parameters= Signature.getParameterTypes(String.valueOf(fix83600(data.get(DATA_FIELD_SIGNATURE).toCharArray())));
+					for (int i= 0; i < parameters.length; i++) {
+						parameters[i]= getLowerBound(parameters[i]);
 					}
-				} else {
-					member = type;
+					paramSigs = parameters;
 				}
-
-				if (member != null && member.exists() && !monitor.isCanceled()) {
-					String javadoc = null;
-					try {
-						final IMember curMember = member;
-						javadoc = new SimpleTimeLimiter().callWithTimeout(() -> {
-							Reader reader = JavadocContentAccess.getPlainTextContentReader(curMember);
-							return reader == null? null:CharStreams.toString(reader);
-						}, 500, TimeUnit.MILLISECONDS, true);
-					} catch (UncheckedTimeoutException tooSlow) {
-						//Ignore error for now as it's spamming clients on content assist.
-						//TODO cache javadoc resolution results?
-						//JavaLanguageServerPlugin.logError("Unable to get documentation under 500ms");
-					} catch (Exception e) {
-						JavaLanguageServerPlugin.logException("Unable to read documentation", e);
+				IMethod method = type.getMethod(name, paramSigs);
+				if (method.exists()) {
+					member = method;
+				} else {
+					IField field = type.getField(name);
+					if (field.exists()) {
+						member = field;
 					}
-					param.setDocumentation(javadoc);
 				}
-			} catch (JavaModelException e) {
-				JavaLanguageServerPlugin.logException("Unable to resolve compilation", e);
+			} else {
+				member = type;
 			}
+			return member != null && member.exists() ? member : null;
+		} catch (JavaModelException e) {
+			JavaLanguageServerPlugin.logException("Unable to resolve compilation", e);
+			return null;
 		}
-		return param;
 	}
 }
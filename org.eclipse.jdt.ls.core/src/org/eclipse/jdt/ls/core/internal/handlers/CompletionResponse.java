@@ -10,24 +10,52 @@
  *******************************************************************************/
 package org.eclipse.jdt.ls.core.internal.handlers;
 
+import static org.eclipse.jdt.internal.corext.template.java.SignatureUtil.fix83600;
+import static org.eclipse.jdt.internal.corext.template.java.SignatureUtil.stripSignatureToFQN;
+
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicLong;
 
+import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.jdt.core.CompletionContext;
 import org.eclipse.jdt.core.CompletionProposal;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.ITypeParameter;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.core.Signature;
+import org.eclipse.jdt.core.compiler.CharOperation;
+import org.eclipse.jdt.ls.core.internal.contentassist.CompletionProposalReplacementProvider;
+import org.eclipse.jdt.ls.core.internal.contentassist.CompletionResolveContext;
+import org.eclipse.jdt.ls.core.internal.contentassist.GetterSetterCompletionProposal;
 
 /**
  * Class representing {@link CompletionProposal} responses to for a given {@link CompletionContext}.
  *
  * @author Fred Bricon
  */
+@SuppressWarnings("restriction")
 public class CompletionResponse {
 
+	/**
+	 * The estimated size of a detached proposal, besides its names and
+	 * signatures
+	 */
+	private static final int PROPOSAL_BYTES = 160;
+
 	private static AtomicLong idSeed = new AtomicLong(0);
 	private Long id;
 	private int offset;
 	private CompletionContext context;
 	private List<CompletionProposal> proposals;
+	private String uri;
+	private String source;
+	private long size = -1;
+	private volatile CompletionResolveContext resolveContext;
 
 	public CompletionResponse() {
 		id = idSeed.getAndIncrement();
@@ -76,4 +104,590 @@ public class CompletionResponse {
 	public void setOffset(int offset) {
 		this.offset = offset;
 	}
+	/**
+	 * @return the URI of the document
+	 */
+	public String getUri() {
+		return uri;
+	}
+	/**
+	 * @param uri the URI of the document
+	 */
+	public void setUri(String uri) {
+		this.uri = uri;
+	}
+	/**
+	 * @return the content of the document at the offset of the response
+	 */
+	public String getSource() {
+		return source;
+	}
+	/**
+	 * @param source the content of the document at the offset of the response
+	 */
+	public void setSource(String source) {
+		this.source = source;
+	}
+
+	/**
+	 * @return the analysis of the given compilation unit shared by the
+	 *         resolutions of the proposals, computed again once the
+	 *         compilation unit is edited, or <code>null</code> if it can't
+	 *         be parsed
+	 */
+	public synchronized CompletionResolveContext getResolveContext(ICompilationUnit unit) throws JavaModelException {
+		if (resolveContext == null || !resolveContext.isValid(unit)) {
+			resolveContext = CompletionResolveContext.create(unit);
+		}
+		return resolveContext;
+	}
+
+	/**
+	 * Releases the analysis shared by the resolutions of the proposals, which
+	 * isn't accounted in the size of the response. It doesn't wait for an
+	 * analysis in progress.
+	 */
+	public void releaseResolveContext() {
+		resolveContext = null;
+	}
+
+	/**
+	 * Replaces the context and the proposals by copies of the information the
+	 * resolution and the filtering of the proposals use, without the
+	 * completion engine and the compiler structures they refer to. The names
+	 * of the parameters, and whether the diamond operator can be used, are
+	 * looked up in the given project once a proposal is resolved.
+	 */
+	public void detach(IJavaProject project) {
+		if (proposals != null) {
+			List<CompletionProposal> detached = new ArrayList<>(proposals.size());
+			for (CompletionProposal proposal : proposals) {
+				detached.add(detach(proposal, project));
+			}
+			proposals = detached;
+		}
+		if (context != null && !(context instanceof DetachedCompletionContext)) {
+			context = new DetachedCompletionContext(context);
+		}
+	}
+
+	private static CompletionProposal detach(CompletionProposal proposal, IJavaProject project) {
+		if (proposal instanceof DetachedCompletionProposal || proposal instanceof GetterSetterCompletionProposal) {
+			// only refers to a field handle
+			return proposal;
+		}
+		return new DetachedCompletionProposal(proposal, project);
+	}
+
+	/**
+	 * @return the estimated size of the response in memory, in bytes, as
+	 *         computed the first time
+	 */
+	public synchronized long getSize() {
+		if (size < 0) {
+			long bytes = source == null ? 0 : 2L * source.length();
+			if (proposals != null) {
+				for (CompletionProposal proposal : proposals) {
+					bytes += getSize(proposal);
+				}
+			}
+			size = bytes;
+		}
+		return size;
+	}
+
+	private static long getSize(CompletionProposal proposal) {
+		long bytes = PROPOSAL_BYTES + length(proposal.getCompletion()) + length(proposal.getName()) + length(proposal.getSignature()) + length(proposal.getDeclarationSignature()) + length(proposal.getKey())
+				+ length(proposal.getDeclarationKey()) + length(proposal.getReceiverSignature());
+		CompletionProposal[] requiredProposals = proposal.getRequiredProposals();
+		if (requiredProposals != null) {
+			for (CompletionProposal requiredProposal : requiredProposals) {
+				bytes += getSize(requiredProposal);
+			}
+		}
+		return bytes;
+	}
+
+	private static long length(char[] chars) {
+		return chars == null ? 0 : 2L * chars.length;
+	}
+
+	/**
+	 * @return the proposal with the given index, with its ranges moved from
+	 *         the offset of the response to the given offset, as a copy if they
+	 *         differ since the shared proposal may be resolved for both
+	 */
+	public CompletionProposal getProposal(int index, int offset) {
+		CompletionProposal proposal = proposals.get(index);
+		int delta = offset - this.offset;
+		return delta == 0 ? proposal : move(proposal, this.offset, delta);
+	}
+
+	private CompletionProposal move(CompletionProposal proposal, int from, int delta) {
+		CompletionProposal moved;
+		if (proposal instanceof GetterSetterCompletionProposal) {
+			moved = ((GetterSetterCompletionProposal) proposal).copy();
+		} else if (proposal instanceof DetachedCompletionProposal) {
+			moved = ((DetachedCompletionProposal) proposal).copy();
+		} else {
+			moved = new DetachedCompletionProposal(proposal, null);
+		}
+		int start = proposal.getReplaceStart();
+		int end = proposal.getReplaceEnd();
+		moved.setReplaceRange(start > from ? start + delta : start, end >= from ? end + delta : end);
+		int tokenStart = proposal.getTokenStart();
+		int tokenEnd = proposal.getTokenEnd();
+		moved.setTokenRange(tokenStart > from ? tokenStart + delta : tokenStart, tokenEnd >= from ? tokenEnd + delta : tokenEnd);
+		CompletionProposal[] requiredProposals = proposal.getRequiredProposals();
+		if (requiredProposals != null) {
+			CompletionProposal[] movedProposals = new CompletionProposal[requiredProposals.length];
+			for (int i = 0; i < requiredProposals.length; i++) {
+				movedProposals[i] = move(requiredProposals[i], from, delta);
+			}
+			moved.setRequiredProposals(movedProposals);
+		}
+		return moved;
+	}
+
+	/**
+	 * A copy of a proposal of the completion engine, without the engine
+	 * itself. The names of its parameters, and whether it can use the diamond
+	 * operator, are looked up in the Java model the first time they are asked
+	 * for, as the item of the proposal is resolved.
+	 */
+	private static final class DetachedCompletionProposal extends CompletionProposal {
+
+		private final int kind;
+		private final int completionLocation;
+		private int tokenStart;
+		private int tokenEnd;
+		private final char[] completion;
+		private int replaceStart;
+		private int replaceEnd;
+		private final int relevance;
+		private final char[] declarationSignature;
+		private final char[] declarationKey;
+		private final char[] name;
+		private final char[] signature;
+		private final char[] key;
+		private final int flags;
+		private final int additionalFlags;
+		private CompletionProposal[] requiredProposals;
+		private final IJavaProject project;
+		private volatile char[][] parameterNames;
+		private final int accessibility;
+		private final boolean constructor;
+		private final char[] receiverSignature;
+		private final int receiverStart;
+		private final int receiverEnd;
+		private volatile Boolean canUseDiamond;
+
+		DetachedCompletionProposal(CompletionProposal proposal, IJavaProject project) {
+			kind = proposal.getKind();
+			completionLocation = proposal.getCompletionLocation();
+			tokenStart = proposal.getTokenStart();
+			tokenEnd = proposal.getTokenEnd();
+			completion = proposal.getCompletion();
+			replaceStart = proposal.getReplaceStart();
+			replaceEnd = proposal.getReplaceEnd();
+			relevance = proposal.getRelevance();
+			declarationSignature = proposal.getDeclarationSignature();
+			declarationKey = proposal.getDeclarationKey();
+			name = proposal.getName();
+			signature = proposal.getSignature();
+			key = proposal.getKey();
+			flags = proposal.getFlags();
+			additionalFlags = proposal.getAdditionalFlags();
+			CompletionProposal[] required = proposal.getRequiredProposals();
+			if (required != null) {
+				requiredProposals = new CompletionProposal[required.length];
+				for (int i = 0; i < required.length; i++) {
+					requiredProposals[i] = detach(required[i], project);
+				}
+			}
+			this.project = project;
+			accessibility = proposal.getAccessibility();
+			constructor = proposal.isConstructor();
+			receiverSignature = proposal.getReceiverSignature();
+			receiverStart = proposal.getReceiverStart();
+			receiverEnd = proposal.getReceiverEnd();
+		}
+
+		/**
+		 * @return a copy of this proposal, sharing what was looked up
+		 */
+		DetachedCompletionProposal copy() {
+			DetachedCompletionProposal copy = new DetachedCompletionProposal(this, project);
+			copy.parameterNames = parameterNames;
+			copy.canUseDiamond = canUseDiamond;
+			return copy;
+		}
+
+		/**
+		 * @return whether the parameter names of the proposals of the given
+		 *         kind are looked up by the engine
+		 */
+		private static boolean hasParameters(int kind) {
+			switch (kind) {
+			case CompletionProposal.ANONYMOUS_CLASS_DECLARATION:
+			case CompletionProposal.ANONYMOUS_CLASS_CONSTRUCTOR_INVOCATION:
+			case CompletionProposal.CONSTRUCTOR_INVOCATION:
+			case CompletionProposal.METHOD_DECLARATION:
+			case CompletionProposal.METHOD_REF:
+			case CompletionProposal.METHOD_REF_WITH_CASTED_RECEIVER:
+				return true;
+			default:
+				return false;
+			}
+		}
+
+		@Override
+		public int getKind() {
+			return kind;
+		}
+
+		@Override
+		public int getCompletionLocation() {
+			return completionLocation;
+		}
+
+		@Override
+		public int getTokenStart() {
+			return tokenStart;
+		}
+
+		@Override
+		public int getTokenEnd() {
+			return tokenEnd;
+		}
+
+		@Override
+		public void setTokenRange(int startIndex, int endIndex) {
+			tokenStart = startIndex;
+			tokenEnd = endIndex;
+		}
+
+		@Override
+		public char[] getCompletion() {
+			return completion;
+		}
+
+		@Override
+		public int getReplaceStart() {
+			return replaceStart;
+		}
+
+		@Override
+		public int getReplaceEnd() {
+			return replaceEnd;
+		}
+
+		@Override
+		public void setReplaceRange(int startIndex, int endIndex) {
+			replaceStart = startIndex;
+			replaceEnd = endIndex;
+		}
+
+		@Override
+		public int getRelevance() {
+			return relevance;
+		}
+
+		@Override
+		public char[] getDeclarationSignature() {
+			return declarationSignature;
+		}
+
+		@Override
+		public char[] getDeclarationKey() {
+			return declarationKey;
+		}
+
+		@Override
+		public char[] getName() {
+			return name;
+		}
+
+		@Override
+		public char[] getSignature() {
+			return signature;
+		}
+
+		@Override
+		public char[] getKey() {
+			return key;
+		}
+
+		@Override
+		public int getFlags() {
+			return flags;
+		}
+
+		@Override
+		public int getAdditionalFlags() {
+			return additionalFlags;
+		}
+
+		@Override
+		public CompletionProposal[] getRequiredProposals() {
+			return requiredProposals;
+		}
+
+		@Override
+		public void setRequiredProposals(CompletionProposal[] proposals) {
+			requiredProposals = proposals;
+		}
+
+		@Override
+		public char[][] findParameterNames(IProgressMonitor monitor) {
+			if (!hasParameters(kind)) {
+				return null;
+			}
+			char[][] names = parameterNames;
+			if (names == null) {
+				names = lookUpParameterNames();
+				parameterNames = names;
+			}
+			return names;
+		}
+
+		/**
+		 * @return the names of the parameters of the method, as declared in its
+		 *         source or attached javadoc, or else the names the engine
+		 *         defaults to
+		 */
+		private char[][] lookUpParameterNames() {
+			String[] parameterTypes = getParameterTypes();
+			try {
+				IMethod method = findMethod(parameterTypes);
+				if (method != null) {
+					String[] names = method.getParameterNames();
+					if (names.length == parameterTypes.length) {
+						char[][] result = new char[names.length][];
+						for (int i = 0; i < names.length; i++) {
+							result[i] = names[i].toCharArray();
+						}
+						return result;
+					}
+				}
+			} catch (JavaModelException e) {
+				// default names
+			}
+			char[][] result = new char[parameterTypes.length][];
+			for (int i = 0; i < parameterTypes.length; i++) {
+				result[i] = ("arg" + i).toCharArray(); //$NON-NLS-1$
+			}
+			return result;
+		}
+
+		private String[] getParameterTypes() {
+			return signature == null ? CharOperation.NO_STRINGS : Signature.getParameterTypes(String.valueOf(fix83600(signature)));
+		}
+
+		private IType findDeclaringType() throws JavaModelException {
+			if (project == null || declarationSignature == null) {
+				return null;
+			}
+			return project.findType(stripSignatureToFQN(String.valueOf(declarationSignature)));
+		}
+
+		/**
+		 * @return the method of the declaring type with the name and the
+		 *         parameter types of the proposal, or else the first one with as
+		 *         many parameters, or <code>null</code>
+		 */
+		private IMethod findMethod(String[] parameterTypes) throws JavaModelException {
+			IType type = findDeclaringType();
+			if (type == null) {
+				return null;
+			}
+			boolean isConstructor = constructor || kind == CompletionProposal.CONSTRUCTOR_INVOCATION || kind == CompletionProposal.ANONYMOUS_CLASS_CONSTRUCTOR_INVOCATION
+					|| kind == CompletionProposal.ANONYMOUS_CLASS_DECLARATION;
+			String methodName = String.valueOf(name);
+			IMethod candidate = null;
+			for (IMethod method : type.getMethods()) {
+				if (method.isConstructor() != isConstructor || (!isConstructor && !method.getElementName().equals(methodName)) || method.getNumberOfParameters() != parameterTypes.length) {
+					continue;
+				}
+				if (hasParameterTypes(method, parameterTypes)) {
+					return method;
+				}
+				if (candidate == null) {
+					candidate = method;
+				}
+			}
+			return candidate;
+		}
+
+		private static boolean hasParameterTypes(IMethod method, String[] parameterTypes) {
+			String[] methodParameterTypes = method.getParameterTypes();
+			for (int i = 0; i < parameterTypes.length; i++) {
+				// the signatures of source methods aren't resolved
+				if (!getSimpleName(methodParameterTypes[i]).equals(getSimpleName(parameterTypes[i]))) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private static String getSimpleName(String typeSignature) {
+			return Signature.getSimpleName(Signature.toString(Signature.getTypeErasure(typeSignature)));
+		}
+
+		@Override
+		public int getAccessibility() {
+			return accessibility;
+		}
+
+		@Override
+		public boolean isConstructor() {
+			return constructor;
+		}
+
+		@Override
+		public char[] getReceiverSignature() {
+			return receiverSignature;
+		}
+
+		@Override
+		public int getReceiverStart() {
+			return receiverStart;
+		}
+
+		@Override
+		public int getReceiverEnd() {
+			return receiverEnd;
+		}
+
+		@Override
+		public boolean canUseDiamond(CompletionContext coreContext) {
+			Boolean result = canUseDiamond;
+			if (result == null) {
+				result = lookUpCanUseDiamond(coreContext);
+				canUseDiamond = result;
+			}
+			return result;
+		}
+
+		/**
+		 * @return whether the constructor invocation can use the diamond
+		 *         operator, as the engine decides it: from Java 7, unless a type
+		 *         is expected and a parameter of the constructor is typed by a
+		 *         type parameter of its class
+		 */
+		private boolean lookUpCanUseDiamond(CompletionContext coreContext) {
+			if (kind != CompletionProposal.CONSTRUCTOR_INVOCATION || project == null || coreContext == null) {
+				return false;
+			}
+			if (CompletionProposalReplacementProvider.isVersionLessThan(project.getOption(JavaCore.COMPILER_SOURCE, true), JavaCore.VERSION_1_7)) {
+				return false;
+			}
+			char[][] expectedTypesKeys = coreContext.getExpectedTypesKeys();
+			if (expectedTypesKeys == null || expectedTypesKeys.length == 0) {
+				return true;
+			}
+			try {
+				IType type = findDeclaringType();
+				if (type == null) {
+					return false;
+				}
+				ITypeParameter[] typeParameters = type.getTypeParameters();
+				for (String parameterType : getParameterTypes()) {
+					String parameterTypeName = getSimpleName(parameterType);
+					for (ITypeParameter typeParameter : typeParameters) {
+						if (typeParameter.getElementName().equals(parameterTypeName)) {
+							return false;
+						}
+					}
+				}
+				return true;
+			} catch (JavaModelException e) {
+				return false;
+			}
+		}
+	}
+
+	private static final class DetachedCompletionContext extends CompletionContext {
+
+		private final boolean inJavadoc;
+		private final boolean inJavadocText;
+		private final boolean inJavadocFormalReference;
+		private final char[][] expectedTypesSignatures;
+		private final char[][] expectedTypesKeys;
+		private final char[] token;
+		private final int tokenKind;
+		private final int tokenLocation;
+		private final int tokenStart;
+		private final int tokenEnd;
+		private final int offset;
+
+		DetachedCompletionContext(CompletionContext context) {
+			inJavadoc = context.isInJavadoc();
+			inJavadocText = context.isInJavadocText();
+			inJavadocFormalReference = context.isInJavadocFormalReference();
+			expectedTypesSignatures = context.getExpectedTypesSignatures();
+			expectedTypesKeys = context.getExpectedTypesKeys();
+			token = context.getToken();
+			tokenKind = context.getTokenKind();
+			tokenLocation = context.getTokenLocation();
+			tokenStart = context.getTokenStart();
+			tokenEnd = context.getTokenEnd();
+			offset = context.getOffset();
+		}
+
+		@Override
+		public boolean isInJavadoc() {
+			return inJavadoc;
+		}
+
+		@Override
+		public boolean isInJavadocText() {
+			return inJavadocText;
+		}
+
+		@Override
+		public boolean isInJavadocFormalReference() {
+			return inJavadocFormalReference;
+		}
+
+		@Override
+		public char[][] getExpectedTypesSignatures() {
+			return expectedTypesSignatures;
+		}
+
+		@Override
+		public char[][] getExpectedTypesKeys() {
+			return expectedTypesKeys;
+		}
+
+		@Override
+		public char[] getToken() {
+			return token;
+		}
+
+		@Override
+		public int getTokenKind() {
+			return tokenKind;
+		}
+
+		@Override
+		public int getTokenLocation() {
+			return tokenLocation;
+		}
+
+		@Override
+		public int getTokenStart() {
+			return tokenStart;
+		}
+
+		@Override
+		public int getTokenEnd() {
+			return tokenEnd;
+		}
+
+		@Override
+		public int getOffset() {
+			return offset;
+		}
+	}
 }
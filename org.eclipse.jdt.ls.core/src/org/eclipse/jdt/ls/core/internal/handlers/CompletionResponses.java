@@ -10,39 +10,188 @@
  *******************************************************************************/
 package org.eclipse.jdt.ls.core.internal.handlers;
 
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.ls.core.internal.JavaLanguageServerPlugin;
+import org.eclipse.jdt.ls.core.internal.ServerMetrics;
+import org.eclipse.jdt.ls.core.internal.contentassist.CompletionResolveContext;
 
 /**
  * Cache of {@link CompletionResponse}s.
  *
+ * It holds the last response of each document, so that its items can be
+ * resolved, or filtered again while the user keeps typing the same prefix,
+ * whatever is completed in other documents meanwhile. The responses are kept
+ * within a memory budget, a thirty-second of the maximum heap by default, which
+ * can be set in megabytes with the {@value #CACHE_SIZE_PROPERTY} system
+ * property; the responses of the least recently used documents are evicted
+ * first.
+ *
  * @author Fred Bricon
  */
 public final class CompletionResponses {
 
+	public static final String CACHE_SIZE_PROPERTY = "jdt.ls.completion.cache.size";
+
 	private CompletionResponses(){
 		//Don't instantiate
 	}
 
-	private static Map<Long, CompletionResponse> COMPLETIONS = new ConcurrentHashMap<>();
+	/**
+	 * The last response of each document, least recently used first
+	 */
+	private static final Map<String, CompletionResponse> RESPONSES = new LinkedHashMap<>(16, 0.75f, true);
+	/**
+	 * The same responses, by id
+	 */
+	private static final Map<Long, CompletionResponse> RESPONSES_BY_ID = new HashMap<>();
+	private static long cacheBytes;
+	private static long evictions;
+	private static long memoryBudget = getMemoryBudget(System.getProperty(CACHE_SIZE_PROPERTY));
 
-	public static CompletionResponse get(Long id) {
-		return COMPLETIONS.get(id);
+	static {
+		ServerMetrics metrics = ServerMetrics.getInstance();
+		metrics.registerGauge("completion.cache.size", CompletionResponses::size);
+		metrics.registerGauge("completion.cache.bytes", CompletionResponses::getCacheBytes);
+		metrics.registerGauge("completion.cache.evictions", CompletionResponses::getEvictionCount);
 	}
 
-	public static void store(CompletionResponse response) {
+	private static long getMemoryBudget(String megabytes) {
+		if (megabytes != null) {
+			try {
+				return Long.parseLong(megabytes.trim()) * 1024 * 1024;
+			} catch (NumberFormatException e) {
+				JavaLanguageServerPlugin.logInfo("Invalid " + CACHE_SIZE_PROPERTY + ": " + megabytes);
+			}
+		}
+		return Runtime.getRuntime().maxMemory() / 32;
+	}
+
+	/**
+	 * @return the response with the given id, or <code>null</code> if it was
+	 *         replaced or evicted. Its document becomes the most recently
+	 *         used.
+	 */
+	public static synchronized CompletionResponse get(Long id) {
+		CompletionResponse response = RESPONSES_BY_ID.get(id);
 		if (response != null) {
-			COMPLETIONS.put(response.getId(), response);
+			// moves the document to the end of the access order
+			RESPONSES.get(response.getUri());
+		}
+		return response;
+	}
+
+	/**
+	 * Stores the given response, in place of the previous response of its
+	 * document. Responses without a document aren't stored. The response is
+	 * expected to be detached from the completion engine beforehand, see
+	 * {@link CompletionResponse#detach(org.eclipse.jdt.core.IJavaProject)}.
+	 */
+	public static void store(CompletionResponse response) {
+		if (response == null || response.getUri() == null) {
+			return;
+		}
+		// estimated outside of the lock, which the other completion requests need
+		long size = response.getSize();
+		synchronized (CompletionResponses.class) {
+			// only the last response keeps its resolve analysis
+			for (CompletionResponse other : RESPONSES.values()) {
+				other.releaseResolveContext();
+			}
+			CompletionResponse previous = RESPONSES.put(response.getUri(), response);
+			if (previous != null) {
+				RESPONSES_BY_ID.remove(previous.getId());
+				cacheBytes -= previous.getSize();
+			}
+			RESPONSES_BY_ID.put(response.getId(), response);
+			cacheBytes += size;
+			Iterator<CompletionResponse> iterator = RESPONSES.values().iterator();
+			// the last response is always kept
+			while (cacheBytes > memoryBudget && RESPONSES.size() > 1) {
+				CompletionResponse eldest = iterator.next();
+				iterator.remove();
+				RESPONSES_BY_ID.remove(eldest.getId());
+				cacheBytes -= eldest.getSize();
+				evictions++;
+			}
+		}
+	}
+
+	/**
+	 * @return the resolve analysis of the given response for the given
+	 *         compilation unit. The other responses release theirs, so that
+	 *         only the response being resolved keeps one.
+	 */
+	public static CompletionResolveContext getResolveContext(CompletionResponse response, ICompilationUnit unit) throws JavaModelException {
+		synchronized (CompletionResponses.class) {
+			for (CompletionResponse other : RESPONSES.values()) {
+				if (other != response) {
+					other.releaseResolveContext();
+				}
+			}
 		}
+		// parsed outside of the lock, which the completion requests need
+		return response.getResolveContext(unit);
 	}
 
-	public static void delete(CompletionResponse response) {
+	/**
+	 * @return the last response computed by the completion engine for the
+	 *         given document, or <code>null</code>
+	 */
+	public static synchronized CompletionResponse getSession(String uri) {
+		return RESPONSES.get(uri);
+	}
+
+	public static synchronized void delete(CompletionResponse response) {
+		if (response != null && response.getUri() != null && RESPONSES.remove(response.getUri(), response)) {
+			RESPONSES_BY_ID.remove(response.getId());
+			cacheBytes -= response.getSize();
+		}
+	}
+
+	/**
+	 * Deletes the response of the given document, once closed.
+	 */
+	public static synchronized void delete(String uri) {
+		CompletionResponse response = RESPONSES.remove(uri);
 		if (response != null) {
-			COMPLETIONS.remove(response.getId());
+			RESPONSES_BY_ID.remove(response.getId());
+			cacheBytes -= response.getSize();
 		}
 	}
 
-	public static void clear() {
-		COMPLETIONS.clear();
+	public static synchronized void clear() {
+		RESPONSES.clear();
+		RESPONSES_BY_ID.clear();
+		cacheBytes = 0;
+	}
+
+	public static synchronized int size() {
+		return RESPONSES.size();
+	}
+
+	public static synchronized long getCacheBytes() {
+		return cacheBytes;
+	}
+
+	public static synchronized long getEvictionCount() {
+		return evictions;
+	}
+
+	public static synchronized long getMemoryBudget() {
+		return memoryBudget;
+	}
+
+	/**
+	 * Sets the memory budget of the responses, in bytes. It applies from the
+	 * next stored response.
+	 */
+	public static synchronized void setMemoryBudget(long bytes) {
+		memoryBudget = bytes;
 	}
 }
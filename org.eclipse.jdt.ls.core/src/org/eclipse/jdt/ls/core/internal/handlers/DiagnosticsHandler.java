@@ -15,6 +15,7 @@ import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.eclipse.core.runtime.IStatus;
 import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.IProblemRequestor;
 import org.eclipse.jdt.core.compiler.IProblem;
@@ -78,8 +79,10 @@ public class DiagnosticsHandler implements IProblemRequestor {
 				return false;
 			default:
 				//We log problems for troubleshooting purposes
-				String error = getError(problem);
-				JavaLanguageServerPlugin.logInfo(problem.getMessage() + " is of type " + error);
+				if (JavaLanguageServerPlugin.isLoggable(IStatus.INFO)) {
+					String error = getError(problem);
+					JavaLanguageServerPlugin.logInfo(problem.getMessage() + " is of type " + error);
+				}
 		}
 		return true;
 	}
@@ -99,13 +102,17 @@ public class DiagnosticsHandler implements IProblemRequestor {
 
 	@Override
 	public void beginReporting() {
-		JavaLanguageServerPlugin.logInfo("begin problem for " + this.uri.substring(this.uri.lastIndexOf('/')));
+		if (JavaLanguageServerPlugin.isLoggable(IStatus.INFO)) {
+			JavaLanguageServerPlugin.logInfo("begin problem for " + this.uri.substring(this.uri.lastIndexOf('/')));
+		}
 		problems.clear();
 	}
 
 	@Override
 	public void endReporting() {
-		JavaLanguageServerPlugin.logInfo(problems.size() + " problems reported for " + this.uri.substring(this.uri.lastIndexOf('/')));
+		if (JavaLanguageServerPlugin.isLoggable(IStatus.INFO)) {
+			JavaLanguageServerPlugin.logInfo(problems.size() + " problems reported for " + this.uri.substring(this.uri.lastIndexOf('/')));
+		}
 		PublishDiagnosticsParams $ = new PublishDiagnosticsParams(ResourceUtils.toClientUri(uri), toDiagnosticsArray(problems));
 		this.connection.publishDiagnostics($);
 	}
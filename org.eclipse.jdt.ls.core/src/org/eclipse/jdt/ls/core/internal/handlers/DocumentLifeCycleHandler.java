@@ -10,11 +10,22 @@
  *******************************************************************************/
 package org.eclipse.jdt.ls.core.internal.handlers;
 
+import java.net.URI;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 import org.eclipse.core.filebuffers.FileBuffers;
 import org.eclipse.core.filebuffers.IFileBuffer;
@@ -30,6 +41,7 @@ import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jdt.core.IBuffer;
 import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.JavaCore;
@@ -40,6 +52,7 @@ import org.eclipse.jdt.ls.core.internal.ActionableNotification;
 import org.eclipse.jdt.ls.core.internal.JDTUtils;
 import org.eclipse.jdt.ls.core.internal.JavaClientConnection;
 import org.eclipse.jdt.ls.core.internal.JavaLanguageServerPlugin;
+import org.eclipse.jdt.ls.core.internal.ServerMetrics;
 import org.eclipse.jdt.ls.core.internal.SharedASTProvider;
 import org.eclipse.jdt.ls.core.internal.managers.ProjectsManager;
 import org.eclipse.jdt.ls.core.internal.managers.ProjectsManager.CHANGE_TYPE;
@@ -64,6 +77,8 @@ import org.eclipse.text.edits.TextEdit;
 public class DocumentLifeCycleHandler {
 
 	public static String DOCUMENT_LIFE_CYCLE_JOBS = "DocumentLifeCycleJobs";
+	public static final String VALIDATION_METRIC = "document/validation";
+	private static final ExecutorService RECONCILE_EXECUTOR = createReconcileExecutor();
 	private JavaClientConnection connection;
 	private PreferenceManager preferenceManager;
 	private ProjectsManager projectsManager;
@@ -71,13 +86,39 @@ public class DocumentLifeCycleHandler {
 	private SharedASTProvider sharedASTProvider;
 	private WorkspaceJob validationTimer;
 	private Set<ICompilationUnit> toReconcile = new HashSet<>();
+	/**
+	 * The units being reconciled by the current validation, guarded by
+	 * {@link #toReconcile}
+	 */
+	private final Set<ICompilationUnit> reconciling = new HashSet<>();
+	private final Map<String, Object> documentLocks = new ConcurrentHashMap<>();
+	private final WorkingCopyDependencies dependencies = new WorkingCopyDependencies();
+	private final ValidationDelay validationDelay = new ValidationDelay();
+	private final Supplier<Long> validationDelayGauge = validationDelay::getLastDelay;
+	private final Prewarmer prewarmer;
 
 	public DocumentLifeCycleHandler(JavaClientConnection connection, PreferenceManager preferenceManager, ProjectsManager projectsManager, boolean delayValidation) {
+		this(connection, preferenceManager, projectsManager, delayValidation, null);
+	}
+
+	/**
+	 * @param prewarmer
+	 *            prepares the types referenced from the opened documents, may
+	 *            be <code>null</code>
+	 */
+	public DocumentLifeCycleHandler(JavaClientConnection connection, PreferenceManager preferenceManager, ProjectsManager projectsManager, boolean delayValidation, Prewarmer prewarmer) {
 		this.connection = connection;
+		this.prewarmer = prewarmer;
+		if (prewarmer != null) {
+			// the validation of a unit creates its AST
+			prewarmer.setValidationPending(this::isValidationPending);
+		}
 		this.preferenceManager = preferenceManager;
 		this.projectsManager = projectsManager;
 		this.sharedASTProvider = SharedASTProvider.getInstance();
 		if (delayValidation) {
+			// no scheduling rule: reconciling working copies doesn't modify
+			// resources, validation doesn't need to wait for builds or imports
 			this.validationTimer = new WorkspaceJob("Validate documents") {
 				@Override
 				public IStatus runInWorkspace(IProgressMonitor monitor) throws CoreException {
@@ -92,17 +133,54 @@ public class DocumentLifeCycleHandler {
 					return DOCUMENT_LIFE_CYCLE_JOBS.equals(family);
 				}
 			};
-			this.validationTimer.setRule(ResourcesPlugin.getWorkspace().getRoot());
+			ServerMetrics.getInstance().registerGauge(VALIDATION_METRIC + ".delay", validationDelayGauge);
 		}
 	}
 
+	/**
+	 * @return whether the given unit waits for its validation, or is being
+	 *         reconciled by it
+	 */
+	public boolean isValidationPending(ICompilationUnit unit) {
+		synchronized (toReconcile) {
+			return toReconcile.contains(unit) || reconciling.contains(unit);
+		}
+	}
+
+	/**
+	 * Unregisters the metrics of the handler.
+	 */
+	public void dispose() {
+		ServerMetrics.getInstance().unregisterGauge(VALIDATION_METRIC + ".delay", validationDelayGauge);
+	}
+
+	private static ExecutorService createReconcileExecutor() {
+		int threads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+		AtomicInteger count = new AtomicInteger();
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+			Thread thread = new Thread(r, "jdt.ls-reconcile-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
 	private void triggerValidation(ICompilationUnit cu) throws JavaModelException {
+		List<String> pending = new ArrayList<>();
 		synchronized (toReconcile) {
 			toReconcile.add(cu);
+			for (ICompilationUnit unit : toReconcile) {
+				pending.add(unit.getHandleIdentifier());
+			}
 		}
 		if (validationTimer != null) {
+			validationDelay.changed(cu.getHandleIdentifier(), System.currentTimeMillis());
+			if (validationTimer.getState() == Job.SLEEPING) {
+				ServerMetrics.getInstance().increment(VALIDATION_METRIC + ".debounced");
+			}
 			validationTimer.cancel();
-			validationTimer.schedule(400);
+			validationTimer.schedule(validationDelay.getDelay(pending));
 		} else {
 			performValidation(new NullProgressMonitor());
 		}
@@ -115,70 +193,158 @@ public class DocumentLifeCycleHandler {
 		List<ICompilationUnit> cusToReconcile = new ArrayList<>();
 		synchronized (toReconcile) {
 			cusToReconcile.addAll(toReconcile);
+			reconciling.addAll(toReconcile);
 			toReconcile.clear();
 		}
 		if (cusToReconcile.isEmpty()) {
 			return Status.OK_STATUS;
 		}
-		// first reconcile all units with content changes
-		SubMonitor progress = SubMonitor.convert(monitor, cusToReconcile.size() + 1);
-		for (ICompilationUnit cu : cusToReconcile) {
-			cu.reconcile(ICompilationUnit.NO_AST, true, null, progress.newChild(1));
-		}
-		this.sharedASTProvider.invalidateAll();
-		List<ICompilationUnit> toValidate = Arrays.asList(JavaCore.getWorkingCopies(null));
-		List<CompilationUnit> astRoots = this.sharedASTProvider.getASTs(toValidate, monitor);
-		for (CompilationUnit astRoot : astRoots) {
-			// report errors, even if there are no problems in the file: The client need to know that they got fixed.
-			DiagnosticsHandler handler = new DiagnosticsHandler(connection, (ICompilationUnit) astRoot.getTypeRoot());
-			handler.beginReporting();
-
-			for (IProblem problem : astRoot.getProblems()) {
-				handler.acceptProblem(problem);
+		ServerMetrics metrics = ServerMetrics.getInstance();
+		ServerMetrics.Sample sample = metrics.start(VALIDATION_METRIC);
+		try {
+			// first reconcile all units with content changes
+			SubMonitor progress = SubMonitor.convert(monitor, cusToReconcile.size() + 1);
+			Set<String> changedTypes;
+			try {
+				changedTypes = reconcile(cusToReconcile, progress);
+			} finally {
+				synchronized (toReconcile) {
+					reconciling.removeAll(cusToReconcile);
+				}
+			}
+			// then revalidate them, and the units depending on their API if it changed
+			List<ICompilationUnit> toValidate = new ArrayList<>();
+			for (ICompilationUnit cu : JavaCore.getWorkingCopies(null)) {
+				if (cusToReconcile.contains(cu)) {
+					toValidate.add(cu);
+				} else if (dependencies.references(cu, changedTypes)) {
+					this.sharedASTProvider.outdate(cu);
+					toValidate.add(cu);
+				}
 			}
-			handler.endReporting();
+			List<CompilationUnit> astRoots = this.sharedASTProvider.getASTs(toValidate, progress.newChild(1));
+			for (CompilationUnit astRoot : astRoots) {
+				if (astRoot == null) {
+					continue;
+				}
+				dependencies.updateReferences(astRoot);
+				if (prewarmer != null && cusToReconcile.contains(astRoot.getTypeRoot())) {
+					prewarmer.prewarmReferences(astRoot);
+				}
+				// report errors, even if there are no problems in the file: The client need to know that they got fixed.
+				DiagnosticsHandler handler = new DiagnosticsHandler(connection, (ICompilationUnit) astRoot.getTypeRoot());
+				handler.beginReporting();
+
+				for (IProblem problem : astRoot.getProblems()) {
+					handler.acceptProblem(problem);
+				}
+				handler.endReporting();
+			}
+			metrics.increment(VALIDATION_METRIC + ".reconciled", cusToReconcile.size());
+			metrics.increment(VALIDATION_METRIC + ".validated", toValidate.size());
+			sample.stop();
+			if (JavaLanguageServerPlugin.isLoggable(IStatus.INFO)) {
+				JavaLanguageServerPlugin.logInfo("Reconciled " + cusToReconcile.size() + ", validated: " + toValidate.size() + ". Took " + (System.currentTimeMillis() - start) + " ms");
+			}
+			return Status.OK_STATUS;
+		} catch (JavaModelException | RuntimeException e) {
+			sample.stop(e);
+			throw e;
 		}
-		JavaLanguageServerPlugin.logInfo("Reconciled " + toReconcile.size() + ", validated: " + toValidate.size() + ". Took " + (System.currentTimeMillis() - start) + " ms");
-		return Status.OK_STATUS;
 	}
 
-	public void didClose(DidCloseTextDocumentParams params) {
-		try {
-			ResourcesPlugin.getWorkspace().run(new IWorkspaceRunnable() {
-				@Override
-				public void run(IProgressMonitor monitor) throws CoreException {
-					handleClosed(params);
+	/**
+	 * Reconciles the given units, in parallel if there are several of them.
+	 * The AST of each reconcile is cached, and reused to report its problems.
+	 *
+	 * @return the simple names of the types whose API may have changed
+	 */
+	private Set<String> reconcile(List<ICompilationUnit> units, SubMonitor progress) throws JavaModelException {
+		Set<String> changedTypes = new HashSet<>();
+		if (units.size() == 1) {
+			changedTypes.addAll(reconcile(units.get(0), progress.newChild(1)));
+			return changedTypes;
+		}
+		// SubMonitor is not thread safe, only forward the cancellation to the reconciles
+		IProgressMonitor cancellation = new NullProgressMonitor() {
+			@Override
+			public boolean isCanceled() {
+				return progress.isCanceled();
+			}
+		};
+		List<CompletableFuture<Set<String>>> reconciles = new ArrayList<>(units.size());
+		for (ICompilationUnit unit : units) {
+			reconciles.add(CompletableFuture.supplyAsync(() -> {
+				try {
+					return reconcile(unit, cancellation);
+				} catch (JavaModelException e) {
+					throw new CompletionException(e);
 				}
-			}, new NullProgressMonitor());
-		} catch (CoreException e) {
-			JavaLanguageServerPlugin.logException("Handle document close ", e);
+			}, RECONCILE_EXECUTOR));
 		}
+		try {
+			for (CompletableFuture<Set<String>> reconcile : reconciles) {
+				changedTypes.addAll(reconcile.join());
+			}
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof JavaModelException) {
+				throw (JavaModelException) e.getCause();
+			}
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw e;
+		}
+		progress.worked(units.size());
+		return changedTypes;
 	}
 
-	public void didOpen(DidOpenTextDocumentParams params) {
-		try {
-			ResourcesPlugin.getWorkspace().run(new IWorkspaceRunnable() {
-				@Override
-				public void run(IProgressMonitor monitor) throws CoreException {
-					handleOpen(params);
+	private Set<String> reconcile(ICompilationUnit unit, IProgressMonitor monitor) throws JavaModelException {
+		long start = System.currentTimeMillis();
+		this.sharedASTProvider.reconcile(unit, monitor);
+		validationDelay.reconciled(unit.getHandleIdentifier(), System.currentTimeMillis() - start);
+		return dependencies.updateApi(unit);
+	}
+
+	/**
+	 * Buffer operations only touch the working copy of the document, so they
+	 * run under a lock of the document rather than the workspace root rule,
+	 * and don't wait for builds, imports or the validation job.
+	 *
+	 * @param release
+	 *            whether to discard the lock of the document once the
+	 *            operation ran, when it is closed
+	 */
+	private void runLocked(String uri, boolean release, Runnable operation) {
+		while (true) {
+			Object lock = documentLocks.computeIfAbsent(uri, u -> new Object());
+			synchronized (lock) {
+				// the lock was released by a close while waiting for it
+				if (documentLocks.get(uri) != lock) {
+					continue;
 				}
-			}, new NullProgressMonitor());
-		} catch (CoreException e) {
-			JavaLanguageServerPlugin.logException("Handle document open ", e);
+				try {
+					operation.run();
+				} finally {
+					if (release) {
+						documentLocks.remove(uri, lock);
+					}
+				}
+				return;
+			}
 		}
 	}
 
+	public void didClose(DidCloseTextDocumentParams params) {
+		runLocked(params.getTextDocument().getUri(), true, () -> handleClosed(params));
+	}
+
+	public void didOpen(DidOpenTextDocumentParams params) {
+		runLocked(params.getTextDocument().getUri(), false, () -> handleOpen(params));
+	}
+
 	public void didChange(DidChangeTextDocumentParams params) {
-		try {
-			ResourcesPlugin.getWorkspace().run(new IWorkspaceRunnable() {
-				@Override
-				public void run(IProgressMonitor monitor) throws CoreException {
-					handleChanged(params);
-				}
-			}, new NullProgressMonitor());
-		} catch (CoreException e) {
-			JavaLanguageServerPlugin.logException("Handle document change ", e);
-		}
+		runLocked(params.getTextDocument().getUri(), false, () -> handleChanged(params));
 	}
 
 	public void didSave(DidSaveTextDocumentParams params) {
@@ -216,7 +382,9 @@ public class DocumentLifeCycleHandler {
 			if (reportOnlySyntaxErrors) {
 				Severity severity = preferenceManager.getPreferences(project).getIncompleteClasspathSeverity();
 				String msg = "Classpath is incomplete. Only syntax errors will be reported";
-				JavaLanguageServerPlugin.logInfo(msg +" for "+uri);
+				if (JavaLanguageServerPlugin.isLoggable(IStatus.INFO)) {
+					JavaLanguageServerPlugin.logInfo(msg +" for "+uri);
+				}
 				if (severity.compareTo(Preferences.Severity.ignore) > 0){
 					ActionableNotification ignoreIncompleteClasspath = new ActionableNotification()
 							.withSeverity(severity.toMessageType())
@@ -250,7 +418,7 @@ public class DocumentLifeCycleHandler {
 		}
 
 		try {
-			sharedASTProvider.invalidate(unit);
+			sharedASTProvider.outdate(unit);
 			List<TextDocumentContentChangeEvent> contentChanges = params.getContentChanges();
 			for (TextDocumentContentChangeEvent changeEvent : contentChanges) {
 
@@ -279,6 +447,8 @@ public class DocumentLifeCycleHandler {
 				IDocument document = JsonRpcHelpers.toDocument(unit.getBuffer());
 				edit.apply(document, TextEdit.NONE);
 			}
+			// again after the edits, so that an AST created while they were applied is not taken for the new content
+			sharedASTProvider.outdate(unit);
 			triggerValidation(unit);
 		} catch (JavaModelException | MalformedTreeException | BadLocationException e) {
 			JavaLanguageServerPlugin.logException("Error while handling document change", e);
@@ -293,10 +463,18 @@ public class DocumentLifeCycleHandler {
 		}
 		try {
 			sharedASTProvider.invalidate(unit);
+			dependencies.remove(unit);
+			validationDelay.remove(unit.getHandleIdentifier());
 			unit.discardWorkingCopy();
 		} catch (CoreException e) {
 			JavaLanguageServerPlugin.logException("Error while handling document close", e);
 		}
+		// the responses are stored by the location of the resource, a document outside of the workspace has none
+		IResource resource = unit.getResource();
+		URI location = resource == null ? null : resource.getLocationURI();
+		if (location != null) {
+			CompletionResponses.delete(location.toString());
+		}
 	}
 
 	public void handleSaved(DidSaveTextDocumentParams params) {
@@ -11,7 +11,6 @@
 package org.eclipse.jdt.ls.core.internal.handlers;
 
 import static org.eclipse.jdt.ls.core.internal.JavaLanguageServerPlugin.logInfo;
-import static org.eclipse.lsp4j.jsonrpc.CompletableFutures.computeAsync;
 
 import java.util.Collections;
 import java.util.HashSet;
@@ -21,8 +20,10 @@ import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jdt.core.WorkingCopyOwner;
@@ -33,7 +34,11 @@ import org.eclipse.jdt.ls.core.internal.JavaClientConnection.JavaLanguageClient;
 import org.eclipse.jdt.ls.core.internal.JavaLanguageServerPlugin;
 import org.eclipse.jdt.ls.core.internal.JavaProtocolExtensions;
 import org.eclipse.jdt.ls.core.internal.LanguageServerWorkingCopyOwner;
+import org.eclipse.jdt.ls.core.internal.ServerMetrics;
 import org.eclipse.jdt.ls.core.internal.ServiceStatus;
+import org.eclipse.jdt.ls.core.internal.SharedASTProvider;
+import org.eclipse.jdt.ls.core.internal.TypeNameIndex;
+import org.eclipse.jdt.ls.core.internal.handlers.RequestScheduler.Lane;
 import org.eclipse.jdt.ls.core.internal.managers.ProjectsManager;
 import org.eclipse.jdt.ls.core.internal.preferences.PreferenceManager;
 import org.eclipse.jdt.ls.core.internal.preferences.Preferences;
@@ -93,6 +98,8 @@ public class JDTLanguageServer implements LanguageServer, TextDocumentService, W
 	private LanguageServerWorkingCopyOwner workingCopyOwner;
 	private PreferenceManager preferenceManager;
 	private DocumentLifeCycleHandler documentLifeCycleHandler;
+	private final RequestScheduler scheduler = new RequestScheduler();
+	private final Prewarmer prewarmer = new Prewarmer(SharedASTProvider.getInstance(), () -> scheduler.getQueueDepth(Lane.INTERACTIVE) + scheduler.getActiveCount(Lane.INTERACTIVE) > 0);
 
 	private Set<String> registeredCapabilities = new HashSet<>(3);
 
@@ -103,6 +110,17 @@ public class JDTLanguageServer implements LanguageServer, TextDocumentService, W
 	public JDTLanguageServer(ProjectsManager projects, PreferenceManager preferenceManager) {
 		this.pm = projects;
 		this.preferenceManager = preferenceManager;
+		registerSchedulerGauges();
+	}
+
+	private void registerSchedulerGauges() {
+		ServerMetrics metrics = ServerMetrics.getInstance();
+		for (Lane lane : Lane.values()) {
+			String prefix = "scheduler." + lane.name().toLowerCase();
+			metrics.registerGauge(prefix + ".queued", () -> scheduler.getQueueDepth(lane));
+			metrics.registerGauge(prefix + ".active", () -> scheduler.getActiveCount(lane));
+		}
+		metrics.registerGauge("scheduler.superseded", scheduler::getSupersededCount);
 	}
 
 	public void connectClient(JavaLanguageClient client) {
@@ -110,7 +128,7 @@ public class JDTLanguageServer implements LanguageServer, TextDocumentService, W
 		this.workingCopyOwner = new LanguageServerWorkingCopyOwner(this.client);
 		pm.setConnection(client);
 		WorkingCopyOwner.setPrimaryBufferProvider(this.workingCopyOwner);
-		this.documentLifeCycleHandler = new DocumentLifeCycleHandler(this.client, preferenceManager, pm, true);
+		this.documentLifeCycleHandler = new DocumentLifeCycleHandler(this.client, preferenceManager, pm, true, prewarmer);
 	}
 
 	/* (non-Javadoc)
@@ -139,6 +157,12 @@ public class JDTLanguageServer implements LanguageServer, TextDocumentService, W
 	@Override
 	public void exit() {
 		logInfo(">> exit");
+		scheduler.shutdown();
+		prewarmer.dispose();
+		if (documentLifeCycleHandler != null) {
+			documentLifeCycleHandler.dispose();
+		}
+		TypeNameIndex.getInstance().dispose();
 		Executors.newSingleThreadScheduledExecutor().schedule(() -> {
 			logInfo("Forcing exit after 1 min.");
 			System.exit(FORCED_EXIT_CODE);
@@ -173,7 +197,7 @@ public class JDTLanguageServer implements LanguageServer, TextDocumentService, W
 	public CompletableFuture<List<? extends SymbolInformation>> symbol(WorkspaceSymbolParams params) {
 		logInfo(">> workspace/symbol");
 		WorkspaceSymbolHandler handler = new WorkspaceSymbolHandler();
-		return computeAsync((cc) -> {
+		return scheduler.computeAsync("workspace/symbol", Lane.BACKGROUND, (cc) -> {
 			return handler.search(params.getQuery(), toMonitor(cc));
 		});
 	}
@@ -184,6 +208,10 @@ public class JDTLanguageServer implements LanguageServer, TextDocumentService, W
 	@Override
 	public void didChangeConfiguration(DidChangeConfigurationParams params) {
 		logInfo(">> workspace/didChangeConfiguration");
+		timed("workspace/didChangeConfiguration", () -> updateConfiguration(params));
+	}
+
+	private void updateConfiguration(DidChangeConfigurationParams params) {
 		Object settings = params.getSettings();
 		if (settings instanceof Map) {
 			@SuppressWarnings("unchecked")
@@ -220,7 +248,9 @@ public class JDTLanguageServer implements LanguageServer, TextDocumentService, W
 				unregisterCapability(Preferences.SIGNATURE_HELP_ID, Preferences.TEXT_DOCUMENT_SIGNATURE_HELP);
 			}
 		}
-		logInfo(">>New configuration: " + settings);
+		if (JavaLanguageServerPlugin.isLoggable(IStatus.INFO)) {
+			logInfo(">>New configuration: " + settings);
+		}
 	}
 
 	/* (non-Javadoc)
@@ -230,7 +260,7 @@ public class JDTLanguageServer implements LanguageServer, TextDocumentService, W
 	public void didChangeWatchedFiles(DidChangeWatchedFilesParams params) {
 		logInfo(">> workspace/didChangeWatchedFiles");
 		WorkspaceEventsHandler handler = new WorkspaceEventsHandler(pm, client);
-		handler.didChangeWatchedFiles(params);
+		timed("workspace/didChangeWatchedFiles", () -> handler.didChangeWatchedFiles(params));
 	}
 
 	/* (non-Javadoc)
@@ -239,8 +269,8 @@ public class JDTLanguageServer implements LanguageServer, TextDocumentService, W
 	@Override
 	public CompletableFuture<Either<List<CompletionItem>, CompletionList>> completion(TextDocumentPositionParams position) {
 		logInfo(">> document/completion");
-		CompletionHandler handler = new CompletionHandler();
-		return computeAsync((cc) -> handler.completion(position, toMonitor(cc)));
+		CompletionHandler handler = new CompletionHandler(preferenceManager);
+		return scheduler.computeAsync("textDocument/completion", Lane.INTERACTIVE, position.getTextDocument().getUri(), (cc) -> handler.completion(position, toMonitor(cc)));
 	}
 
 	/* (non-Javadoc)
@@ -250,7 +280,7 @@ public class JDTLanguageServer implements LanguageServer, TextDocumentService, W
 	public CompletableFuture<CompletionItem> resolveCompletionItem(CompletionItem unresolved) {
 		logInfo(">> document/resolveCompletionItem");
 		CompletionResolveHandler handler = new CompletionResolveHandler(preferenceManager);
-		return computeAsync((cc) -> handler.resolve(unresolved, toMonitor(cc)));
+		return scheduler.computeAsync("completionItem/resolve", Lane.INTERACTIVE, (cc) -> handler.resolve(unresolved, toMonitor(cc)));
 	}
 
 	/* (non-Javadoc)
@@ -260,7 +290,7 @@ public class JDTLanguageServer implements LanguageServer, TextDocumentService, W
 	public CompletableFuture<Hover> hover(TextDocumentPositionParams position) {
 		logInfo(">> document/hover");
 		HoverHandler handler = new HoverHandler();
-		return computeAsync((cc) -> handler.hover(position, toMonitor(cc)));
+		return scheduler.computeAsync("textDocument/hover", Lane.INTERACTIVE, (cc) -> handler.hover(position, toMonitor(cc)));
 	}
 
 	/* (non-Javadoc)
@@ -270,7 +300,7 @@ public class JDTLanguageServer implements LanguageServer, TextDocumentService, W
 	public CompletableFuture<SignatureHelp> signatureHelp(TextDocumentPositionParams position) {
 		logInfo(">> document/signatureHelp");
 		SignatureHelpHandler handler = new SignatureHelpHandler(preferenceManager);
-		return computeAsync((cc) -> handler.signatureHelp(position, toMonitor(cc)));
+		return scheduler.computeAsync("textDocument/signatureHelp", Lane.INTERACTIVE, position.getTextDocument().getUri(), (cc) -> handler.signatureHelp(position, toMonitor(cc)));
 	}
 
 	/* (non-Javadoc)
@@ -279,8 +309,8 @@ public class JDTLanguageServer implements LanguageServer, TextDocumentService, W
 	@Override
 	public CompletableFuture<List<? extends Location>> definition(TextDocumentPositionParams position) {
 		logInfo(">> document/definition");
-		NavigateToDefinitionHandler handler = new NavigateToDefinitionHandler();
-		return computeAsync((cc) -> handler.definition(position, toMonitor(cc)));
+		NavigateToDefinitionHandler handler = new NavigateToDefinitionHandler(prewarmer);
+		return scheduler.computeAsync("textDocument/definition", Lane.INTERACTIVE, (cc) -> handler.definition(position, toMonitor(cc)));
 	}
 
 	/* (non-Javadoc)
@@ -290,7 +320,7 @@ public class JDTLanguageServer implements LanguageServer, TextDocumentService, W
 	public CompletableFuture<List<? extends Location>> references(ReferenceParams params) {
 		logInfo(">> document/references");
 		ReferencesHandler handler = new ReferencesHandler();
-		return computeAsync((cc) -> handler.findReferences(params, toMonitor(cc)));
+		return scheduler.computeAsync("textDocument/references", Lane.BACKGROUND, (cc) -> handler.findReferences(params, toMonitor(cc)));
 	}
 
 	/* (non-Javadoc)
@@ -300,7 +330,7 @@ public class JDTLanguageServer implements LanguageServer, TextDocumentService, W
 	public CompletableFuture<List<? extends DocumentHighlight>> documentHighlight(TextDocumentPositionParams position) {
 		logInfo(">> document/documentHighlight");
 		DocumentHighlightHandler handler = new DocumentHighlightHandler();
-		return computeAsync((cc) -> handler.documentHighlight(position, toMonitor(cc)));
+		return scheduler.computeAsync("textDocument/documentHighlight", Lane.INTERACTIVE, position.getTextDocument().getUri(), (cc) -> handler.documentHighlight(position, toMonitor(cc)));
 	}
 
 	/* (non-Javadoc)
@@ -310,7 +340,7 @@ public class JDTLanguageServer implements LanguageServer, TextDocumentService, W
 	public CompletableFuture<List<? extends SymbolInformation>> documentSymbol(DocumentSymbolParams params) {
 		logInfo(">> document/documentSymbol");
 		DocumentSymbolHandler handler = new DocumentSymbolHandler();
-		return computeAsync((cc) -> handler.documentSymbol(params, toMonitor(cc)));
+		return scheduler.computeAsync("textDocument/documentSymbol", Lane.INTERACTIVE, (cc) -> handler.documentSymbol(params, toMonitor(cc)));
 	}
 
 	/* (non-Javadoc)
@@ -320,7 +350,7 @@ public class JDTLanguageServer implements LanguageServer, TextDocumentService, W
 	public CompletableFuture<List<? extends Command>> codeAction(CodeActionParams params) {
 		logInfo(">> document/codeAction");
 		CodeActionHandler handler = new CodeActionHandler();
-		return computeAsync((cc) -> handler.getCodeActionCommands(params, toMonitor(cc)));
+		return scheduler.computeAsync("textDocument/codeAction", Lane.INTERACTIVE, (cc) -> handler.getCodeActionCommands(params, toMonitor(cc)));
 	}
 
 	/* (non-Javadoc)
@@ -330,7 +360,7 @@ public class JDTLanguageServer implements LanguageServer, TextDocumentService, W
 	public CompletableFuture<List<? extends CodeLens>> codeLens(CodeLensParams params) {
 		logInfo(">> document/codeLens");
 		CodeLensHandler handler = new CodeLensHandler(preferenceManager);
-		return computeAsync((cc) -> {
+		return scheduler.computeAsync("textDocument/codeLens", Lane.BACKGROUND, (cc) -> {
 			IProgressMonitor monitor = toMonitor(cc);
 			try {
 				Job.getJobManager().join(DocumentLifeCycleHandler.DOCUMENT_LIFE_CYCLE_JOBS, monitor);
@@ -350,7 +380,7 @@ public class JDTLanguageServer implements LanguageServer, TextDocumentService, W
 	public CompletableFuture<CodeLens> resolveCodeLens(CodeLens unresolved) {
 		logInfo(">> codeLens/resolve");
 		CodeLensHandler handler = new CodeLensHandler(preferenceManager);
-		return computeAsync((cc) -> handler.resolve(unresolved, toMonitor(cc)));
+		return scheduler.computeAsync("codeLens/resolve", Lane.BACKGROUND, (cc) -> handler.resolve(unresolved, toMonitor(cc)));
 	}
 
 	/* (non-Javadoc)
@@ -360,7 +390,7 @@ public class JDTLanguageServer implements LanguageServer, TextDocumentService, W
 	public CompletableFuture<List<? extends TextEdit>> formatting(DocumentFormattingParams params) {
 		logInfo(">> document/formatting");
 		FormatterHandler handler = new FormatterHandler(preferenceManager);
-		return computeAsync((cc) -> handler.formatting(params, toMonitor(cc)));
+		return scheduler.computeAsync("textDocument/formatting", Lane.INTERACTIVE, (cc) -> handler.formatting(params, toMonitor(cc)));
 	}
 
 	/* (non-Javadoc)
@@ -370,7 +400,7 @@ public class JDTLanguageServer implements LanguageServer, TextDocumentService, W
 	public CompletableFuture<List<? extends TextEdit>> rangeFormatting(DocumentRangeFormattingParams params) {
 		logInfo(">> document/rangeFormatting");
 		FormatterHandler handler = new FormatterHandler(preferenceManager);
-		return computeAsync((cc) -> handler.rangeFormatting(params, toMonitor(cc)));
+		return scheduler.computeAsync("textDocument/rangeFormatting", Lane.INTERACTIVE, (cc) -> handler.rangeFormatting(params, toMonitor(cc)));
 	}
 
 	/* (non-Javadoc)
@@ -399,7 +429,7 @@ public class JDTLanguageServer implements LanguageServer, TextDocumentService, W
 	@Override
 	public void didOpen(DidOpenTextDocumentParams params) {
 		logInfo(">> document/didOpen");
-		documentLifeCycleHandler.didOpen(params);
+		timed("textDocument/didOpen", () -> documentLifeCycleHandler.didOpen(params));
 	}
 
 	/* (non-Javadoc)
@@ -408,7 +438,7 @@ public class JDTLanguageServer implements LanguageServer, TextDocumentService, W
 	@Override
 	public void didChange(DidChangeTextDocumentParams params) {
 		logInfo(">> document/didChange");
-		documentLifeCycleHandler.didChange(params);
+		timed("textDocument/didChange", () -> documentLifeCycleHandler.didChange(params));
 	}
 
 	/* (non-Javadoc)
@@ -417,7 +447,7 @@ public class JDTLanguageServer implements LanguageServer, TextDocumentService, W
 	@Override
 	public void didClose(DidCloseTextDocumentParams params) {
 		logInfo(">> document/didClose");
-		documentLifeCycleHandler.didClose(params);
+		timed("textDocument/didClose", () -> documentLifeCycleHandler.didClose(params));
 	}
 
 	/* (non-Javadoc)
@@ -426,7 +456,7 @@ public class JDTLanguageServer implements LanguageServer, TextDocumentService, W
 	@Override
 	public void didSave(DidSaveTextDocumentParams params) {
 		logInfo(">> document/didSave");
-		documentLifeCycleHandler.didSave(params);
+		timed("textDocument/didSave", () -> documentLifeCycleHandler.didSave(params));
 	}
 
 	/* (non-Javadoc)
@@ -436,7 +466,7 @@ public class JDTLanguageServer implements LanguageServer, TextDocumentService, W
 	public CompletableFuture<String> classFileContents(TextDocumentIdentifier param) {
 		logInfo(">> java/classFileContents");
 		ClassfileContentHandler handler = new ClassfileContentHandler();
-		return computeAsync((cc) -> handler.contents(param, toMonitor(cc)));
+		return scheduler.computeAsync("java/classFileContents", Lane.INTERACTIVE, (cc) -> handler.contents(param, toMonitor(cc)));
 	}
 
 	/* (non-Javadoc)
@@ -446,21 +476,34 @@ public class JDTLanguageServer implements LanguageServer, TextDocumentService, W
 	public void projectConfigurationUpdate(TextDocumentIdentifier param) {
 		logInfo(">> java/projectConfigurationUpdate");
 		ProjectConfigurationUpdateHandler handler = new ProjectConfigurationUpdateHandler(pm);
-		handler.updateConfiguration(param);
+		timed("java/projectConfigurationUpdate", () -> handler.updateConfiguration(param));
 	}
 
 	@Override
 	public CompletableFuture<String> startDebugSession(String type) {
 		logInfo(">> java/startDebugSession");
 		StartDebugSessionHandler handler = new StartDebugSessionHandler();
-		return handler.startDebugServer(type);
+		return timedAsync("java/startDebugSession", () -> handler.startDebugServer(type));
 	}
 
 	@Override
 	public CompletableFuture<String[]> resolveClasspaths(ClasspathResolveRequestParams param) {
 		logInfo(">> java/resolveClasspath");
 		ResolveClasspathsHandler handler = new ResolveClasspathsHandler();
-		return handler.resolveClasspaths(param);
+		return timedAsync("java/resolveClasspath", () -> handler.resolveClasspaths(param));
+	}
+
+	public RequestScheduler getScheduler() {
+		return scheduler;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.jdt.ls.core.internal.JavaProtocolExtensions#serverMetrics()
+	 */
+	@Override
+	public CompletableFuture<Map<String, Object>> serverMetrics() {
+		logInfo(">> java/serverMetrics");
+		return CompletableFuture.completedFuture(ServerMetrics.getInstance().snapshot());
 	}
 
 	public void sendStatus(ServiceStatus serverStatus, String status) {
@@ -469,6 +512,37 @@ public class JDTLanguageServer implements LanguageServer, TextDocumentService, W
 		}
 	}
 
+	/**
+	 * Runs the given notification handler, timed under the given method.
+	 */
+	private void timed(String method, Runnable handler) {
+		ServerMetrics.Sample sample = ServerMetrics.getInstance().start(method);
+		try {
+			handler.run();
+			sample.stop();
+		} catch (RuntimeException | Error e) {
+			sample.stop(e);
+			throw e;
+		}
+	}
+
+	/**
+	 * @return the future of the given request handler, which isn't run by the
+	 *         scheduler, timed under the given method until it completes
+	 */
+	private <R> CompletableFuture<R> timedAsync(String method, Supplier<CompletableFuture<R>> handler) {
+		ServerMetrics.Sample sample = ServerMetrics.getInstance().start(method);
+		CompletableFuture<R> result;
+		try {
+			result = handler.get();
+		} catch (RuntimeException | Error e) {
+			sample.stop(e);
+			throw e;
+		}
+		result.whenComplete((r, e) -> sample.stop(e));
+		return result;
+	}
+
 	private IProgressMonitor toMonitor(CancelChecker checker) {
 		return new CancellableProgressMonitor(checker);
 	}
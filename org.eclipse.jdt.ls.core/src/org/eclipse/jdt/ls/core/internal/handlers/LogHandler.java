@@ -13,32 +13,53 @@ package org.eclipse.jdt.ls.core.internal.handlers;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.text.DateFormat;
-import java.util.Calendar;
+import java.util.Date;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.eclipse.core.runtime.ILogListener;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Platform;
 import org.eclipse.jdt.ls.core.internal.JavaClientConnection;
+import org.eclipse.jdt.ls.core.internal.JavaLanguageServerPlugin;
 import org.eclipse.lsp4j.MessageType;
 
 /**
  * The LogHandler hooks in the Eclipse log and forwards all Eclipse log messages to
  * the the client. In VSCode you can see all the messages in the Output view, in the
  * 'Java Language Support' channel.
+ *
+ * Messages are formatted and sent from a dedicated thread, consecutive messages
+ * of the same type being batched in a single notification.
  */
 public class LogHandler {
 
+	/**
+	 * Maximum number of log messages sent in a single notification.
+	 */
+	private static final int MAX_BATCH_SIZE = 50;
+
 	private ILogListener logListener;
 	private DateFormat dateFormat;
 	private int logLevelMask;
 	private JavaClientConnection connection;
-	private Calendar calendar;
+	private ExecutorService executor;
+	private final Queue<LogEntry> pending = new ConcurrentLinkedQueue<>();
+	private final AtomicBoolean flushScheduled = new AtomicBoolean();
 
 	public void install(JavaClientConnection rcpConnection) {
 		this.dateFormat = DateFormat.getDateTimeInstance(DateFormat.MEDIUM, DateFormat.MEDIUM);
-		this.logLevelMask = getLogLevelMask(System.getProperty("log.level", ""));//Empty by default
-		this.calendar = Calendar.getInstance();
+		this.logLevelMask = JavaLanguageServerPlugin.getLogSeverityMask(System.getProperty("log.level"));
 		this.connection = rcpConnection;
+		this.executor = Executors.newSingleThreadExecutor(r -> {
+			Thread thread = new Thread(r, "jdt.ls-client-log");
+			thread.setDaemon(true);
+			return thread;
+		});
 
 		this.logListener = new ILogListener() {
 			@Override
@@ -51,34 +72,62 @@ public class LogHandler {
 
 	public void uninstall() {
 		Platform.removeLogListener(this.logListener);
+		if (executor != null) {
+			// already scheduled messages are still sent
+			executor.shutdown();
+		}
 	}
 
-	private int getLogLevelMask(String logLevel) {
-		switch (logLevel) {
-		case "ALL":
-			return -1;
-		case "ERROR":
-			return IStatus.ERROR;
-		case "WARNING":
-		default:
-			return IStatus.ERROR | IStatus.WARNING;
+	/**
+	 * For testing purposes
+	 */
+	public void processLogMessage(IStatus status) {
+		if (!status.matches(this.logLevelMask)) {
+			return;
+		}
+		pending.add(new LogEntry(status, System.currentTimeMillis()));
+		if (flushScheduled.compareAndSet(false, true)) {
+			try {
+				executor.execute(this::flush);
+			} catch (RejectedExecutionException e) {
+				// the handler was uninstalled
+			}
+		}
+	}
 
+	private void flush() {
+		flushScheduled.set(false);
+		StringBuilder batch = new StringBuilder();
+		MessageType batchType = null;
+		int batchSize = 0;
+		LogEntry entry;
+		while ((entry = pending.poll()) != null) {
+			MessageType type = getMessageTypeFromSeverity(entry.status.getSeverity());
+			if (batchSize > 0 && (type != batchType || batchSize == MAX_BATCH_SIZE)) {
+				connection.logMessage(batchType, batch.toString());
+				batch.setLength(0);
+				batchSize = 0;
+			}
+			if (batchSize > 0) {
+				batch.append('\n');
+			}
+			format(entry, batch);
+			batchType = type;
+			batchSize++;
+		}
+		if (batchSize > 0) {
+			connection.logMessage(batchType, batch.toString());
 		}
 	}
 
-	private void processLogMessage(IStatus status) {
-		String dateString = this.dateFormat.format(this.calendar.getTime());
-		String message = status.getMessage();
+	private void format(LogEntry entry, StringBuilder builder) {
+		IStatus status = entry.status;
+		builder.append(this.dateFormat.format(new Date(entry.timestamp))).append(' ').append(status.getMessage());
 		if (status.getException() != null) {
-			message = message + '\n' + status.getException().getMessage();
+			builder.append('\n').append(status.getException().getMessage());
 			StringWriter sw = new StringWriter();
 			status.getException().printStackTrace(new PrintWriter(sw));
-			String exceptionAsString = sw.toString();
-			message = message + '\n' + exceptionAsString;
-		}
-
-		if (status.matches(this.logLevelMask)) {
-			connection.logMessage(getMessageTypeFromSeverity(status.getSeverity()), dateString + ' '+ message);
+			builder.append('\n').append(sw.toString());
 		}
 	}
 
@@ -95,4 +144,15 @@ public class LogHandler {
 		}
 	}
 
+	private static final class LogEntry {
+
+		private final IStatus status;
+		private final long timestamp;
+
+		LogEntry(IStatus status, long timestamp) {
+			this.status = status;
+			this.timestamp = timestamp;
+		}
+	}
+
 }
@@ -28,6 +28,21 @@ import org.eclipse.lsp4j.TextDocumentPositionParams;
 
 public class NavigateToDefinitionHandler {
 
+	private final Prewarmer prewarmer;
+
+	public NavigateToDefinitionHandler() {
+		this(null);
+	}
+
+	/**
+	 * @param prewarmer
+	 *            prepares the units of the definitions, likely to be opened
+	 *            next, may be <code>null</code>
+	 */
+	public NavigateToDefinitionHandler(Prewarmer prewarmer) {
+		this.prewarmer = prewarmer;
+	}
+
 	public List<? extends Location> definition(TextDocumentPositionParams position, IProgressMonitor monitor) {
 		ITypeRoot unit = JDTUtils.resolveTypeRoot(position.getTextDocument().getUri());
 		Location location = null;
@@ -50,6 +65,9 @@ public class NavigateToDefinitionHandler {
 			}
 			ICompilationUnit compilationUnit = (ICompilationUnit) element.getAncestor(IJavaElement.COMPILATION_UNIT);
 			IClassFile cf = (IClassFile) element.getAncestor(IJavaElement.CLASS_FILE);
+			if (prewarmer != null) {
+				prewarmer.prewarm(compilationUnit != null ? compilationUnit : cf);
+			}
 			if (compilationUnit != null || (cf != null && cf.getSourceRange() != null)  ) {
 				return JDTUtils.toLocation(element);
 			}
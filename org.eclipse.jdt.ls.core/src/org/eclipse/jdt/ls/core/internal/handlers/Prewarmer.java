@@ -0,0 +1,211 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Red Hat Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat Inc. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ls.core.internal.handlers;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.ITypeRoot;
+import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.core.dom.ASTVisitor;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.IBinding;
+import org.eclipse.jdt.core.dom.SimpleName;
+import org.eclipse.jdt.ls.core.internal.JavaLanguageServerPlugin;
+import org.eclipse.jdt.ls.core.internal.ServerMetrics;
+import org.eclipse.jdt.ls.core.internal.SharedASTProvider;
+
+/**
+ * Prepares, in a low priority job, the documents most likely to be used next,
+ * so that the first request on them doesn't pay for opening them.
+ *
+ * The candidates are the definitions just visited, and the types referenced
+ * from the edited documents. The bound AST of an open document is created and
+ * cached, within the memory budget of the AST cache, unless its validation,
+ * which creates it anyway, is pending; other units are opened in the Java
+ * model, with their buffer. The job yields whenever interactive requests are
+ * pending.
+ */
+public class Prewarmer {
+
+	public static final String PREWARM_JOBS = "PrewarmJobs";
+	public static final String PREWARM_METRIC = "document/prewarm";
+
+	private static final int MAX_CANDIDATES = 32;
+	private static final int MAX_REFERENCES = 16;
+	/**
+	 * How long to wait for interactive requests to complete, in milliseconds
+	 */
+	private static final long YIELD_DELAY = 200;
+
+	private final SharedASTProvider sharedASTProvider;
+	private final BooleanSupplier interactiveWork;
+	private volatile Predicate<ICompilationUnit> validationPending = unit -> false;
+	/**
+	 * The candidates, most likely first
+	 */
+	private final Deque<ITypeRoot> candidates = new ArrayDeque<>();
+	private final Job job;
+
+	/**
+	 * @param interactiveWork
+	 *            whether interactive requests are pending
+	 */
+	public Prewarmer(SharedASTProvider sharedASTProvider, BooleanSupplier interactiveWork) {
+		this.sharedASTProvider = sharedASTProvider;
+		this.interactiveWork = interactiveWork;
+		this.job = new Job("Prewarm documents") {
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				return prewarm(monitor);
+			}
+
+			@Override
+			public boolean belongsTo(Object family) {
+				return PREWARM_JOBS.equals(family);
+			}
+		};
+		job.setPriority(Job.DECORATE);
+		job.setSystem(true);
+	}
+
+	/**
+	 * @param validationPending
+	 *            whether the validation of an open document is pending, so
+	 *            that its AST is not created twice
+	 */
+	public void setValidationPending(Predicate<ICompilationUnit> validationPending) {
+		this.validationPending = validationPending;
+	}
+
+	/**
+	 * Prepares the given unit, before the previous candidates.
+	 */
+	public void prewarm(ITypeRoot root) {
+		if (root == null) {
+			return;
+		}
+		synchronized (candidates) {
+			candidates.remove(root);
+			candidates.addFirst(root);
+			trim();
+		}
+		job.schedule();
+	}
+
+	/**
+	 * Prepares the units of the types referenced from the given AST, after the
+	 * previous candidates.
+	 */
+	public void prewarmReferences(CompilationUnit astRoot) {
+		Set<ITypeRoot> references = new LinkedHashSet<>();
+		astRoot.accept(new ASTVisitor() {
+			@Override
+			public boolean visit(SimpleName node) {
+				if (references.size() < MAX_REFERENCES) {
+					IBinding binding = node.resolveBinding();
+					if (binding != null && binding.getKind() == IBinding.TYPE && binding.getJavaElement() instanceof IType) {
+						ITypeRoot root = ((IType) binding.getJavaElement()).getTypeRoot();
+						if (root != null && !root.equals(astRoot.getTypeRoot())) {
+							references.add(root);
+						}
+					}
+				}
+				return false;
+			}
+		});
+		if (references.isEmpty()) {
+			return;
+		}
+		synchronized (candidates) {
+			for (ITypeRoot root : references) {
+				if (!candidates.contains(root)) {
+					candidates.addLast(root);
+				}
+			}
+			trim();
+		}
+		job.schedule();
+	}
+
+	private void trim() {
+		while (candidates.size() > MAX_CANDIDATES) {
+			candidates.removeLast();
+		}
+	}
+
+	private IStatus prewarm(IProgressMonitor monitor) {
+		while (!monitor.isCanceled()) {
+			if (interactiveWork.getAsBoolean()) {
+				job.schedule(YIELD_DELAY);
+				return Status.OK_STATUS;
+			}
+			ITypeRoot root;
+			synchronized (candidates) {
+				root = candidates.pollFirst();
+			}
+			if (root == null) {
+				return Status.OK_STATUS;
+			}
+			prewarm(root, monitor);
+		}
+		return Status.CANCEL_STATUS;
+	}
+
+	private void prewarm(ITypeRoot root, IProgressMonitor monitor) {
+		ServerMetrics.Sample sample = ServerMetrics.getInstance().start(PREWARM_METRIC);
+		try {
+			if (!root.exists()) {
+				sample.cancel();
+				return;
+			}
+			if (root.getElementType() == IJavaElement.COMPILATION_UNIT && ((ICompilationUnit) root).isWorkingCopy()) {
+				if (validationPending.test((ICompilationUnit) root)) {
+					// the reconcile of the validation creates the AST
+					sample.cancel();
+					return;
+				}
+				if (sharedASTProvider.getCacheBytes() >= sharedASTProvider.getMemoryBudget()) {
+					// would evict the AST of a document in use
+					sample.cancel();
+					return;
+				}
+				sharedASTProvider.getAST(root, monitor);
+			} else {
+				root.open(monitor);
+				root.getBuffer();
+			}
+			sample.stop();
+		} catch (JavaModelException e) {
+			sample.stop(e);
+			JavaLanguageServerPlugin.logException("Error while prewarming " + root.getElementName(), e);
+		}
+	}
+
+	public void dispose() {
+		synchronized (candidates) {
+			candidates.clear();
+		}
+		job.cancel();
+	}
+
+}
@@ -0,0 +1,327 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Red Hat Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat Inc. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ls.core.internal.handlers;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.eclipse.jdt.ls.core.internal.JavaLanguageServerPlugin;
+import org.eclipse.jdt.ls.core.internal.ServerMetrics;
+import org.eclipse.lsp4j.jsonrpc.CancelChecker;
+
+/**
+ * Runs language server requests on dedicated thread pools, instead of the
+ * common pool used by
+ * {@link org.eclipse.lsp4j.jsonrpc.CompletableFutures#computeAsync(Function)}.
+ *
+ * Requests are dispatched to one of two {@link Lane}s, so that latency
+ * sensitive requests (completion, hover...) never queue behind long running
+ * ones (references, workspace symbols...). Additionally, the number of
+ * concurrently running requests of a given method can be limited; requests
+ * exceeding that limit wait in a per-method queue without holding a pool
+ * thread. The latency of every request, including the time spent waiting in
+ * queues, is recorded in {@link ServerMetrics}.
+ *
+ * Requests can also be bound to a document: a newer request of the same
+ * method on the same document supersedes, i.e. cancels, the older one, whose
+ * result the client would discard anyway.
+ *
+ * Lane sizes and method limits are configured with the following system
+ * properties:
+ * <ul>
+ * <li><code>jdt.ls.scheduler.interactive</code>: number of interactive
+ * threads</li>
+ * <li><code>jdt.ls.scheduler.background</code>: number of background
+ * threads</li>
+ * <li><code>jdt.ls.scheduler.limits</code>: comma separated
+ * <code>method=limit</code> pairs, e.g.
+ * <code>textDocument/references=1,workspace/symbol=1</code></li>
+ * </ul>
+ */
+public class RequestScheduler {
+
+	public static final String INTERACTIVE_THREADS_PROPERTY = "jdt.ls.scheduler.interactive";
+	public static final String BACKGROUND_THREADS_PROPERTY = "jdt.ls.scheduler.background";
+	public static final String METHOD_LIMITS_PROPERTY = "jdt.ls.scheduler.limits";
+
+	private static final String DEFAULT_METHOD_LIMITS = "textDocument/references=2,workspace/symbol=1,codeLens/resolve=2";
+
+	public enum Lane {
+		/**
+		 * Requests the user is waiting for while typing.
+		 */
+		INTERACTIVE,
+		/**
+		 * Potentially long running requests, which must not delay interactive
+		 * ones.
+		 */
+		BACKGROUND
+	}
+
+	private final Map<Lane, ThreadPoolExecutor> executors = new LinkedHashMap<>();
+	private final Map<String, Integer> methodLimits;
+	private final Map<String, MethodQueue> methodQueues = new ConcurrentHashMap<>();
+	private final Map<String, CompletableFuture<?>> inFlight = new ConcurrentHashMap<>();
+	private final AtomicLong supersededCount = new AtomicLong();
+
+	public RequestScheduler() {
+		this(getIntProperty(INTERACTIVE_THREADS_PROPERTY, Math.max(2, Runtime.getRuntime().availableProcessors())),
+				getIntProperty(BACKGROUND_THREADS_PROPERTY, Math.max(1, Runtime.getRuntime().availableProcessors() / 2)),
+				parseLimits(System.getProperty(METHOD_LIMITS_PROPERTY, DEFAULT_METHOD_LIMITS)));
+	}
+
+	public RequestScheduler(int interactiveThreads, int backgroundThreads, Map<String, Integer> methodLimits) {
+		executors.put(Lane.INTERACTIVE, createExecutor("interactive", interactiveThreads));
+		executors.put(Lane.BACKGROUND, createExecutor("background", backgroundThreads));
+		this.methodLimits = new HashMap<>(methodLimits);
+	}
+
+	/**
+	 * Computes the result of a request asynchronously, on the given lane.
+	 *
+	 * @param method
+	 *            the JSON-RPC method of the request, used to apply concurrency
+	 *            limits
+	 * @param lane
+	 *            the lane to run the request on
+	 * @param code
+	 *            the request computation. The given {@link CancelChecker}
+	 *            reports the cancellation of the returned future
+	 * @return a future completed with the result of the computation. Cancelling
+	 *         it before the computation started prevents it from running at all
+	 */
+	public <R> CompletableFuture<R> computeAsync(String method, Lane lane, Function<CancelChecker, R> code) {
+		return computeAsync(method, lane, null, code);
+	}
+
+	/**
+	 * Computes the result of a request on a document asynchronously, on the
+	 * given lane. Any pending request of the same method on the same document is
+	 * cancelled.
+	 *
+	 * @param method
+	 *            the JSON-RPC method of the request
+	 * @param lane
+	 *            the lane to run the request on
+	 * @param uri
+	 *            the uri of the document the request applies to, or
+	 *            <code>null</code> if the request is never superseded
+	 * @param code
+	 *            the request computation. The given {@link CancelChecker}
+	 *            reports the cancellation of the returned future
+	 * @return a future completed with the result of the computation
+	 */
+	public <R> CompletableFuture<R> computeAsync(String method, Lane lane, String uri, Function<CancelChecker, R> code) {
+		CompletableFuture<R> result = new CompletableFuture<>();
+		ServerMetrics.Sample sample = ServerMetrics.getInstance().start(method);
+		result.whenComplete((r, e) -> sample.stop(e));
+		if (uri != null) {
+			supersede(method + '@' + uri, result);
+		}
+		CancelChecker checker = () -> {
+			if (result.isCancelled()) {
+				throw new CancellationException();
+			}
+		};
+		ThreadPoolExecutor executor = executors.get(lane);
+		MethodQueue queue = getMethodQueue(method);
+		Runnable task = () -> {
+			try {
+				if (!result.isDone()) {
+					result.complete(code.apply(checker));
+				}
+			} catch (Throwable e) {
+				result.completeExceptionally(e);
+			} finally {
+				if (queue != null) {
+					queue.release(executor);
+				}
+			}
+		};
+		if (queue == null) {
+			executor.execute(task);
+		} else {
+			queue.submit(task, executor);
+		}
+		return result;
+	}
+
+	private void supersede(String key, CompletableFuture<?> future) {
+		CompletableFuture<?> previous = inFlight.put(key, future);
+		if (previous != null && previous.cancel(true)) {
+			supersededCount.incrementAndGet();
+		}
+		future.whenComplete((r, e) -> inFlight.remove(key, future));
+	}
+
+	private MethodQueue getMethodQueue(String method) {
+		Integer limit = methodLimits.get(method);
+		if (limit == null || limit <= 0) {
+			return null;
+		}
+		return methodQueues.computeIfAbsent(method, m -> new MethodQueue(limit));
+	}
+
+	/**
+	 * @return the number of requests waiting for a thread of the given lane
+	 */
+	public int getQueueDepth(Lane lane) {
+		return executors.get(lane).getQueue().size();
+	}
+
+	/**
+	 * @return the number of requests currently running on the given lane
+	 */
+	public int getActiveCount(Lane lane) {
+		return executors.get(lane).getActiveCount();
+	}
+
+	/**
+	 * @return the number of requests of the given method held back by its
+	 *         concurrency limit
+	 */
+	public int getWaitingCount(String method) {
+		MethodQueue queue = methodQueues.get(method);
+		return queue == null ? 0 : queue.getWaitingCount();
+	}
+
+	/**
+	 * @return the number of requests cancelled because a newer request of the
+	 *         same method was sent for the same document
+	 */
+	public long getSupersededCount() {
+		return supersededCount.get();
+	}
+
+	/**
+	 * @return a snapshot of the queue depths and active counts of each lane, and
+	 *         of the number of throttled requests per method
+	 */
+	public Map<String, Integer> getStatistics() {
+		Map<String, Integer> statistics = new LinkedHashMap<>();
+		for (Lane lane : Lane.values()) {
+			String name = lane.name().toLowerCase();
+			statistics.put(name + ".queued", getQueueDepth(lane));
+			statistics.put(name + ".active", getActiveCount(lane));
+		}
+		methodQueues.forEach((method, queue) -> statistics.put(method + ".waiting", queue.getWaitingCount()));
+		return statistics;
+	}
+
+	public void shutdown() {
+		executors.values().forEach(ThreadPoolExecutor::shutdownNow);
+	}
+
+	private static ThreadPoolExecutor createExecutor(String name, int threads) {
+		int size = Math.max(1, threads);
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(size, size, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), new NamedThreadFactory("jdt.ls-" + name));
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
+	private static int getIntProperty(String name, int defaultValue) {
+		String value = System.getProperty(name);
+		if (value != null) {
+			try {
+				return Integer.parseInt(value.trim());
+			} catch (NumberFormatException e) {
+				JavaLanguageServerPlugin.logInfo("Invalid value for " + name + ": " + value);
+			}
+		}
+		return defaultValue;
+	}
+
+	public static Map<String, Integer> parseLimits(String value) {
+		Map<String, Integer> limits = new HashMap<>();
+		if (value == null) {
+			return limits;
+		}
+		for (String entry : value.split(",")) {
+			int separator = entry.lastIndexOf('=');
+			if (separator <= 0) {
+				continue;
+			}
+			try {
+				limits.put(entry.substring(0, separator).trim(), Integer.parseInt(entry.substring(separator + 1).trim()));
+			} catch (NumberFormatException e) {
+				JavaLanguageServerPlugin.logInfo("Invalid request limit: " + entry);
+			}
+		}
+		return limits;
+	}
+
+	/**
+	 * Holds back the requests of a method while its concurrency limit is
+	 * reached.
+	 */
+	private static final class MethodQueue {
+
+		private final int limit;
+		private final Deque<Runnable> waiting = new ArrayDeque<>();
+		private int running;
+
+		MethodQueue(int limit) {
+			this.limit = limit;
+		}
+
+		synchronized void submit(Runnable task, ThreadPoolExecutor executor) {
+			if (running < limit) {
+				running++;
+				executor.execute(task);
+			} else {
+				waiting.add(task);
+			}
+		}
+
+		synchronized void release(ThreadPoolExecutor executor) {
+			Runnable next = waiting.poll();
+			if (next == null) {
+				running--;
+			} else if (!executor.isShutdown()) {
+				executor.execute(next);
+			}
+		}
+
+		synchronized int getWaitingCount() {
+			return waiting.size();
+		}
+	}
+
+	private static final class NamedThreadFactory implements ThreadFactory {
+
+		private final String prefix;
+		private final AtomicInteger count = new AtomicInteger();
+
+		NamedThreadFactory(String prefix) {
+			this.prefix = prefix;
+		}
+
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread thread = new Thread(r, prefix + "-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
@@ -56,7 +56,7 @@ public class SignatureHelpHandler {
 			if (contextInfomation[0] == -1) {
 				return help;
 			}
-			SignatureHelpRequestor collector = new SignatureHelpRequestor(unit, contextInfomation[0] + 1);
+			SignatureHelpRequestor collector = new SignatureHelpRequestor(unit);
 
 			if (offset > -1 && !monitor.isCanceled()) {
 				unit.codeComplete(contextInfomation[0] + 1, collector, monitor);
@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Red Hat Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat Inc. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ls.core.internal.handlers;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Computes how long to wait after an edit before validating the edited
+ * documents.
+ *
+ * The delay adapts to the measured reconcile cost of the pending documents and
+ * to the typing rate: cheap documents are validated quickly, while expensive
+ * ones, or documents being typed into, are validated once the user pauses, so
+ * that a validation is not restarted by every keystroke. Both are tracked as
+ * exponentially weighted moving averages.
+ */
+public class ValidationDelay {
+
+	/**
+	 * The delay used when the cost of a document is not known yet
+	 */
+	public static final long DEFAULT_DELAY = 400;
+	public static final long MIN_DELAY = 100;
+	public static final long MAX_DELAY = 2000;
+
+	/**
+	 * Intervals between edits longer than this are pauses, not typing
+	 */
+	private static final long TYPING_PAUSE = 1000;
+	private static final double TYPING_FACTOR = 1.5;
+	private static final double ALPHA = 0.3;
+
+	private final Map<String, Double> costs = new HashMap<>();
+	private final Map<String, Long> lastChanges = new HashMap<>();
+	private final Map<String, Double> typingIntervals = new HashMap<>();
+	private long lastDelay = DEFAULT_DELAY;
+
+	/**
+	 * Records an edit of the given document.
+	 */
+	public synchronized void changed(String document, long time) {
+		Long lastChange = lastChanges.put(document, time);
+		if (lastChange == null || time - lastChange > TYPING_PAUSE) {
+			typingIntervals.remove(document);
+		} else {
+			typingIntervals.merge(document, (double) (time - lastChange), ValidationDelay::average);
+		}
+	}
+
+	/**
+	 * Records the time taken to reconcile the given document, in milliseconds.
+	 */
+	public synchronized void reconciled(String document, long duration) {
+		costs.merge(document, (double) duration, ValidationDelay::average);
+	}
+
+	private static double average(double previous, double value) {
+		return previous + ALPHA * (value - previous);
+	}
+
+	/**
+	 * @return the delay before validating the given pending documents, in
+	 *         milliseconds
+	 */
+	public synchronized long getDelay(Collection<String> documents) {
+		double delay = MIN_DELAY;
+		for (String document : documents) {
+			Double cost = costs.get(document);
+			delay = Math.max(delay, cost == null ? DEFAULT_DELAY : cost);
+			Double typingInterval = typingIntervals.get(document);
+			if (typingInterval != null) {
+				delay = Math.max(delay, TYPING_FACTOR * typingInterval);
+			}
+		}
+		lastDelay = Math.min(MAX_DELAY, Math.round(delay));
+		return lastDelay;
+	}
+
+	/**
+	 * @return the last delay computed by {@link #getDelay(Collection)}
+	 */
+	public synchronized long getLastDelay() {
+		return lastDelay;
+	}
+
+	/**
+	 * Forgets the given, closed, document.
+	 */
+	public synchronized void remove(String document) {
+		costs.remove(document);
+		lastChanges.remove(document);
+		typingIntervals.remove(document);
+	}
+}
@@ -0,0 +1,227 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Red Hat Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat Inc. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ls.core.internal.handlers;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IField;
+import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.IPackageDeclaration;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.ITypeParameter;
+import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.core.dom.ASTVisitor;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.Expression;
+import org.eclipse.jdt.core.dom.FieldAccess;
+import org.eclipse.jdt.core.dom.IBinding;
+import org.eclipse.jdt.core.dom.IMethodBinding;
+import org.eclipse.jdt.core.dom.ITypeBinding;
+import org.eclipse.jdt.core.dom.IVariableBinding;
+import org.eclipse.jdt.core.dom.MethodInvocation;
+import org.eclipse.jdt.core.dom.SimpleName;
+
+/**
+ * Tracks which open working copies depend on which types, so that an edit only
+ * revalidates the units it can affect.
+ *
+ * The API of a unit is summarized by a fingerprint of the signatures of its
+ * types, fields and methods: an edit that leaves it unchanged, e.g. in a method
+ * body, cannot change the problems of other units. The references of a unit
+ * are the simple names of the types its bindings lead to: the types it names,
+ * declares members of, or accesses members of, the types of its variables, the
+ * return types of the methods it calls and the receiver types of its method
+ * invocations and field accesses, along with all their supertypes, whose
+ * members they inherit. Unresolved names are kept too, as they may be fixed by
+ * the edit of another unit.
+ *
+ * This is a heuristic. Simple names over-approximate the dependencies, but a
+ * dependency no binding of the unit leads to is missed, until the unit is
+ * validated again for another reason.
+ */
+public class WorkingCopyDependencies {
+
+	private final Map<ICompilationUnit, Api> apis = new HashMap<>();
+	private final Map<ICompilationUnit, Set<String>> references = new HashMap<>();
+
+	/**
+	 * Updates the API fingerprint of the given, reconciled, unit.
+	 *
+	 * @return the simple names of the types whose API may have changed, empty
+	 *         if the API of the unit is unchanged
+	 */
+	public Set<String> updateApi(ICompilationUnit unit) throws JavaModelException {
+		Api api = new Api(unit);
+		Api previous;
+		synchronized (this) {
+			previous = apis.put(unit, api);
+		}
+		if (previous == null) {
+			// the dependents were validated against the saved content of the unit
+			return unit.hasUnsavedChanges() ? api.typeNames : Collections.emptySet();
+		}
+		if (previous.fingerprint.equals(api.fingerprint)) {
+			return Collections.emptySet();
+		}
+		Set<String> changed = new HashSet<>(previous.typeNames);
+		changed.addAll(api.typeNames);
+		return changed;
+	}
+
+	/**
+	 * Updates the references of the unit of the given AST.
+	 */
+	public void updateReferences(CompilationUnit astRoot) {
+		if (!(astRoot.getTypeRoot() instanceof ICompilationUnit)) {
+			return;
+		}
+		Set<String> names = new HashSet<>();
+		Set<ITypeBinding> visited = new HashSet<>();
+		astRoot.accept(new ASTVisitor() {
+			@Override
+			public boolean visit(SimpleName node) {
+				IBinding binding = node.resolveBinding();
+				if (binding == null || binding.isRecovered()) {
+					names.add(node.getIdentifier());
+				} else if (binding.getKind() == IBinding.TYPE) {
+					addType(names, visited, (ITypeBinding) binding);
+				} else if (binding.getKind() == IBinding.METHOD) {
+					IMethodBinding method = (IMethodBinding) binding;
+					addType(names, visited, method.getDeclaringClass());
+					addType(names, visited, method.getReturnType());
+				} else if (binding.getKind() == IBinding.VARIABLE) {
+					IVariableBinding variable = (IVariableBinding) binding;
+					addType(names, visited, variable.getDeclaringClass());
+					addType(names, visited, variable.getType());
+				}
+				return false;
+			}
+
+			@Override
+			public boolean visit(MethodInvocation node) {
+				// e.g. getB().m(), where m is declared by a supertype of B
+				addReceiver(names, visited, node.getExpression());
+				return true;
+			}
+
+			@Override
+			public boolean visit(FieldAccess node) {
+				addReceiver(names, visited, node.getExpression());
+				return true;
+			}
+		});
+		synchronized (this) {
+			references.put((ICompilationUnit) astRoot.getTypeRoot(), names);
+		}
+	}
+
+	private static void addReceiver(Set<String> names, Set<ITypeBinding> visited, Expression receiver) {
+		if (receiver != null) {
+			addType(names, visited, receiver.resolveTypeBinding());
+		}
+	}
+
+	/**
+	 * Adds the given type, its element type and its supertypes.
+	 */
+	private static void addType(Set<String> names, Set<ITypeBinding> visited, ITypeBinding type) {
+		if (type == null) {
+			return;
+		}
+		if (type.isArray()) {
+			type = type.getElementType();
+		}
+		if (type.isPrimitive() || type.isNullType() || !visited.add(type.getErasure())) {
+			return;
+		}
+		type = type.getErasure();
+		names.add(type.getName());
+		addType(names, visited, type.getSuperclass());
+		for (ITypeBinding superInterface : type.getInterfaces()) {
+			addType(names, visited, superInterface);
+		}
+	}
+
+	/**
+	 * @return whether the given unit uses any of the given types. Units whose
+	 *         references are unknown are assumed to use them.
+	 */
+	public synchronized boolean references(ICompilationUnit unit, Set<String> typeNames) {
+		if (typeNames.isEmpty()) {
+			return false;
+		}
+		Set<String> names = references.get(unit);
+		return names == null || !Collections.disjoint(names, typeNames);
+	}
+
+	public synchronized void remove(ICompilationUnit unit) {
+		apis.remove(unit);
+		references.remove(unit);
+	}
+
+	private static final class Api {
+
+		private final String fingerprint;
+		private final Set<String> typeNames = new HashSet<>();
+
+		Api(ICompilationUnit unit) throws JavaModelException {
+			StringBuilder builder = new StringBuilder();
+			for (IPackageDeclaration declaration : unit.getPackageDeclarations()) {
+				builder.append(declaration.getElementName()).append(';');
+			}
+			for (IType type : unit.getTypes()) {
+				append(builder, type);
+			}
+			fingerprint = builder.toString();
+		}
+
+		private void append(StringBuilder builder, IType type) throws JavaModelException {
+			typeNames.add(type.getElementName());
+			builder.append('\n').append(type.getFlags()).append(' ').append(type.getFullyQualifiedName());
+			for (ITypeParameter parameter : type.getTypeParameters()) {
+				builder.append(' ').append(parameter.getSource());
+			}
+			builder.append(" extends ").append(type.getSuperclassTypeSignature());
+			for (String superInterface : type.getSuperInterfaceTypeSignatures()) {
+				builder.append(' ').append(superInterface);
+			}
+			for (IField field : type.getFields()) {
+				builder.append('\n').append(field.getFlags()).append(' ').append(field.getTypeSignature()).append(' ').append(field.getElementName());
+				Object constant = field.getConstant();
+				if (constant != null) {
+					builder.append('=').append(constant);
+				}
+			}
+			for (IMethod method : type.getMethods()) {
+				builder.append('\n').append(method.getFlags()).append(' ');
+				for (ITypeParameter parameter : method.getTypeParameters()) {
+					builder.append(parameter.getSource()).append(' ');
+				}
+				builder.append(method.getReturnType()).append(' ').append(method.getElementName()).append('(');
+				for (String parameterType : method.getParameterTypes()) {
+					builder.append(parameterType).append(',');
+				}
+				builder.append(')');
+				for (String exceptionType : method.getExceptionTypes()) {
+					builder.append(' ').append(exceptionType);
+				}
+			}
+			for (IType member : type.getTypes()) {
+				append(builder, member);
+			}
+		}
+	}
+}
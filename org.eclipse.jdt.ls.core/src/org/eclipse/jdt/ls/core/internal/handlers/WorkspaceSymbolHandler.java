@@ -12,12 +12,15 @@ package org.eclipse.jdt.ls.core.internal.handlers;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.jdt.core.Flags;
 import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IType;
 import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.jdt.core.search.IJavaSearchConstants;
@@ -28,6 +31,7 @@ import org.eclipse.jdt.core.search.TypeNameMatch;
 import org.eclipse.jdt.core.search.TypeNameMatchRequestor;
 import org.eclipse.jdt.ls.core.internal.JDTUtils;
 import org.eclipse.jdt.ls.core.internal.JavaLanguageServerPlugin;
+import org.eclipse.jdt.ls.core.internal.TypeNameIndex;
 import org.eclipse.lsp4j.Location;
 import org.eclipse.lsp4j.SymbolInformation;
 import org.eclipse.lsp4j.SymbolKind;
@@ -41,7 +45,7 @@ public class WorkspaceSymbolHandler{
 
 		try {
 			ArrayList<SymbolInformation> symbols = new ArrayList<>();
-			new SearchEngine().searchAllTypeNames(null,SearchPattern.R_PATTERN_MATCH, query.toCharArray(), SearchPattern.R_CAMELCASE_MATCH, IJavaSearchConstants.TYPE, createSearchScope(),new TypeNameMatchRequestor() {
+			TypeNameMatchRequestor requestor = new TypeNameMatchRequestor() {
 
 				@Override
 				public void acceptTypeNameMatch(TypeNameMatch match) {
@@ -49,12 +53,17 @@ public class WorkspaceSymbolHandler{
 					symbolInformation.setContainerName(match.getTypeContainerName());
 					symbolInformation.setName(match.getSimpleTypeName());
 					symbolInformation.setKind(mapKind(match));
+					IType type = match.getType();
+					if (type == null) {
+						// removed since it was indexed
+						return;
+					}
 					Location location;
 					try {
-						if (match.getType().isBinary()) {
-							location = JDTUtils.toLocation(match.getType().getClassFile());
+						if (type.isBinary()) {
+							location = JDTUtils.toLocation(type.getClassFile());
 						}  else {
-							location = JDTUtils.toLocation(match.getType().getResource().getLocationURI().toString());
+							location = JDTUtils.toLocation(type.getResource().getLocationURI().toString());
 						}
 					} catch (Exception e) {
 						JavaLanguageServerPlugin.logException("Unable to determine location for " +  match.getSimpleTypeName(), e);
@@ -77,7 +86,14 @@ public class WorkspaceSymbolHandler{
 					}
 					return SymbolKind.Class;
 				}
-			}, IJavaSearchConstants.WAIT_UNTIL_READY_TO_SEARCH, monitor);
+			};
+			// the index answers the prefix and camel case queries, not the patterns
+			List<TypeNameMatch> indexed = isPattern(query) ? null : findIndexedTypes(query.toCharArray());
+			if (indexed != null) {
+				indexed.forEach(requestor::acceptTypeNameMatch);
+				return symbols;
+			}
+			new SearchEngine().searchAllTypeNames(null,SearchPattern.R_PATTERN_MATCH, query.toCharArray(), SearchPattern.R_CAMELCASE_MATCH, IJavaSearchConstants.TYPE, createSearchScope(), requestor, IJavaSearchConstants.WAIT_UNTIL_READY_TO_SEARCH, monitor);
 			return symbols;
 		} catch (Exception e) {
 			JavaLanguageServerPlugin.logException("Problem getting search for" +  query, e);
@@ -85,8 +101,41 @@ public class WorkspaceSymbolHandler{
 		return Collections.emptyList();
 	}
 
+	private static boolean isPattern(String query) {
+		return query.indexOf('*') >= 0 || query.indexOf('?') >= 0;
+	}
+
+	/**
+	 * @return the types of the workspace matching the given query, from the
+	 *         resident type name index, or <code>null</code> while it is built
+	 */
+	private List<TypeNameMatch> findIndexedTypes(char[] query) throws JavaModelException {
+		List<TypeNameMatch> matches = new ArrayList<>();
+		Set<TypeNameMatch> found = new HashSet<>();
+		boolean ready = true;
+		for (IJavaProject project : getJavaProjects()) {
+			// every project is queried, so that all of them get indexed
+			List<TypeNameMatch> types = TypeNameIndex.getInstance().findTypesByPrefix(project, query, true);
+			if (types == null) {
+				ready = false;
+			} else if (ready) {
+				for (TypeNameMatch type : types) {
+					// the types of the libraries shared by the projects are found once
+					if (found.add(type)) {
+						matches.add(type);
+					}
+				}
+			}
+		}
+		return ready ? matches : null;
+	}
+
+	private IJavaProject[] getJavaProjects() throws JavaModelException {
+		return JavaCore.create(ResourcesPlugin.getWorkspace().getRoot()).getJavaProjects();
+	}
+
 	private IJavaSearchScope createSearchScope() throws JavaModelException {
-		IJavaProject[] projects = JavaCore.create(ResourcesPlugin.getWorkspace().getRoot()).getJavaProjects();
+		IJavaProject[] projects = getJavaProjects();
 		return SearchEngine.createJavaSearchScope(projects, IJavaSearchScope.SOURCES | IJavaSearchScope.APPLICATION_LIBRARIES | IJavaSearchScope.SYSTEM_LIBRARIES);
 	}
 
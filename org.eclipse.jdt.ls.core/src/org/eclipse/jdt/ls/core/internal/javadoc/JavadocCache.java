@@ -0,0 +1,234 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Red Hat Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat Inc. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ls.core.internal.javadoc;
+
+import java.io.Reader;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.eclipse.jdt.core.IMember;
+import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.ls.core.internal.JavaLanguageServerPlugin;
+import org.eclipse.jdt.ls.core.internal.ServerMetrics;
+
+import com.google.common.io.CharStreams;
+
+/**
+ * Reads the plain text documentation of members on a small pool of threads
+ * shared by all requests, and caches the most recently used ones.
+ *
+ * The documentation is keyed by the handle identifier of the member and, for
+ * members with source, by the content of their source, so that it is read
+ * again once edited. Binary members without documentation aren't cached, as a
+ * source may be attached to their library later. A request that times out
+ * only stops waiting: the documentation is still read and cached, for the
+ * other requests waiting for it and the next ones.
+ */
+public final class JavadocCache {
+
+	public static final String READ_METRIC = "javadoc/read";
+
+	private static final int MAX_ENTRIES = 256;
+	private static final int THREADS = 2;
+	/**
+	 * The maximum number of documentations waiting to be read, more are
+	 * rejected
+	 */
+	private static final int MAX_PENDING = 64;
+
+	private static JavadocCache instance = new JavadocCache();
+
+	/**
+	 * The documentations, least recently used first
+	 */
+	private final Map<String, CompletableFuture<String>> cache = new LinkedHashMap<String, CompletableFuture<String>>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, CompletableFuture<String>> eldest) {
+			return size() > MAX_ENTRIES;
+		}
+	};
+	private final ThreadPoolExecutor executor;
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	private JavadocCache() {
+		AtomicInteger count = new AtomicInteger();
+		executor = new ThreadPoolExecutor(THREADS, THREADS, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(MAX_PENDING), r -> {
+			Thread thread = new Thread(r, "jdt.ls-javadoc-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		executor.allowCoreThreadTimeOut(true);
+		ServerMetrics metrics = ServerMetrics.getInstance();
+		metrics.registerGauge("javadoc.cache.size", this::getCacheSize);
+		metrics.registerGauge("javadoc.cache.hits", hits::get);
+		metrics.registerGauge("javadoc.cache.misses", misses::get);
+	}
+
+	public static JavadocCache getInstance() {
+		return instance;
+	}
+
+	/**
+	 * @param timeout
+	 *            how long to wait for the documentation, in milliseconds
+	 * @return the plain text documentation of the given member, or
+	 *         <code>null</code> if it has none, or it couldn't be read within
+	 *         the given timeout
+	 */
+	public String getPlainText(IMember member, long timeout) {
+		String key = getKey(member);
+		if (key == null) {
+			return null;
+		}
+		CompletableFuture<String> future;
+		boolean read = false;
+		synchronized (cache) {
+			future = cache.get(key);
+			if (future == null) {
+				future = new CompletableFuture<>();
+				cache.put(key, future);
+				read = true;
+			}
+		}
+		if (read) {
+			misses.incrementAndGet();
+			CompletableFuture<String> pending = future;
+			try {
+				executor.execute(() -> read(key, member, pending));
+			} catch (RejectedExecutionException e) {
+				remove(key, future);
+				return null;
+			}
+		} else {
+			hits.incrementAndGet();
+		}
+		try {
+			return future.get(timeout, TimeUnit.MILLISECONDS);
+		} catch (TimeoutException tooSlow) {
+			// shared with the other requests, it is still read and cached
+			return null;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return null;
+		} catch (ExecutionException e) {
+			JavaLanguageServerPlugin.logException("Unable to read documentation", e.getCause());
+			return null;
+		}
+	}
+
+	/**
+	 * Reads, on the shared threads, the documentation of the given members
+	 * that isn't cached yet. The members are looked up on the shared threads
+	 * too. Nothing is read when too many documentations are waiting already.
+	 */
+	public void prefetch(Supplier<? extends Collection<IMember>> members) {
+		try {
+			executor.execute(() -> {
+				for (IMember member : members.get()) {
+					String key = getKey(member);
+					if (key == null) {
+						continue;
+					}
+					CompletableFuture<String> future;
+					synchronized (cache) {
+						if (cache.containsKey(key)) {
+							continue;
+						}
+						future = new CompletableFuture<>();
+						cache.put(key, future);
+					}
+					read(key, member, future);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			// busy with the documentations requested
+		}
+	}
+
+	private void read(String key, IMember member, CompletableFuture<String> future) {
+		ServerMetrics.Sample sample = ServerMetrics.getInstance().start(READ_METRIC);
+		try {
+			String javadoc;
+			try (Reader reader = JavadocContentAccess.getPlainTextContentReader(member)) {
+				javadoc = reader == null ? null : CharStreams.toString(reader);
+			}
+			if (javadoc == null && member.isBinary()) {
+				// a source may be attached later
+				remove(key, future);
+			}
+			future.complete(javadoc);
+			sample.stop();
+		} catch (Exception e) {
+			sample.stop(e);
+			remove(key, future);
+			future.completeExceptionally(e);
+		}
+	}
+
+	private void remove(String key, CompletableFuture<String> future) {
+		synchronized (cache) {
+			cache.remove(key, future);
+		}
+	}
+
+	/**
+	 * @return the key of the documentation of the given member, or
+	 *         <code>null</code> if it doesn't exist
+	 */
+	private static String getKey(IMember member) {
+		if (member == null || !member.exists()) {
+			return null;
+		}
+		if (member.isBinary()) {
+			return member.getHandleIdentifier();
+		}
+		try {
+			String source = member.getSource();
+			return member.getHandleIdentifier() + '#' + (source == null ? 0 : source.hashCode());
+		} catch (JavaModelException e) {
+			return null;
+		}
+	}
+
+	public int getCacheSize() {
+		synchronized (cache) {
+			return cache.size();
+		}
+	}
+
+	public long getHitCount() {
+		return hits.get();
+	}
+
+	public long getMissCount() {
+		return misses.get();
+	}
+
+	public void invalidateAll() {
+		synchronized (cache) {
+			cache.clear();
+		}
+	}
+}
@@ -42,6 +42,7 @@ import org.eclipse.jdt.ls.core.internal.JDTUtils;
 import org.eclipse.jdt.ls.core.internal.JavaClientConnection.JavaLanguageClient;
 import org.eclipse.jdt.ls.core.internal.JavaLanguageServerPlugin;
 import org.eclipse.jdt.ls.core.internal.ProjectUtils;
+import org.eclipse.jdt.ls.core.internal.ServerMetrics;
 import org.eclipse.jdt.ls.core.internal.ServiceStatus;
 import org.eclipse.jdt.ls.core.internal.StatusFactory;
 import org.eclipse.jdt.ls.core.internal.preferences.PreferenceManager;
@@ -65,6 +66,7 @@ public class ProjectsManager {
 
 	public IStatus initializeProjects(final String projectPath, IProgressMonitor monitor) {
 		SubMonitor subMonitor = SubMonitor.convert(monitor, 100);
+		ServerMetrics.Sample sample = ServerMetrics.getInstance().start("project/import");
 		try {
 			deleteInvalidProjects(subMonitor.split(5));
 			createJavaProject(getDefaultProject(), subMonitor.split(10));
@@ -75,12 +77,14 @@ public class ProjectsManager {
 					importer.importToWorkspace(subMonitor.split(70));
 				}
 			}
-
+			sample.stop();
 			return Status.OK_STATUS;
 		} catch (InterruptedException e) {
+			sample.cancel();
 			JavaLanguageServerPlugin.logInfo("Import cancelled");
 			return Status.CANCEL_STATUS;
 		} catch (Exception e) {
+			sample.stop(e);
 			JavaLanguageServerPlugin.logException("Problem importing to workspace", e);
 			return StatusFactory.newErrorStatus("Import failed: " + e.getMessage(), e);
 		}
@@ -226,6 +230,8 @@ public class ProjectsManager {
 			public IStatus runInWorkspace(IProgressMonitor monitor) {
 				IStatus status = Status.OK_STATUS;
 				String projectName = project.getName();
+				ServerMetrics.Sample sample = ServerMetrics.getInstance().start("project/update");
+				Throwable error = null;
 				try {
 					long start = System.currentTimeMillis();
 					Optional<IBuildSupport> buildSupport = getBuildSupport(project);
@@ -235,9 +241,15 @@ public class ProjectsManager {
 					long elapsed = System.currentTimeMillis() - start;
 					JavaLanguageServerPlugin.logInfo("Updated "+projectName + " in "+ elapsed +" ms");
 				} catch (CoreException e) {
+					error = e;
 					String msg = "Error updating "+projectName;
 					JavaLanguageServerPlugin.logError(msg);
 					status = StatusFactory.newErrorStatus(msg, e);
+				} catch (RuntimeException e) {
+					error = e;
+					throw e;
+				} finally {
+					sample.stop(error);
 				}
 				return status;
 			}
@@ -73,6 +73,13 @@ public class Preferences {
 	 */
 	public static final String MAVEN_USER_SETTINGS_KEY = "java.configuration.maven.userSettings";
 
+	/**
+	 * Preference key for the maximum number of completion items, 0 for no
+	 * limit.
+	 */
+	public static final String COMPLETION_MAX_RESULTS_KEY = "java.completion.maxResults";
+	public static final int COMPLETION_MAX_RESULTS_DEFAULT = 100;
+
 	/**
 	 * A named preference that holds the favorite static members.
 	 * <p>
@@ -127,6 +134,8 @@ public class Preferences {
 
 	private List<String> javaImportExclusions = new ArrayList<>();
 
+	private int completionMaxResults = COMPLETION_MAX_RESULTS_DEFAULT;
+
 	static {
 		JAVA_IMPORT_EXCLUSIONS_DEFAULT = new ArrayList<>();
 		JAVA_IMPORT_EXCLUSIONS_DEFAULT.add("**/node_modules");
@@ -233,8 +242,8 @@ public class Preferences {
 
 	private static int getNumberValue(Map<String, Object> configuration, String key, int def) {
 		Object val = configuration.get(key);
-		if (val instanceof Integer) {
-			return ((Integer) val).intValue();
+		if (val instanceof Number) {
+			return ((Number) val).intValue();
 		}
 		return def;
 	}
@@ -277,6 +286,9 @@ public class Preferences {
 		String favoriteStaticMembers = getStringValue(configuration, FAVORITE_STATIC_MEMBERS, "");
 		prefs.setFavoriteStaticMembers(favoriteStaticMembers);
 
+		int completionMaxResults = getNumberValue(configuration, COMPLETION_MAX_RESULTS_KEY, COMPLETION_MAX_RESULTS_DEFAULT);
+		prefs.setCompletionMaxResults(completionMaxResults);
+
 		return prefs;
 	}
 
@@ -325,6 +337,11 @@ public class Preferences {
 		return this;
 	}
 
+	public Preferences setCompletionMaxResults(int completionMaxResults) {
+		this.completionMaxResults = completionMaxResults;
+		return this;
+	}
+
 	public Severity getIncompleteClasspathSeverity() {
 		return incompleteClasspathSeverity;
 	}
@@ -373,4 +390,8 @@ public class Preferences {
 	public String getFavoriteStaticMembers() {
 		return this.favoriteStaticMembers;
 	}
+
+	public int getCompletionMaxResults() {
+		return completionMaxResults;
+	}
 }
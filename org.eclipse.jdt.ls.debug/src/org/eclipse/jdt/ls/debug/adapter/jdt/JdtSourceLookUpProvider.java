@@ -17,8 +17,6 @@ import org.eclipse.jdt.core.IType;
 import org.eclipse.jdt.core.ITypeRoot;
 import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.JavaModelException;
-import org.eclipse.jdt.core.dom.AST;
-import org.eclipse.jdt.core.dom.ASTParser;
 import org.eclipse.jdt.core.dom.CompilationUnit;
 import org.eclipse.jdt.core.search.IJavaSearchConstants;
 import org.eclipse.jdt.core.search.IJavaSearchScope;
@@ -29,6 +27,7 @@ import org.eclipse.jdt.core.search.SearchPattern;
 import org.eclipse.jdt.core.search.SearchRequestor;
 import org.eclipse.jdt.internal.debug.core.breakpoints.ValidBreakpointLocationLocator;
 import org.eclipse.jdt.ls.core.internal.JDTUtils;
+import org.eclipse.jdt.ls.core.internal.SharedASTProvider;
 import org.eclipse.jdt.ls.debug.DebugException;
 import org.eclipse.jdt.ls.debug.adapter.AdapterUtils;
 import org.eclipse.jdt.ls.debug.adapter.Constants;
@@ -77,13 +76,12 @@ public class JdtSourceLookUpProvider implements ISourceLookUpProvider {
         }
 
         if (typeRoot != null && lines.length > 0) {
-            // Currently we only support Java SE 8 Edition (JLS8).
-            final ASTParser parser = ASTParser.newParser(AST.JLS8);
-            parser.setResolveBindings(true);
-            parser.setBindingsRecovery(true);
-            parser.setStatementsRecovery(true);
-            parser.setSource(typeRoot);
-            CompilationUnit cunit = (CompilationUnit) parser.createAST(null);
+            // The locator resolves the binary names of the types from their bindings,
+            // the AST of an open document is shared with the language server.
+            CompilationUnit cunit = SharedASTProvider.getInstance().getAST(typeRoot, null);
+            if (cunit == null) {
+                return fqns;
+            }
             for (int i = 0; i < lines.length; i++) {
                 // TODO
                 // The ValidBreakpointLocationLocator will verify if the current line is a valid location or not.
@@ -0,0 +1,114 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Red Hat Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat Inc. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ls.core.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.junit.After;
+import org.junit.Test;
+
+public class AsyncLoggerTest {
+
+	private List<IStatus> logged = new CopyOnWriteArrayList<>();
+	private AsyncLogger logger;
+
+	@After
+	public void tearDown() {
+		if (logger != null) {
+			logger.shutdown();
+		}
+	}
+
+	@Test
+	public void testLogInOrder() {
+		logger = new AsyncLogger(logged::add, 100);
+		logger.log(info("first"));
+		logger.log(info("second"));
+		logger.logNow(new Status(IStatus.ERROR, JavaLanguageServerPlugin.PLUGIN_ID, "error"));
+		assertEquals(3, logged.size());
+		assertEquals("first", logged.get(0).getMessage());
+		assertEquals("second", logged.get(1).getMessage());
+		assertEquals("error", logged.get(2).getMessage());
+	}
+
+	@Test
+	public void testBackgroundLogging() throws Exception {
+		CountDownLatch latch = new CountDownLatch(1);
+		logger = new AsyncLogger(status -> {
+			logged.add(status);
+			latch.countDown();
+		}, 100);
+		logger.log(info("background"));
+		assertTrue(latch.await(5, TimeUnit.SECONDS));
+		assertEquals("background", logged.get(0).getMessage());
+	}
+
+	@Test
+	public void testNeverBlocks() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		logger = new AsyncLogger(status -> {
+			try {
+				release.await(5, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			logged.add(status);
+		}, 2);
+		for (int i = 0; i < 10; i++) {
+			logger.log(info("message " + i));
+		}
+		release.countDown();
+		logger.flush();
+		assertTrue(logged.size() < 10);
+		IStatus last = logged.get(logged.size() - 1);
+		assertEquals(IStatus.WARNING, last.getSeverity());
+		assertTrue(last.getMessage(), last.getMessage().endsWith("log messages were dropped"));
+	}
+
+	@Test
+	public void testLogAfterShutdown() {
+		logger = new AsyncLogger(logged::add, 100);
+		logger.log(info("queued"));
+		logger.shutdown();
+		logger.log(info("after shutdown"));
+		// forwarded synchronously
+		assertEquals(2, logged.size());
+		assertEquals("after shutdown", logged.get(1).getMessage());
+	}
+
+	@Test
+	public void testLogSeverityMask() {
+		assertEquals(-1, JavaLanguageServerPlugin.getLogSeverityMask("ALL"));
+		assertEquals(IStatus.ERROR, JavaLanguageServerPlugin.getLogSeverityMask("ERROR"));
+		int warning = JavaLanguageServerPlugin.getLogSeverityMask("WARNING");
+		assertTrue((IStatus.WARNING & warning) != 0);
+		assertFalse((IStatus.INFO & warning) != 0);
+		// the same default as the log handler
+		assertEquals(warning, JavaLanguageServerPlugin.getLogSeverityMask(null));
+		assertEquals(warning, JavaLanguageServerPlugin.getLogSeverityMask(""));
+		// the workspace log keeps every status unless log.level is set
+		assertEquals(-1, JavaLanguageServerPlugin.getLoggedSeverityMask(null));
+		assertEquals(warning, JavaLanguageServerPlugin.getLoggedSeverityMask("WARNING"));
+	}
+
+	private static IStatus info(String message) {
+		return new Status(IStatus.INFO, JavaLanguageServerPlugin.PLUGIN_ID, message);
+	}
+}
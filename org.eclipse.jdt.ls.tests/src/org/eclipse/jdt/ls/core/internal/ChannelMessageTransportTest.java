@@ -0,0 +1,193 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Red Hat Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat Inc. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ls.core.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.Pipe;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.lsp4j.jsonrpc.json.MessageJsonHandler;
+import org.eclipse.lsp4j.jsonrpc.messages.Message;
+import org.eclipse.lsp4j.jsonrpc.messages.NotificationMessage;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.gson.JsonElement;
+
+/**
+ * Round trips messages through {@link ChannelMessageConsumer},
+ * {@link StreamingMessageConsumer} and {@link ChannelMessageProducer}.
+ */
+public class ChannelMessageTransportTest {
+
+	private Pipe pipe;
+	private ChannelMessageProducer producer;
+	private MessageJsonHandler jsonHandler;
+	private BlockingQueue<Message> received;
+	private Thread listener;
+
+	@Before
+	public void setup() throws IOException {
+		pipe = Pipe.open();
+		jsonHandler = new MessageJsonHandler(Collections.emptyMap());
+		received = new LinkedBlockingQueue<>();
+		producer = new ChannelMessageProducer(pipe.source(), jsonHandler);
+		listener = new Thread(() -> producer.listen(received::add));
+		listener.setDaemon(true);
+		listener.start();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		producer.close();
+		pipe.sink().close();
+		listener.join(1000);
+		pipe.source().close();
+	}
+
+	@Test
+	public void testRoundTrip() throws Exception {
+		ChannelMessageConsumer consumer = new ChannelMessageConsumer(pipe.sink(), jsonHandler);
+		consumer.consume(notification("first", "hello"));
+		consumer.consume(notification("second", "h\u00e9llo w\u00f6rld \u4e2d\u6587 \ud83d\ude00"));
+
+		assertNotification(next(), "first", "hello");
+		assertNotification(next(), "second", "h\u00e9llo w\u00f6rld \u4e2d\u6587 \ud83d\ude00");
+	}
+
+	@Test
+	public void testLargeMessage() throws Exception {
+		StringBuilder builder = new StringBuilder();
+		while (builder.length() < 300 * 1024) {
+			builder.append("completion item \u00e9\u00e8 ");
+		}
+		String payload = builder.toString();
+		ChannelMessageConsumer consumer = new ChannelMessageConsumer(pipe.sink(), jsonHandler);
+		// the listener must drain the pipe while the message is being written
+		consumer.consume(notification("large", payload));
+		consumer.consume(notification("small", "after"));
+
+		assertNotification(next(), "large", payload);
+		assertNotification(next(), "small", "after");
+	}
+
+	@Test
+	public void testStreamedMessage() throws Exception {
+		StringBuilder builder = new StringBuilder();
+		while (builder.length() < 64 * 1024) {
+			// multi-byte and surrogate pairs across the chunk boundaries
+			builder.append("item \u00e9 \ud83d\ude00 ");
+		}
+		String payload = builder.toString();
+		// too large for the buffer, so counted then written in chunks
+		ChannelMessageConsumer consumer = new ChannelMessageConsumer(pipe.sink(), jsonHandler, 1024);
+		consumer.consume(notification("streamed", payload));
+		consumer.consume(notification("small", "after"));
+
+		assertNotification(next(), "streamed", payload);
+		assertNotification(next(), "small", "after");
+	}
+
+	@Test
+	public void testHeaderVariants() throws Exception {
+		List<String> frames = new ArrayList<>();
+		frames.add(frame("content-length:", "lowercase"));
+		frames.add(frame("Content-Type: application/vscode-jsonrpc; charset=utf-8\r\nContent-Length: ", "withContentType"));
+		for (String frame : frames) {
+			pipe.sink().write(ByteBuffer.wrap(frame.getBytes(StandardCharsets.UTF_8)));
+		}
+		assertEquals("lowercase", ((NotificationMessage) next()).getMethod());
+		assertEquals("withContentType", ((NotificationMessage) next()).getMethod());
+	}
+
+	@Test
+	public void testContentLengthOverflow() throws Exception {
+		// the invalid frame is skipped, up to the next header block
+		String frames = "Content-Length: 99999999999999999999\r\n\r\n" + frame("Content-Length: ", "valid");
+		pipe.sink().write(ByteBuffer.wrap(frames.getBytes(StandardCharsets.UTF_8)));
+		assertEquals("valid", ((NotificationMessage) next()).getMethod());
+	}
+
+	@Test
+	public void testNonGatheringChannel() throws Exception {
+		WritableByteChannel channel = new WritableByteChannel() {
+			@Override
+			public boolean isOpen() {
+				return pipe.sink().isOpen();
+			}
+
+			@Override
+			public void close() throws IOException {
+				pipe.sink().close();
+			}
+
+			@Override
+			public int write(ByteBuffer src) throws IOException {
+				return pipe.sink().write(src);
+			}
+		};
+		ChannelMessageConsumer consumer = new ChannelMessageConsumer(channel, jsonHandler);
+		consumer.consume(notification("multibyte", "\u00e9\u00e9\u00e9"));
+		consumer.consume(notification("next", "ok"));
+
+		assertNotification(next(), "multibyte", "\u00e9\u00e9\u00e9");
+		assertNotification(next(), "next", "ok");
+	}
+
+	@Test
+	public void testStreamingConsumer() throws Exception {
+		// messages must be flushed through buffered streams
+		OutputStream output = new BufferedOutputStream(Channels.newOutputStream(pipe.sink()), 1024 * 1024);
+		StreamingMessageConsumer consumer = new StreamingMessageConsumer(output, jsonHandler);
+		consumer.consume(notification("streamed", "\u00e9t\u00e9"));
+		assertNotification(next(), "streamed", "\u00e9t\u00e9");
+	}
+
+	private String frame(String lengthHeader, String method) {
+		String content = "{\"jsonrpc\":\"2.0\",\"method\":\"" + method + "\"}";
+		return lengthHeader + content.getBytes(StandardCharsets.UTF_8).length + "\r\n\r\n" + content;
+	}
+
+	private Message next() throws InterruptedException {
+		Message message = received.poll(5, TimeUnit.SECONDS);
+		assertTrue("No message received", message != null);
+		return message;
+	}
+
+	private static NotificationMessage notification(String method, String value) {
+		NotificationMessage message = new NotificationMessage();
+		message.setMethod(method);
+		message.setParams(Collections.singletonMap("value", value));
+		return message;
+	}
+
+	private static void assertNotification(Message message, String method, String value) {
+		NotificationMessage notification = (NotificationMessage) message;
+		assertEquals(method, notification.getMethod());
+		JsonElement params = (JsonElement) notification.getParams();
+		assertEquals(value, params.getAsJsonObject().get("value").getAsString());
+	}
+}
@@ -0,0 +1,84 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Red Hat Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat Inc. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ls.core.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+
+import org.eclipse.jdt.ls.core.internal.JavaClientConnection.JavaLanguageClient;
+import org.eclipse.lsp4j.ApplyWorkspaceEditParams;
+import org.eclipse.lsp4j.ApplyWorkspaceEditResponse;
+import org.eclipse.lsp4j.MessageActionItem;
+import org.eclipse.lsp4j.MessageType;
+import org.eclipse.lsp4j.ShowMessageRequestParams;
+import org.eclipse.lsp4j.WorkspaceEdit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class JavaClientConnectionTest {
+
+	@Mock
+	private JavaLanguageClient client;
+
+	private JavaClientConnection connection;
+
+	@Before
+	public void setup() {
+		connection = new JavaClientConnection(client);
+	}
+
+	@After
+	public void tearDown() {
+		connection.disconnect();
+	}
+
+	@Test
+	public void testApplyWorkspaceEditAsync() throws Exception {
+		CompletableFuture<ApplyWorkspaceEditResponse> response = new CompletableFuture<>();
+		when(client.applyEdit(any(ApplyWorkspaceEditParams.class))).thenReturn(response);
+
+		CompletableFuture<Boolean> applied = connection.applyWorkspaceEditAsync(new WorkspaceEdit());
+		assertFalse("The client answer should not be awaited", applied.isDone());
+
+		response.complete(new ApplyWorkspaceEditResponse(true));
+		assertTrue(applied.get());
+	}
+
+	@Test
+	public void testApplyWorkspaceEditWithoutResponse() throws Exception {
+		when(client.applyEdit(any(ApplyWorkspaceEditParams.class))).thenReturn(CompletableFuture.completedFuture(null));
+		assertFalse(connection.applyWorkspaceEdit(new WorkspaceEdit()));
+	}
+
+	@Test
+	public void testShowNotificationMessageRequestAsync() throws Exception {
+		CompletableFuture<MessageActionItem> answer = new CompletableFuture<>();
+		when(client.showMessageRequest(any(ShowMessageRequestParams.class))).thenReturn(answer);
+		MessageActionItem action = new MessageActionItem("Yes");
+
+		CompletableFuture<MessageActionItem> selected = connection.showNotificationMessageRequestAsync(MessageType.Info, "Really?", Collections.singletonList(action));
+		assertFalse("The user answer should not be awaited", selected.isDone());
+
+		answer.complete(action);
+		assertEquals(action, selected.get());
+	}
+}
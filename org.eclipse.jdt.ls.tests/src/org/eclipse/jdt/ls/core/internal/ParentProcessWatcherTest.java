@@ -0,0 +1,171 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Red Hat Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat Inc. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ls.core.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.File;
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jdt.ls.core.internal.ParentProcessWatcher.LivenessDetector;
+import org.eclipse.jdt.ls.core.internal.ParentProcessWatcher.ProcFileSystemDetector;
+import org.eclipse.jdt.ls.core.internal.ParentProcessWatcher.ProcessHandleDetector;
+import org.junit.After;
+import org.junit.Test;
+
+public class ParentProcessWatcherTest {
+
+	private ParentProcessWatcher watcher;
+
+	@After
+	public void tearDown() {
+		if (watcher != null) {
+			watcher.stop();
+		}
+	}
+
+	@Test
+	public void testWaitForExit() throws Exception {
+		CompletableFuture<Void> exit = new CompletableFuture<>();
+		AtomicInteger polls = new AtomicInteger();
+		LivenessDetector detector = new FakeDetector(true) {
+			@Override
+			public boolean isAlive(long pid) {
+				polls.incrementAndGet();
+				return true;
+			}
+
+			@Override
+			public CompletableFuture<?> onExit(long pid) {
+				return exit;
+			}
+		};
+		CountDownLatch exited = new CountDownLatch(1);
+		watcher = new ParentProcessWatcher(exited::countDown, Collections.singletonList(detector));
+		watcher.watch(42);
+		assertFalse(exited.await(100, TimeUnit.MILLISECONDS));
+		exit.complete(null);
+		assertTrue(exited.await(1, TimeUnit.SECONDS));
+		assertEquals(0, polls.get());
+	}
+
+	@Test
+	public void testPolling() throws Exception {
+		AtomicBoolean alive = new AtomicBoolean(true);
+		LivenessDetector detector = new FakeDetector(true) {
+			@Override
+			public boolean isAlive(long pid) {
+				return alive.get();
+			}
+		};
+		CountDownLatch exited = new CountDownLatch(1);
+		watcher = new ParentProcessWatcher(exited::countDown, Arrays.asList(new FakeDetector(false), detector));
+		watcher.watch(42);
+		assertFalse(exited.await(100, TimeUnit.MILLISECONDS));
+		alive.set(false);
+		assertTrue(exited.await(1, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testStop() throws Exception {
+		CompletableFuture<Void> exit = new CompletableFuture<>();
+		LivenessDetector detector = new FakeDetector(true) {
+			@Override
+			public CompletableFuture<?> onExit(long pid) {
+				return exit;
+			}
+		};
+		CountDownLatch exited = new CountDownLatch(1);
+		watcher = new ParentProcessWatcher(exited::countDown, Collections.singletonList(detector));
+		watcher.watch(42);
+		watcher.stop();
+		exit.complete(null);
+		assertFalse(exited.await(100, TimeUnit.MILLISECONDS));
+	}
+
+	@Test
+	public void testProcFileSystemDetector() throws Exception {
+		ProcFileSystemDetector detector = new ProcFileSystemDetector();
+		assumeTrue(detector.isAvailable());
+		testDetector(detector);
+	}
+
+	@Test
+	public void testProcessHandleDetector() throws Exception {
+		ProcessHandleDetector detector = new ProcessHandleDetector();
+		assumeTrue(detector.isAvailable());
+		testDetector(detector);
+	}
+
+	private void testDetector(LivenessDetector detector) throws Exception {
+		assumeTrue(new File("/bin/sleep").exists());
+		Process process = new ProcessBuilder("/bin/sleep", "60").start();
+		long pid = getPid(process);
+		assumeTrue(pid > 0);
+		assertTrue(detector.isAlive(pid));
+		CountDownLatch exited = new CountDownLatch(1);
+		watcher = new ParentProcessWatcher(exited::countDown, Collections.singletonList(detector));
+		watcher.watch(pid);
+		assertFalse(exited.await(100, TimeUnit.MILLISECONDS));
+		process.destroy();
+		process.waitFor();
+		assertTrue(exited.await(5, TimeUnit.SECONDS));
+		assertFalse(detector.isAlive(pid));
+	}
+
+	private static long getPid(Process process) {
+		try {
+			Field field = process.getClass().getDeclaredField("pid");
+			field.setAccessible(true);
+			return field.getInt(process);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			try {
+				return (Long) Process.class.getMethod("pid").invoke(process);
+			} catch (ReflectiveOperationException e1) {
+				return -1;
+			}
+		}
+	}
+
+	private static class FakeDetector implements LivenessDetector {
+
+		private final boolean available;
+
+		FakeDetector(boolean available) {
+			this.available = available;
+		}
+
+		@Override
+		public boolean isAvailable() {
+			return available;
+		}
+
+		@Override
+		public boolean isAlive(long pid) {
+			return true;
+		}
+
+		@Override
+		public long getPollingInterval() {
+			return 10;
+		}
+	}
+}
@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Red Hat Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat Inc. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ls.core.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.junit.After;
+import org.junit.Test;
+
+public class ServerMetricsTest {
+
+	private ServerMetrics metrics = ServerMetrics.getInstance();
+	private Supplier<Integer> queue = () -> 42;
+
+	@After
+	public void tearDown() {
+		metrics.unregisterGauge("queue", queue);
+		metrics.reset();
+	}
+
+	@Test
+	public void testHistogramBuckets() {
+		long previous = -1;
+		for (long value = 0; value < 1 << 20; value++) {
+			int index = LatencyHistogram.bucketIndex(value);
+			assertTrue(value <= LatencyHistogram.highestValue(index));
+			assertTrue(index >= previous);
+			previous = index;
+		}
+		assertEquals(Long.MAX_VALUE, LatencyHistogram.highestValue(LatencyHistogram.bucketIndex(Long.MAX_VALUE)));
+	}
+
+	@Test
+	public void testPercentiles() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		assertEquals(0, histogram.getValueAtPercentile(99));
+		for (int i = 1; i <= 1000; i++) {
+			histogram.record(i * 1000);
+		}
+		assertEquals(1000, histogram.getCount());
+		assertEquals(1000000, histogram.getMax());
+		assertEquals(500500, histogram.getMean(), 0.1);
+		assertWithin(500000, histogram.getValueAtPercentile(50));
+		assertWithin(990000, histogram.getValueAtPercentile(99));
+		assertEquals(1000000, histogram.getValueAtPercentile(100));
+	}
+
+	@Test
+	public void testOperations() {
+		metrics.start("textDocument/hover").stop();
+		ServerMetrics.Sample failed = metrics.start("textDocument/hover");
+		failed.stop(new IllegalStateException());
+		// a sample is only recorded once
+		failed.stop();
+		metrics.start("textDocument/hover").stop(new CompletionException(new CancellationException()));
+		metrics.start("textDocument/hover").stop(new OperationCanceledException());
+		ServerMetrics.Sample running = metrics.start("textDocument/hover");
+
+		Map<String, Object> hover = metrics.getOperation("textDocument/hover");
+		assertEquals(4L, hover.get("count"));
+		assertEquals(1, hover.get("inFlight"));
+		assertEquals(1L, hover.get("errors"));
+		assertEquals(2L, hover.get("cancelled"));
+
+		running.cancel();
+		hover = metrics.getOperation("textDocument/hover");
+		assertEquals(0, hover.get("inFlight"));
+		assertEquals(3L, hover.get("cancelled"));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testSnapshot() {
+		metrics.increment("units");
+		metrics.increment("units", 2);
+		metrics.registerGauge("queue", queue);
+		metrics.start("workspace/symbol").stop();
+
+		Map<String, Object> snapshot = metrics.snapshot();
+		assertNotNull(snapshot.get("uptime"));
+		assertEquals(3L, ((Map<String, Object>) snapshot.get("counters")).get("units"));
+		assertEquals(42, ((Map<String, Object>) snapshot.get("gauges")).get("queue"));
+		assertNotNull(((Map<String, Object>) snapshot.get("operations")).get("workspace/symbol"));
+	}
+
+	private static void assertWithin(long expected, long actual) {
+		assertTrue("Expected " + expected + " but was " + actual, Math.abs(actual - expected) <= expected / 8);
+	}
+}
@@ -0,0 +1,165 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Red Hat Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat Inc. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ls.core.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeNotNull;
+
+import java.io.File;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.ls.core.internal.JavaClientConnection.JavaLanguageClient;
+import org.eclipse.jdt.ls.core.internal.MessageRecorder.RecordedMessage;
+import org.eclipse.jdt.ls.core.internal.handlers.JDTLanguageServer;
+import org.eclipse.jdt.ls.core.internal.managers.AbstractProjectsManagerBasedTest;
+import org.eclipse.lsp4j.DidCloseTextDocumentParams;
+import org.eclipse.lsp4j.DidOpenTextDocumentParams;
+import org.eclipse.lsp4j.DocumentSymbolParams;
+import org.eclipse.lsp4j.Position;
+import org.eclipse.lsp4j.TextDocumentIdentifier;
+import org.eclipse.lsp4j.TextDocumentItem;
+import org.eclipse.lsp4j.TextDocumentPositionParams;
+import org.eclipse.lsp4j.jsonrpc.messages.NotificationMessage;
+import org.eclipse.lsp4j.jsonrpc.messages.RequestMessage;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+/**
+ * Records a session with {@link MessageRecorder}, then replays it with
+ * {@link SessionReplayer}.
+ *
+ * A session recorded from a real server (see
+ * {@link MessageRecorder#RECORD_PROPERTY}) is replayed against the
+ * <code>eclipse/hello</code> fixture project by
+ * {@link #testReplayRecording()} when <code>-Djdt.ls.replay=&lt;file&gt;</code>
+ * is set. <code>-Djdt.ls.replay.uri=&lt;uri&gt;</code> is the recorded
+ * project uri, rewritten to the fixture project's.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class SessionReplayTest extends AbstractProjectsManagerBasedTest {
+
+	private static final String RECORDED_ROOT = "file:///recorded/hello/";
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Mock
+	private JavaLanguageClient client;
+
+	private JDTLanguageServer server;
+	private String projectUri;
+
+	@Before
+	public void setup() throws Exception {
+		importProjects("eclipse/hello");
+		IProject project = WorkspaceHelper.getProject("hello");
+		projectUri = ResourceUtils.fixURI(project.getRawLocationURI());
+		if (!projectUri.endsWith("/")) {
+			projectUri += "/";
+		}
+		server = new JDTLanguageServer(projectsManager, preferenceManager);
+		server.connectClient(client);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		for (ICompilationUnit cu : JavaCore.getWorkingCopies(null)) {
+			cu.discardWorkingCopy();
+		}
+	}
+
+	@Test
+	public void testRecordAndReplay() throws Exception {
+		File file = folder.newFile("session.jsonl.gz");
+		String uri = RECORDED_ROOT + "src/java/Foo.java";
+		String content = ResourceUtils.getContent(new URI(projectUri + "src/java/Foo.java"));
+		try (MessageRecorder recorder = new MessageRecorder(file)) {
+			recorder.record(request("0", "initialize", null));
+			recorder.record(notification("textDocument/didOpen", new DidOpenTextDocumentParams(new TextDocumentItem(uri, "java", 1, content))));
+			recorder.record(request("1", "textDocument/hover", new TextDocumentPositionParams(new TextDocumentIdentifier(uri), new Position(8, 15))));
+			recorder.record(request("2", "textDocument/documentSymbol", new DocumentSymbolParams(new TextDocumentIdentifier(uri))));
+			recorder.record(notification("textDocument/didClose", new DidCloseTextDocumentParams(new TextDocumentIdentifier(uri))));
+		}
+
+		List<RecordedMessage> messages = MessageRecorder.read(file);
+		assertEquals(5, messages.size());
+		assertTrue(messages.get(0).getJson().contains("\"initialize\""));
+
+		SessionReplayer replayer = new SessionReplayer(server).rewriteUri(RECORDED_ROOT, projectUri);
+		assertTrue(replayer.replay(messages, 30, TimeUnit.SECONDS));
+		Map<String, LatencyHistogram> latencies = replayer.getLatencies();
+		assertEquals(latencies.keySet().toString(), 4, latencies.size());
+		assertEquals(1, latencies.get("textDocument/hover").getCount());
+		assertEquals(1, latencies.get("textDocument/documentSymbol").getCount());
+		assertEquals(0, replayer.getErrorCount("textDocument/hover"));
+		assertEquals(0, replayer.getErrorCount("textDocument/documentSymbol"));
+	}
+
+	@Test
+	public void testReadTruncatedRecording() throws Exception {
+		File file = folder.newFile("session.jsonl.gz");
+		File truncated = folder.newFile("truncated.jsonl.gz");
+		try (MessageRecorder recorder = new MessageRecorder(file)) {
+			recorder.record(request("0", "initialize", null));
+			recorder.record(request("1", "shutdown", null));
+			// as left by a killed server
+			Files.copy(file.toPath(), truncated.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+
+		List<RecordedMessage> messages = MessageRecorder.read(truncated);
+		assertEquals(2, messages.size());
+		assertTrue(messages.get(1).getJson().contains("\"shutdown\""));
+	}
+
+	@Test
+	public void testReplayRecording() throws Exception {
+		String recording = System.getProperty("jdt.ls.replay");
+		assumeNotNull(recording);
+		SessionReplayer replayer = new SessionReplayer(server).withTimeScale(1);
+		String recordedUri = System.getProperty("jdt.ls.replay.uri");
+		if (recordedUri != null) {
+			replayer.rewriteUri(recordedUri, projectUri);
+		}
+		boolean completed = replayer.replay(MessageRecorder.read(new File(recording)), 5, TimeUnit.MINUTES);
+		JavaLanguageServerPlugin.getOut().println(replayer.getReport());
+		assertTrue("Some requests were not answered", completed);
+	}
+
+	private static RequestMessage request(String id, String method, Object params) {
+		RequestMessage message = new RequestMessage();
+		message.setId(id);
+		message.setMethod(method);
+		message.setParams(params);
+		return message;
+	}
+
+	private static NotificationMessage notification(String method, Object params) {
+		NotificationMessage message = new NotificationMessage();
+		message.setMethod(method);
+		message.setParams(params);
+		return message;
+	}
+}
@@ -0,0 +1,191 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Red Hat Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat Inc. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ls.core.internal;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jdt.ls.core.internal.MessageRecorder.RecordedMessage;
+import org.eclipse.lsp4j.jsonrpc.MessageConsumer;
+import org.eclipse.lsp4j.jsonrpc.RemoteEndpoint;
+import org.eclipse.lsp4j.jsonrpc.json.MessageJsonHandler;
+import org.eclipse.lsp4j.jsonrpc.messages.Message;
+import org.eclipse.lsp4j.jsonrpc.messages.NotificationMessage;
+import org.eclipse.lsp4j.jsonrpc.messages.RequestMessage;
+import org.eclipse.lsp4j.jsonrpc.messages.ResponseMessage;
+import org.eclipse.lsp4j.jsonrpc.services.ServiceEndpoints;
+
+/**
+ * Replays a session recorded by {@link MessageRecorder} against a language
+ * server, and measures the latency of every request and notification.
+ *
+ * Lifecycle messages are skipped: the server is expected to be connected to a
+ * client, and its workspace to be already imported. Document uris of the
+ * recording can be rewritten to point to the fixture workspace.
+ */
+public class SessionReplayer {
+
+	private static final Set<String> SKIPPED_METHODS = new HashSet<>(Arrays.asList("initialize", "initialized", "shutdown", "exit"));
+
+	private final MessageJsonHandler jsonHandler;
+	private final RemoteEndpoint endpoint;
+	private final Map<String, String> uriRewrites = new LinkedHashMap<>();
+	private final Map<String, PendingRequest> pending = new ConcurrentHashMap<>();
+	private final Map<String, LatencyHistogram> latencies = new ConcurrentHashMap<>();
+	private final Map<String, AtomicLong> errors = new ConcurrentHashMap<>();
+	private double timeScale;
+
+	public SessionReplayer(Object languageServer) {
+		jsonHandler = new MessageJsonHandler(ServiceEndpoints.getSupportedMethods(languageServer.getClass()));
+		MessageConsumer responses = this::handleResponse;
+		endpoint = new RemoteEndpoint(responses, ServiceEndpoints.toEndpoint(languageServer));
+		jsonHandler.setMethodProvider(endpoint);
+	}
+
+	/**
+	 * Replaces all occurrences of the given uri prefix in the recorded messages.
+	 */
+	public SessionReplayer rewriteUri(String recorded, String replayed) {
+		uriRewrites.put(recorded, replayed);
+		return this;
+	}
+
+	/**
+	 * Sets the pace of the replay: <code>0</code> (the default) sends messages
+	 * as fast as possible, <code>1</code> reproduces the recorded delays
+	 * between messages, <code>0.5</code> replays twice as fast.
+	 */
+	public SessionReplayer withTimeScale(double timeScale) {
+		this.timeScale = timeScale;
+		return this;
+	}
+
+	/**
+	 * Replays the given messages, in order, then waits for all the requests to
+	 * be answered.
+	 *
+	 * @return <code>true</code> if all the requests were answered before the
+	 *         timeout elapsed
+	 */
+	public boolean replay(Iterable<RecordedMessage> messages, long timeout, TimeUnit unit) throws InterruptedException {
+		long start = System.currentTimeMillis();
+		for (RecordedMessage recorded : messages) {
+			if (timeScale > 0) {
+				long delay = start + (long) (recorded.getTime() * timeScale) - System.currentTimeMillis();
+				if (delay > 0) {
+					Thread.sleep(delay);
+				}
+			}
+			dispatch(jsonHandler.parseMessage(rewrite(recorded.getJson())));
+		}
+		long end = System.currentTimeMillis() + unit.toMillis(timeout);
+		while (!pending.isEmpty() && System.currentTimeMillis() < end) {
+			Thread.sleep(10);
+		}
+		return pending.isEmpty();
+	}
+
+	private String rewrite(String json) {
+		String result = json;
+		for (Map.Entry<String, String> rewrite : uriRewrites.entrySet()) {
+			result = result.replace(rewrite.getKey(), rewrite.getValue());
+		}
+		return result;
+	}
+
+	private void dispatch(Message message) {
+		if (message instanceof RequestMessage) {
+			RequestMessage request = (RequestMessage) message;
+			if (SKIPPED_METHODS.contains(request.getMethod())) {
+				return;
+			}
+			pending.put(request.getId(), new PendingRequest(request.getMethod()));
+			endpoint.consume(request);
+		} else if (message instanceof NotificationMessage) {
+			NotificationMessage notification = (NotificationMessage) message;
+			if (SKIPPED_METHODS.contains(notification.getMethod())) {
+				return;
+			}
+			long start = System.nanoTime();
+			try {
+				endpoint.consume(notification);
+			} catch (RuntimeException e) {
+				getErrors(notification.getMethod()).incrementAndGet();
+			}
+			getLatencies(notification.getMethod()).record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+		}
+	}
+
+	private void handleResponse(Message message) {
+		if (!(message instanceof ResponseMessage)) {
+			// requests and notifications sent by the server to the client
+			return;
+		}
+		ResponseMessage response = (ResponseMessage) message;
+		PendingRequest request = pending.remove(response.getId());
+		if (request != null) {
+			getLatencies(request.method).record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - request.start));
+			if (response.getError() != null) {
+				getErrors(request.method).incrementAndGet();
+			}
+		}
+	}
+
+	private LatencyHistogram getLatencies(String method) {
+		return latencies.computeIfAbsent(method, m -> new LatencyHistogram());
+	}
+
+	private AtomicLong getErrors(String method) {
+		return errors.computeIfAbsent(method, m -> new AtomicLong());
+	}
+
+	/**
+	 * @return the latencies of the replayed requests and notifications, by
+	 *         method
+	 */
+	public Map<String, LatencyHistogram> getLatencies() {
+		return new TreeMap<>(latencies);
+	}
+
+	public long getErrorCount(String method) {
+		AtomicLong count = errors.get(method);
+		return count == null ? 0 : count.get();
+	}
+
+	/**
+	 * @return a report of the latencies per method, in milliseconds
+	 */
+	public String getReport() {
+		StringBuilder report = new StringBuilder(String.format("%-40s %8s %8s %10s %10s %10s %10s%n", "method", "count", "errors", "mean", "p50", "p90", "max"));
+		getLatencies().forEach((method, histogram) -> {
+			report.append(String.format("%-40s %8d %8d %10.1f %10.1f %10.1f %10.1f%n", method, histogram.getCount(), getErrorCount(method), histogram.getMean() / 1000d,
+					histogram.getValueAtPercentile(50) / 1000d, histogram.getValueAtPercentile(90) / 1000d, histogram.getMax() / 1000d));
+		});
+		return report.toString();
+	}
+
+	private static final class PendingRequest {
+
+		private final String method;
+		private final long start = System.nanoTime();
+
+		PendingRequest(String method) {
+			this.method = method;
+		}
+	}
+}
@@ -0,0 +1,233 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Red Hat Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat Inc. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ls.core.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.ls.core.internal.managers.AbstractProjectsManagerBasedTest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SharedASTProviderTest extends AbstractProjectsManagerBasedTest {
+
+	private SharedASTProvider sharedASTProvider;
+	private ICompilationUnit cu1;
+	private ICompilationUnit cu2;
+	private ICompilationUnit cu3;
+	private long memoryBudget;
+
+	@Before
+	public void setup() throws Exception {
+		sharedASTProvider = SharedASTProvider.getInstance();
+		memoryBudget = sharedASTProvider.getMemoryBudget();
+		sharedASTProvider.invalidateAll();
+		sharedASTProvider.clearASTCreationCount();
+
+		IJavaProject javaProject = newEmptyProject();
+		IPackageFragmentRoot sourceFolder = javaProject.getPackageFragmentRoot(javaProject.getProject().getFolder("src"));
+		IPackageFragment pack1 = sourceFolder.createPackageFragment("test1", false, null);
+		cu1 = pack1.createCompilationUnit("A1.java", "package test1;\npublic class A1 {\n  void foo() {}\n}\n", false, null);
+		cu2 = pack1.createCompilationUnit("A2.java", "package test1;\npublic class A2 {\n  void foo() {}\n}\n", false, null);
+		cu3 = pack1.createCompilationUnit("A3.java", "package test1;\npublic class A3 {\n  void foo() {}\n}\n", false, null);
+		for (ICompilationUnit cu : Arrays.asList(cu1, cu2, cu3)) {
+			cu.becomeWorkingCopy(null);
+		}
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		sharedASTProvider.setMemoryBudget(memoryBudget);
+		sharedASTProvider.invalidateAll();
+		for (ICompilationUnit cu : JavaCore.getWorkingCopies(null)) {
+			cu.discardWorkingCopy();
+		}
+	}
+
+	@Test
+	public void testHitsAndMisses() throws Exception {
+		long hits = sharedASTProvider.getHitCount();
+		long misses = sharedASTProvider.getMissCount();
+
+		CompilationUnit ast = sharedASTProvider.getAST(cu1, null);
+		assertNotNull(ast);
+		assertSame(ast, sharedASTProvider.getAST(cu1, null));
+
+		assertEquals(hits + 1, sharedASTProvider.getHitCount());
+		assertEquals(misses + 1, sharedASTProvider.getMissCount());
+		assertEquals(1, sharedASTProvider.getASTCreationCount());
+		assertTrue(sharedASTProvider.getCacheBytes() > 0);
+
+		sharedASTProvider.invalidate(cu1);
+		assertEquals(0, sharedASTProvider.getCacheBytes());
+	}
+
+	@Test
+	public void testEvictLeastRecentlyUsed() throws Exception {
+		CompilationUnit ast1 = sharedASTProvider.getAST(cu1, null);
+		sharedASTProvider.getAST(cu2, null);
+		long bytes = sharedASTProvider.getCacheBytes();
+		long evictions = sharedASTProvider.getEvictionCount();
+
+		// cu1 is used again, cu2 is now the least recently used
+		sharedASTProvider.getAST(cu1, null);
+		sharedASTProvider.setMemoryBudget(bytes);
+		sharedASTProvider.getAST(cu3, null);
+
+		assertEquals(2, sharedASTProvider.getCacheSize());
+		assertEquals(evictions + 1, sharedASTProvider.getEvictionCount());
+		assertTrue(sharedASTProvider.getCacheBytes() <= bytes);
+		assertSame(ast1, sharedASTProvider.getAST(cu1, null));
+		assertEquals(3, sharedASTProvider.getASTCreationCount());
+
+		// the evicted AST is created again
+		assertNotNull(sharedASTProvider.getAST(cu2, null));
+		assertEquals(4, sharedASTProvider.getASTCreationCount());
+	}
+
+	@Test
+	public void testKeepMostRecentlyUsed() throws Exception {
+		sharedASTProvider.setMemoryBudget(1);
+		CompilationUnit ast = sharedASTProvider.getAST(cu1, null);
+		assertEquals(1, sharedASTProvider.getCacheSize());
+		assertSame(ast, sharedASTProvider.getAST(cu1, null));
+
+		sharedASTProvider.getAST(cu2, null);
+		assertEquals(1, sharedASTProvider.getCacheSize());
+	}
+
+	@Test
+	public void testSingleFlight() throws Exception {
+		CountDownLatch creating = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		CompletableFuture<CompilationUnit> first = CompletableFuture.supplyAsync(() -> sharedASTProvider.getAST(cu1, new BlockingMonitor(creating, release)));
+		assertTrue(creating.await(10, TimeUnit.SECONDS));
+
+		long hits = sharedASTProvider.getHitCount();
+		CompletableFuture<CompilationUnit> second = CompletableFuture.supplyAsync(() -> sharedASTProvider.getAST(cu1, null));
+		while (sharedASTProvider.getHitCount() == hits) {
+			Thread.sleep(10);
+		}
+		release.countDown();
+
+		assertNotNull(first.get(10, TimeUnit.SECONDS));
+		assertSame(first.get(), second.get(10, TimeUnit.SECONDS));
+		assertEquals(1, sharedASTProvider.getASTCreationCount());
+	}
+
+	@Test
+	public void testCancelWhileWaiting() throws Exception {
+		CountDownLatch creating = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		CompletableFuture<CompilationUnit> first = CompletableFuture.supplyAsync(() -> sharedASTProvider.getAST(cu1, new BlockingMonitor(creating, release)));
+		assertTrue(creating.await(10, TimeUnit.SECONDS));
+
+		// cancelled once it waits for the AST created by the first request
+		IProgressMonitor cancelled = new NullProgressMonitor() {
+			private final AtomicInteger calls = new AtomicInteger();
+
+			@Override
+			public boolean isCanceled() {
+				return calls.incrementAndGet() > 1;
+			}
+		};
+		assertNull(sharedASTProvider.getAST(cu1, cancelled));
+		assertEquals(0, sharedASTProvider.getASTCreationCount());
+
+		release.countDown();
+		assertNotNull(first.get(10, TimeUnit.SECONDS));
+		assertEquals(1, sharedASTProvider.getASTCreationCount());
+	}
+
+	@Test
+	public void testLastAST() throws Exception {
+		CompilationUnit ast = sharedASTProvider.getAST(cu1, null);
+		sharedASTProvider.outdate(cu1);
+		assertSame(ast, sharedASTProvider.getLastAST(cu1));
+		assertEquals(1, sharedASTProvider.getCacheSize());
+
+		CompilationUnit newAST = sharedASTProvider.getAST(cu1, null);
+		assertNotSame(ast, newAST);
+		assertSame(newAST, sharedASTProvider.getLastAST(cu1));
+		assertEquals(2, sharedASTProvider.getASTCreationCount());
+
+		sharedASTProvider.invalidate(cu1);
+		assertNull(sharedASTProvider.getLastAST(cu1));
+	}
+
+	@Test
+	public void testSyntaxAST() throws Exception {
+		CompilationUnit syntaxAST = sharedASTProvider.getSyntaxAST(cu1, null);
+		assertNotNull(syntaxAST);
+		assertEquals(false, syntaxAST.getAST().hasResolvedBindings());
+		assertSame(syntaxAST, sharedASTProvider.getSyntaxAST(cu1, null));
+		assertEquals(0, sharedASTProvider.getASTCreationCount());
+
+		// replaced once the bound AST is created
+		CompilationUnit ast = sharedASTProvider.getAST(cu1, null);
+		assertEquals(true, ast.getAST().hasResolvedBindings());
+		assertSame(ast, sharedASTProvider.getSyntaxAST(cu1, null));
+
+		sharedASTProvider.outdate(cu1);
+		CompilationUnit newSyntaxAST = sharedASTProvider.getSyntaxAST(cu1, null);
+		assertEquals(false, newSyntaxAST.getAST().hasResolvedBindings());
+		assertNotSame(syntaxAST, newSyntaxAST);
+		assertEquals(1, sharedASTProvider.getASTCreationCount());
+	}
+
+	/**
+	 * Blocks the creation of an AST, on the second check of the cancellation
+	 */
+	private static final class BlockingMonitor extends NullProgressMonitor {
+
+		private final AtomicInteger calls = new AtomicInteger();
+		private final CountDownLatch creating;
+		private final CountDownLatch release;
+
+		BlockingMonitor(CountDownLatch creating, CountDownLatch release) {
+			this.creating = creating;
+			this.release = release;
+		}
+
+		@Override
+		public boolean isCanceled() {
+			if (calls.incrementAndGet() == 2) {
+				creating.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			return false;
+		}
+	}
+}
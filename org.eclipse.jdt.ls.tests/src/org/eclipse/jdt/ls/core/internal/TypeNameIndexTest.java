@@ -0,0 +1,166 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Red Hat Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat Inc. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ls.core.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jdt.core.Flags;
+import org.eclipse.jdt.core.IAccessRule;
+import org.eclipse.jdt.core.IClasspathEntry;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.search.TypeNameMatch;
+import org.eclipse.jdt.ls.core.internal.managers.AbstractProjectsManagerBasedTest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TypeNameIndexTest extends AbstractProjectsManagerBasedTest {
+
+	private TypeNameIndex typeNameIndex;
+	private IJavaProject javaProject;
+	private IPackageFragment pack1;
+
+	@Before
+	public void setup() throws Exception {
+		typeNameIndex = TypeNameIndex.getInstance();
+		typeNameIndex.dispose();
+		javaProject = newEmptyProject();
+		IPackageFragmentRoot sourceFolder = javaProject.getPackageFragmentRoot(javaProject.getProject().getFolder("src"));
+		pack1 = sourceFolder.createPackageFragment("test1", false, null);
+		pack1.createCompilationUnit("FooBarBaz.java", "package test1;\npublic interface FooBarBaz {\n  class Inner {}\n}\n", false, null);
+		pack1.createCompilationUnit("Foobar.java", "package test1;\nclass Foobar {\n}\n", false, null);
+		waitForBackgroundJobs();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		typeNameIndex.dispose();
+		for (ICompilationUnit unit : JavaCore.getWorkingCopies(null)) {
+			unit.discardWorkingCopy();
+		}
+	}
+
+	@Test
+	public void testFindTypes() throws Exception {
+		// the first query only schedules the indexing
+		assertNull(typeNameIndex.findTypes(javaProject, new char[][] { "FooBarBaz".toCharArray() }));
+
+		List<TypeNameMatch> types = findTypes("FooBarBaz");
+		assertEquals(1, types.size());
+		assertEquals("test1.FooBarBaz", types.get(0).getFullyQualifiedName());
+		assertTrue(Flags.isInterface(types.get(0).getModifiers()));
+		assertEquals(IAccessRule.K_ACCESSIBLE, types.get(0).getAccessibility());
+
+		types = findTypes("Inner");
+		assertEquals(1, types.size());
+		assertEquals("test1.FooBarBaz.Inner", types.get(0).getFullyQualifiedName());
+		assertEquals("FooBarBaz.Inner", types.get(0).getTypeQualifiedName('.'));
+
+		assertEquals(0, findTypes("foobarbaz").size());
+		assertEquals("[test1.FooBarBaz, test1.Foobar]", getNames(findTypes("FooBarBaz", "Foobar")));
+	}
+
+	@Test
+	public void testFindTypesByPrefix() throws Exception {
+		assertEquals("[test1.FooBarBaz, test1.Foobar]", getSourceNames(findTypesByPrefix("foob", false)));
+		assertEquals("[test1.FooBarBaz]", getSourceNames(findTypesByPrefix("FooBarB", false)));
+		assertEquals("[]", getSourceNames(findTypesByPrefix("FBB", false)));
+		assertEquals("[test1.FooBarBaz]", getSourceNames(findTypesByPrefix("FBB", true)));
+		assertEquals("[test1.FooBarBaz]", getSourceNames(findTypesByPrefix("FoBa", true)));
+		assertTrue(getNames(findTypesByPrefix("HaMa", true)).contains("java.util.HashMap"));
+	}
+
+	@Test
+	public void testAccessRules() throws Exception {
+		IClasspathEntry[] classpath = javaProject.getRawClasspath();
+		for (int i = 0; i < classpath.length; i++) {
+			if (classpath[i].getEntryKind() == IClasspathEntry.CPE_CONTAINER) {
+				IAccessRule rule = JavaCore.newAccessRule(new Path("java/util/*"), IAccessRule.K_DISCOURAGED);
+				classpath[i] = JavaCore.newContainerEntry(classpath[i].getPath(), new IAccessRule[] { rule }, classpath[i].getExtraAttributes(), false);
+			}
+		}
+		javaProject.setRawClasspath(classpath, null);
+		waitForBackgroundJobs();
+
+		List<TypeNameMatch> types = findTypes("ArrayList");
+		assertEquals("[java.util.ArrayList]", getNames(types));
+		assertEquals(IAccessRule.K_DISCOURAGED, types.get(0).getAccessibility());
+		// looked up in the Java model on request
+		assertEquals("java.util.ArrayList", types.get(0).getType().getFullyQualifiedName());
+		assertEquals(IAccessRule.K_ACCESSIBLE, findTypes("String").get(0).getAccessibility());
+	}
+
+	@Test
+	public void testUpdateFromDeltas() throws Exception {
+		assertEquals(0, findTypes("Added").size());
+
+		ICompilationUnit unit = pack1.createCompilationUnit("Added.java", "package test1;\npublic class Added {\n}\n", false, null);
+		assertEquals(1, findTypes("Added").size());
+
+		// a working copy is updated as it is reconciled
+		unit.becomeWorkingCopy(null);
+		unit.getBuffer().replace(unit.getSource().indexOf("Added {"), 5, "Renamed");
+		unit.reconcile(ICompilationUnit.NO_AST, false, null, null);
+		assertEquals(0, findTypes("Added").size());
+		assertEquals(1, findTypes("Renamed").size());
+
+		unit.discardWorkingCopy();
+		unit.delete(true, null);
+		assertEquals(0, findTypes("Added").size());
+		assertEquals(0, findTypes("Renamed").size());
+	}
+
+	private List<TypeNameMatch> findTypes(String... names) throws Exception {
+		char[][] simpleNames = Stream.of(names).map(String::toCharArray).toArray(char[][]::new);
+		List<TypeNameMatch> types = typeNameIndex.findTypes(javaProject, simpleNames);
+		if (types == null) {
+			Job.getJobManager().join(TypeNameIndex.INDEX_JOBS, null);
+			types = typeNameIndex.findTypes(javaProject, simpleNames);
+		}
+		assertNotNull(types);
+		return types;
+	}
+
+	private List<TypeNameMatch> findTypesByPrefix(String prefix, boolean camelCase) throws Exception {
+		List<TypeNameMatch> types = typeNameIndex.findTypesByPrefix(javaProject, prefix.toCharArray(), camelCase);
+		if (types == null) {
+			Job.getJobManager().join(TypeNameIndex.INDEX_JOBS, null);
+			types = typeNameIndex.findTypesByPrefix(javaProject, prefix.toCharArray(), camelCase);
+		}
+		assertNotNull(types);
+		return types;
+	}
+
+	private static String getNames(List<TypeNameMatch> types) {
+		return types.stream().map(TypeNameMatch::getFullyQualifiedName).sorted().collect(Collectors.toList()).toString();
+	}
+
+	/**
+	 * @return the names of the given types declared in the sources of the test
+	 *         project
+	 */
+	private static String getSourceNames(List<TypeNameMatch> types) {
+		return getNames(types.stream().filter(type -> type.getPackageName().equals("test1")).collect(Collectors.toList()));
+	}
+}
@@ -73,5 +73,6 @@ public abstract class AbstractCompilationUnitBasedTest extends AbstractProjectsM
 	@After
 	public void shutdown() throws Exception {
 		SharedASTProvider.getInstance().invalidateAll();
+		CompletionResponses.clear();
 	}
 }
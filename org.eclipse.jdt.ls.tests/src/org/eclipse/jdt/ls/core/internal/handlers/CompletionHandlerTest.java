@@ -12,11 +12,14 @@ package org.eclipse.jdt.ls.core.internal.handlers;
 
 
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
+import static org.eclipse.jdt.ls.core.internal.Lsp4jAssertions.assertRange;
 import static org.eclipse.jdt.ls.core.internal.Lsp4jAssertions.assertTextEdit;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.reset;
@@ -26,14 +29,15 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
 import java.util.stream.Collectors;
 
 import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.jdt.ls.core.internal.JDTUtils;
 import org.eclipse.jdt.ls.core.internal.JsonMessageHelper;
+import org.eclipse.jdt.ls.core.internal.ServerMetrics;
 import org.eclipse.jdt.ls.core.internal.WorkspaceHelper;
+import org.eclipse.jdt.ls.core.internal.contentassist.CompletionResolveContext;
 import org.eclipse.jdt.ls.core.internal.preferences.ClientPreferences;
 import org.eclipse.lsp4j.CompletionItem;
 import org.eclipse.lsp4j.CompletionItemKind;
@@ -105,13 +109,11 @@ public class CompletionHandlerTest extends AbstractCompilationUnitBasedTest {
 			assertNotNull(item.getFilterText());
 			assertFalse(item.getFilterText().contains(" "));
 			assertTrue(item.getLabel().startsWith(item.getFilterText()));
+			//the detail is computed on resolve
+			assertNull(item.getDetail());
 			//Check contains data used for completionItem resolution
-			@SuppressWarnings("unchecked")
-			Map<String,String> data = (Map<String, String>) item.getData();
-			assertNotNull(data);
-			assertTrue(isNotBlank(data.get(CompletionResolveHandler.DATA_FIELD_URI)));
-			assertTrue(isNotBlank(data.get(CompletionResolveHandler.DATA_FIELD_PROPOSAL_ID)));
-			assertTrue(isNotBlank(data.get(CompletionResolveHandler.DATA_FIELD_REQUEST_ID)));
+			assertTrue(item.getData() instanceof String);
+			assertTrue(isNotBlank((String) item.getData()));
 		}
 	}
 
@@ -441,13 +443,15 @@ public class CompletionHandlerTest extends AbstractCompilationUnitBasedTest {
 		CompletionList list = server.completion(JsonMessageHelper.getParams(createCompletionRequest(unit, loc[0], loc[1]))).join().getRight();
 		assertNotNull(list);
 		List<CompletionItem> filtered = list.getItems().stream().filter((item)->{
-			return item.getDetail() != null && item.getDetail().startsWith("Override method in");
+			// the detail is computed on resolve
+			return item.getKind() == CompletionItemKind.Method;
 		}).collect(Collectors.toList());
 		assertFalse("No override proposals", filtered.isEmpty());
 		CompletionItem oride = filtered.get(0);
 		assertEquals("toString", oride.getInsertText());
 		assertNull(oride.getTextEdit());
 		oride = server.resolveCompletionItem(oride).join();
+		assertTrue(oride.getDetail().startsWith("Override method in"));
 		assertNotNull(oride.getTextEdit());
 		String text = oride.getTextEdit().getNewText();
 		StringBuilder expectedText = new StringBuilder();
@@ -486,13 +490,15 @@ public class CompletionHandlerTest extends AbstractCompilationUnitBasedTest {
 				.getRight();
 		assertNotNull(list);
 		List<CompletionItem> filtered = list.getItems().stream().filter((item) -> {
-			return item.getDetail() != null && item.getDetail().startsWith("Override method in");
+			// the detail is computed on resolve
+			return item.getKind() == CompletionItemKind.Method;
 		}).collect(Collectors.toList());
 		assertFalse("No override proposals", filtered.isEmpty());
 		CompletionItem oride = filtered.get(0);
 		assertEquals("run", oride.getInsertText());
 		assertNull(oride.getTextEdit());
 		oride = server.resolveCompletionItem(oride).join();
+		assertTrue(oride.getDetail().startsWith("Override method in"));
 		assertNotNull(oride.getTextEdit());
 		String text = oride.getTextEdit().getNewText();
 		StringBuilder expectedText = new StringBuilder();
@@ -523,13 +529,15 @@ public class CompletionHandlerTest extends AbstractCompilationUnitBasedTest {
 		CompletionList list = server.completion(JsonMessageHelper.getParams(createCompletionRequest(unit, loc[0], loc[1]))).join().getRight();
 		assertNotNull(list);
 		List<CompletionItem> filtered = list.getItems().stream().filter((item)->{
-			return item.getDetail() != null && item.getDetail().startsWith("Override method in");
+			// the detail is computed on resolve
+			return item.getKind() == CompletionItemKind.Method;
 		}).collect(Collectors.toList());
 		assertEquals("No override proposals", filtered.size(), 1);
 		CompletionItem oride = filtered.get(0);
 		assertEquals("getParent", oride.getInsertText());
 		assertNull(oride.getTextEdit());
 		oride = server.resolveCompletionItem(oride).join();
+		assertTrue(oride.getDetail().startsWith("Override method in"));
 		assertNotNull(oride.getTextEdit());
 		String text = oride.getTextEdit().getNewText();
 
@@ -560,13 +568,15 @@ public class CompletionHandlerTest extends AbstractCompilationUnitBasedTest {
 		CompletionList list = server.completion(JsonMessageHelper.getParams(createCompletionRequest(unit, loc[0], loc[1]))).join().getRight();
 		assertNotNull(list);
 		List<CompletionItem> filtered = list.getItems().stream().filter((item)->{
-			return item.getDetail() != null && item.getDetail().startsWith("Override method in");
+			// the detail is computed on resolve
+			return item.getKind() == CompletionItemKind.Method;
 		}).collect(Collectors.toList());
 		assertEquals("No override proposals", filtered.size(), 1);
 		CompletionItem oride = filtered.get(0);
 		assertEquals("deleteSomething", oride.getInsertText());
 		assertNull(oride.getTextEdit());
 		oride = server.resolveCompletionItem(oride).join();
+		assertTrue(oride.getDetail().startsWith("Override method in"));
 		assertNotNull(oride.getTextEdit());
 		String text = oride.getTextEdit().getNewText();
 
@@ -712,6 +722,313 @@ public class CompletionHandlerTest extends AbstractCompilationUnitBasedTest {
 				"}", resolvedItem.getTextEdit());
 	}
 
+	@Test
+	public void testCompletion_filterPreviousResponse() throws Exception {
+		ICompilationUnit unit = getWorkingCopy(
+				"src/java/Foo.java",
+				"public class Foo {\n"+
+						"	void foo() {\n"+
+						"		Ob\n"+
+						"	}\n"+
+				"}\n");
+		int[] loc = findCompletionLocation(unit, "Ob");
+		CompletionList list = server.completion(JsonMessageHelper.getParams(createCompletionRequest(unit, loc[0], loc[1]))).join().getRight();
+		assertFalse(list.isIncomplete());
+		int size = list.getItems().size();
+		CompletionItem earlier = list.getItems().stream().filter(item -> "Object".equals(item.getInsertText())).findFirst().get();
+
+		// the user keeps typing the prefix
+		unit.getBuffer().replace(unit.getSource().indexOf("Ob") + 2, 0, "jec");
+		long filtered = ServerMetrics.getInstance().getCounter(CompletionHandler.FILTERED_METRIC);
+		loc = findCompletionLocation(unit, "Objec");
+		list = server.completion(JsonMessageHelper.getParams(createCompletionRequest(unit, loc[0], loc[1]))).join().getRight();
+		assertEquals(filtered + 1, ServerMetrics.getInstance().getCounter(CompletionHandler.FILTERED_METRIC));
+		assertFalse(list.getItems().isEmpty());
+		assertTrue(list.getItems().size() < size);
+		for (CompletionItem item : list.getItems()) {
+			assertTrue(item.getInsertText(), item.getInsertText().toLowerCase().startsWith("objec"));
+		}
+
+		// the replace range follows the prefix
+		CompletionItem object = list.getItems().stream().filter(item -> "Object".equals(item.getInsertText())).findFirst().get();
+		object = server.resolveCompletionItem(object).join();
+		assertTextEdit(2, 2, 7, "Object", object.getTextEdit());
+		// the items of the previous list are still resolved for its prefix
+		earlier = server.resolveCompletionItem(earlier).join();
+		assertTextEdit(2, 2, 4, "Object", earlier.getTextEdit());
+
+		// the document changed elsewhere
+		unit.getBuffer().replace(0, 0, " ");
+		list = server.completion(JsonMessageHelper.getParams(createCompletionRequest(unit, loc[0], loc[1]))).join().getRight();
+		assertEquals(filtered + 1, ServerMetrics.getInstance().getCounter(CompletionHandler.FILTERED_METRIC));
+	}
+
+	@Test
+	public void testCompletion_filterQualifiedEmptyPrefix() throws Exception {
+		ICompilationUnit unit = getWorkingCopy(
+				"src/java/Foo.java",
+				"public class Foo {\n"+
+						"	void foo(String s) {\n"+
+						"		s.\n"+
+						"	}\n"+
+				"}\n");
+		int[] loc = findCompletionLocation(unit, "s.");
+		preferences.setCompletionMaxResults(3);
+		CompletionList list = server.completion(JsonMessageHelper.getParams(createCompletionRequest(unit, loc[0], loc[1]))).join().getRight();
+		// only truncated, the members of String are all proposed
+		assertTrue(list.isIncomplete());
+		assertEquals(3, list.getItems().size());
+
+		unit.getBuffer().replace(unit.getSource().indexOf("s.") + 2, 0, "ch");
+		long filtered = ServerMetrics.getInstance().getCounter(CompletionHandler.FILTERED_METRIC);
+		loc = findCompletionLocation(unit, "s.ch");
+		list = server.completion(JsonMessageHelper.getParams(createCompletionRequest(unit, loc[0], loc[1]))).join().getRight();
+		assertEquals(filtered + 1, ServerMetrics.getInstance().getCounter(CompletionHandler.FILTERED_METRIC));
+		CompletionItem charAt = list.getItems().stream().filter(item -> item.getLabel().startsWith("charAt(")).findFirst().get();
+		for (CompletionItem item : list.getItems()) {
+			assertTrue(item.getLabel(), item.getLabel().startsWith("ch"));
+		}
+		charAt = server.resolveCompletionItem(charAt).join();
+		assertRange(2, 4, 6, charAt.getTextEdit().getRange());
+	}
+
+	@Test
+	public void testCompletion_emptyPrefixIsIncomplete() throws Exception {
+		ICompilationUnit unit = getWorkingCopy(
+				"src/java/Foo.java",
+				"public class Foo {\n"+
+						"	void foo() {\n"+
+						"		\n"+
+						"	}\n"+
+				"}\n");
+		int[] loc = findCompletionLocation(unit, "{\n\t\t");
+		CompletionList list = server.completion(JsonMessageHelper.getParams(createCompletionRequest(unit, loc[0], loc[1]))).join().getRight();
+		assertTrue(list.isIncomplete());
+	}
+
+	@Test
+	public void testCompletion_maxResults() throws Exception {
+		ICompilationUnit unit = getWorkingCopy(
+				"src/java/Foo.java",
+				"public class Foo {\n"+
+						"	void foo() {\n"+
+						"		Ob\n"+
+						"	}\n"+
+				"}\n");
+		int[] loc = findCompletionLocation(unit, "Ob");
+		CompletionList all = server.completion(JsonMessageHelper.getParams(createCompletionRequest(unit, loc[0], loc[1]))).join().getRight();
+		assertFalse(all.isIncomplete());
+		List<String> sortTexts = all.getItems().stream().map(CompletionItem::getSortText).sorted().collect(Collectors.toList());
+		assertTrue(sortTexts.size() > 3);
+
+		preferences.setCompletionMaxResults(3);
+		CompletionResponses.clear();
+		CompletionList list = server.completion(JsonMessageHelper.getParams(createCompletionRequest(unit, loc[0], loc[1]))).join().getRight();
+		assertTrue(list.isIncomplete());
+		assertEquals(3, list.getItems().size());
+		// the best ranked items are kept
+		assertEquals(sortTexts.subList(0, 3), list.getItems().stream().map(CompletionItem::getSortText).sorted().collect(Collectors.toList()));
+
+		// the previous response is ranked again as the prefix gets longer
+		unit.getBuffer().replace(unit.getSource().indexOf("Ob") + 2, 0, "j");
+		loc = findCompletionLocation(unit, "Obj");
+		list = server.completion(JsonMessageHelper.getParams(createCompletionRequest(unit, loc[0], loc[1]))).join().getRight();
+		assertFalse(list.getItems().isEmpty());
+		assertTrue(list.getItems().size() <= 3);
+		for (CompletionItem item : list.getItems()) {
+			assertTrue(item.getInsertText(), item.getInsertText().toLowerCase().startsWith("obj"));
+		}
+	}
+
+	@Test
+	public void testCompletion_resolveAfterCompletionInOtherDocument() throws Exception {
+		ICompilationUnit foo = getWorkingCopy(
+				"src/java/Foo.java",
+				"public class Foo {\n"+
+						"	void foo() {\n"+
+						"		Object o = new O\n"+
+						"	}\n"+
+				"}\n");
+		ICompilationUnit bar = getWorkingCopy(
+				"src/java/Bar.java",
+				"public class Bar {\n"+
+						"	void bar() {\n"+
+						"		Str\n"+
+						"	}\n"+
+				"}\n");
+		int[] loc = findCompletionLocation(foo, "new O");
+		CompletionList list = server.completion(JsonMessageHelper.getParams(createCompletionRequest(foo, loc[0], loc[1]))).join().getRight();
+		CompletionItem ctor = list.getItems().stream().filter(item -> "Object()".equals(item.getLabel())).findFirst().get();
+
+		loc = findCompletionLocation(bar, "Str");
+		server.completion(JsonMessageHelper.getParams(createCompletionRequest(bar, loc[0], loc[1]))).join();
+		assertEquals(2, CompletionResponses.size());
+
+		CompletionItem resolvedItem = server.resolveCompletionItem(ctor).join();
+		assertEquals("Object()", resolvedItem.getTextEdit().getNewText());
+	}
+
+	@Test
+	public void testCompletion_evictLeastRecentlyUsedDocument() throws Exception {
+		ICompilationUnit foo = getWorkingCopy(
+				"src/java/Foo.java",
+				"public class Foo {\n"+
+						"	void foo() {\n"+
+						"		Obj\n"+
+						"	}\n"+
+				"}\n");
+		ICompilationUnit bar = getWorkingCopy(
+				"src/java/Bar.java",
+				"public class Bar {\n"+
+						"	void bar() {\n"+
+						"		Str\n"+
+						"	}\n"+
+				"}\n");
+		long memoryBudget = CompletionResponses.getMemoryBudget();
+		try {
+			CompletionResponses.setMemoryBudget(1);
+			long evictions = CompletionResponses.getEvictionCount();
+			int[] loc = findCompletionLocation(foo, "Obj");
+			server.completion(JsonMessageHelper.getParams(createCompletionRequest(foo, loc[0], loc[1]))).join();
+			loc = findCompletionLocation(bar, "Str");
+			server.completion(JsonMessageHelper.getParams(createCompletionRequest(bar, loc[0], loc[1]))).join();
+
+			// the last response is kept, whatever its size
+			assertEquals(1, CompletionResponses.size());
+			assertEquals(evictions + 1, CompletionResponses.getEvictionCount());
+			assertNotNull(CompletionResponses.getSession(bar.getResource().getLocationURI().toString()));
+		} finally {
+			CompletionResponses.setMemoryBudget(memoryBudget);
+		}
+	}
+
+	@Test
+	public void testCompletion_resolveKeepsDocumentRecentlyUsed() throws Exception {
+		ICompilationUnit foo = getWorkingCopy(
+				"src/java/Foo.java",
+				"public class Foo {\n"+
+						"	void foo() {\n"+
+						"		Obj\n"+
+						"	}\n"+
+				"}\n");
+		ICompilationUnit bar = getWorkingCopy(
+				"src/java/Bar.java",
+				"public class Bar {\n"+
+						"	void bar() {\n"+
+						"		Str\n"+
+						"	}\n"+
+				"}\n");
+		ICompilationUnit baz = getWorkingCopy(
+				"src/java/Baz.java",
+				"public class Baz {\n"+
+						"	void baz() {\n"+
+						"		Int\n"+
+						"	}\n"+
+				"}\n");
+		int[] loc = findCompletionLocation(foo, "Obj");
+		CompletionList list = server.completion(JsonMessageHelper.getParams(createCompletionRequest(foo, loc[0], loc[1]))).join().getRight();
+		loc = findCompletionLocation(bar, "Str");
+		server.completion(JsonMessageHelper.getParams(createCompletionRequest(bar, loc[0], loc[1]))).join();
+		int[] bazLoc = findCompletionLocation(baz, "Int");
+		server.completion(JsonMessageHelper.getParams(createCompletionRequest(baz, bazLoc[0], bazLoc[1]))).join();
+
+		// resolving an item of foo makes bar the least recently used document
+		server.resolveCompletionItem(list.getItems().get(0)).join();
+		long memoryBudget = CompletionResponses.getMemoryBudget();
+		try {
+			CompletionResponses.setMemoryBudget(CompletionResponses.getCacheBytes() - 1);
+			// edited elsewhere, so that the engine runs again
+			baz.getBuffer().replace(0, 0, " ");
+			server.completion(JsonMessageHelper.getParams(createCompletionRequest(baz, bazLoc[0], bazLoc[1]))).join();
+			assertNull(CompletionResponses.getSession(bar.getResource().getLocationURI().toString()));
+			assertNotNull(CompletionResponses.getSession(foo.getResource().getLocationURI().toString()));
+		} finally {
+			CompletionResponses.setMemoryBudget(memoryBudget);
+		}
+	}
+
+	@Test
+	public void testCompletion_reuseResolveContext() throws Exception {
+		ICompilationUnit unit = getWorkingCopy(
+				"src/java/Foo.java",
+				"public class Foo {\n"+
+						"	void foo() {\n"+
+						"		ArrayLis\n"+
+						"	}\n"+
+				"}\n");
+		int[] loc = findCompletionLocation(unit, "ArrayLis");
+		CompletionList list = server.completion(JsonMessageHelper.getParams(createCompletionRequest(unit, loc[0], loc[1]))).join().getRight();
+		CompletionItem item = list.getItems().stream().filter(i -> "ArrayList".equals(i.getInsertText())).findFirst().get();
+		String data = (String) item.getData();
+
+		CompletionItem resolvedItem = server.resolveCompletionItem(item).join();
+		assertEquals(1, resolvedItem.getAdditionalTextEdits().size());
+		assertEquals("import java.util.ArrayList;", resolvedItem.getAdditionalTextEdits().get(0).getNewText().trim());
+		CompletionResponse response = CompletionResponses.getSession(unit.getResource().getLocationURI().toString());
+		CompletionResolveContext resolveContext = response.getResolveContext(unit);
+
+		// the imports are not parsed again for the next item
+		item.setData(data);
+		resolvedItem = server.resolveCompletionItem(item).join();
+		assertEquals(1, resolvedItem.getAdditionalTextEdits().size());
+		assertSame(resolveContext, response.getResolveContext(unit));
+
+		// until the document is edited
+		unit.getBuffer().replace(0, 0, "import java.util.List;\n");
+		assertNotSame(resolveContext, response.getResolveContext(unit));
+	}
+
+	@Test
+	public void testCompletion_resolveParameterNamesOfSourceMethod() throws Exception {
+		mockLSP3Client();
+		ICompilationUnit unit = getWorkingCopy(
+				"src/java/Foo.java",
+				"public class Foo {\n"+
+						"	void bar(String name, int count) {\n"+
+						"	}\n"+
+						"	void foo() {\n"+
+						"		this.ba\n"+
+						"	}\n"+
+				"}\n");
+		int[] loc = findCompletionLocation(unit, "this.ba");
+		CompletionList list = server.completion(JsonMessageHelper.getParams(createCompletionRequest(unit, loc[0], loc[1]))).join().getRight();
+		CompletionItem item = list.getItems().stream().filter(i -> "bar".equals(i.getInsertText())).findFirst().get();
+
+		// looked up once the engine is gone
+		CompletionItem resolvedItem = server.resolveCompletionItem(item).join();
+		assertEquals("bar(${1:name}, ${2:count})", resolvedItem.getTextEdit().getNewText());
+	}
+
+	@Test
+	public void testCompletion_resolveInvalidData() throws Exception {
+		CompletionItem item = new CompletionItem("foo");
+		item.setData("x:y");
+		CompletionItem resolvedItem = server.resolveCompletionItem(item).join();
+		assertNull(resolvedItem.getTextEdit());
+		assertNull(resolvedItem.getData());
+		assertEquals(-1, CompletionResolveHandler.getProposalId("x:y"));
+		assertEquals(-1, CompletionResolveHandler.getProposalId("1:2:z"));
+	}
+
+	@Test
+	public void testCompletion_releaseResolveContextOfOtherDocuments() throws Exception {
+		ICompilationUnit foo = getWorkingCopy("src/java/Foo.java", "public class Foo {\n	ArrayLis\n}\n");
+		ICompilationUnit bar = getWorkingCopy("src/java/Bar.java", "public class Bar {\n	ArrayLis\n}\n");
+		int[] fooLoc = findCompletionLocation(foo, "ArrayLis");
+		int[] barLoc = findCompletionLocation(bar, "ArrayLis");
+		server.completion(JsonMessageHelper.getParams(createCompletionRequest(foo, fooLoc[0], fooLoc[1]))).join();
+		server.completion(JsonMessageHelper.getParams(createCompletionRequest(bar, barLoc[0], barLoc[1]))).join();
+		CompletionResponse fooResponse = CompletionResponses.getSession(foo.getResource().getLocationURI().toString());
+		CompletionResponse barResponse = CompletionResponses.getSession(bar.getResource().getLocationURI().toString());
+
+		CompletionResolveContext resolveContext = CompletionResponses.getResolveContext(fooResponse, foo);
+		assertSame(resolveContext, CompletionResponses.getResolveContext(fooResponse, foo));
+
+		// resolving the items of another document releases it
+		CompletionResponses.getResolveContext(barResponse, bar);
+		assertNotSame(resolveContext, CompletionResponses.getResolveContext(fooResponse, foo));
+	}
+
 	private String createCompletionRequest(ICompilationUnit unit, int line, int kar) {
 		return COMPLETION_TEMPLATE.replace("${file}", JDTUtils.getFileURI(unit))
 				.replace("${line}", String.valueOf(line))
@@ -734,5 +1051,6 @@ public class CompletionHandlerTest extends AbstractCompilationUnitBasedTest {
 		when(mockCapabilies.isCompletionSnippetsSupported()).thenReturn(isSnippetSupported);
 		when(mockCapabilies.isSignatureHelpSupported()).thenReturn(isSignatureHelpSuported);
 		when(preferenceManager.getClientPreferences()).thenReturn(mockCapabilies);
+		when(preferenceManager.getPreferences()).thenReturn(preferences);
 	}
 }
@@ -12,6 +12,7 @@ package org.eclipse.jdt.ls.core.internal.handlers;
 
 import static org.eclipse.jdt.ls.core.internal.Lsp4jAssertions.assertRange;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
@@ -21,7 +22,15 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.IPackageFragment;
@@ -91,6 +100,7 @@ public class DocumentLifeCycleHandlerTest extends AbstractProjectsManagerBasedTe
 
 	@After
 	public void tearDown() throws Exception {
+		lifeCycleHandler.dispose();
 		for (ICompilationUnit cu : JavaCore.getWorkingCopies(null)) {
 			cu.discardWorkingCopy();
 		}
@@ -128,7 +138,8 @@ public class DocumentLifeCycleHandlerTest extends AbstractProjectsManagerBasedTe
 		assertEquals(false, cu1.hasUnsavedChanges());
 		assertNewProblemReported(new ExpectedProblemReport(cu1, 0));
 		assertEquals(1, sharedASTProvider.getCacheSize());
-		assertNewASTsCreated(1);
+		// the AST built by the reconcile is cached, not parsed again
+		assertNewASTsCreated(0);
 
 		buf = new StringBuilder();
 		buf.append("package test1;\n");
@@ -142,7 +153,7 @@ public class DocumentLifeCycleHandlerTest extends AbstractProjectsManagerBasedTe
 		assertEquals(true, cu1.hasUnsavedChanges());
 		assertNewProblemReported(new ExpectedProblemReport(cu1, 1));
 		assertEquals(1, sharedASTProvider.getCacheSize());
-		assertNewASTsCreated(1);
+		assertNewASTsCreated(0);
 
 		saveDocument(cu1);
 
@@ -188,7 +199,7 @@ public class DocumentLifeCycleHandlerTest extends AbstractProjectsManagerBasedTe
 		assertEquals(false, cu1.hasUnsavedChanges());
 		assertNewProblemReported(new ExpectedProblemReport(cu1, 0));
 		assertEquals(1, sharedASTProvider.getCacheSize());
-		assertNewASTsCreated(1);
+		assertNewASTsCreated(0);
 
 		buf = new StringBuilder();
 		buf.append(TO_BE_CHANGED_PART);
@@ -200,7 +211,7 @@ public class DocumentLifeCycleHandlerTest extends AbstractProjectsManagerBasedTe
 		assertEquals(true, cu1.hasUnsavedChanges());
 		assertNewProblemReported(new ExpectedProblemReport(cu1, 1));
 		assertEquals(1, sharedASTProvider.getCacheSize());
-		assertNewASTsCreated(1);
+		assertNewASTsCreated(0);
 
 		saveDocument(cu1);
 
@@ -219,6 +230,48 @@ public class DocumentLifeCycleHandlerTest extends AbstractProjectsManagerBasedTe
 		assertNewASTsCreated(0);
 	}
 
+	@Test
+	public void testChangeDocumentWhileWorkspaceIsLocked() throws Exception {
+		IJavaProject javaProject = newEmptyProject();
+		IPackageFragmentRoot sourceFolder = javaProject.getPackageFragmentRoot(javaProject.getProject().getFolder("src"));
+		IPackageFragment pack1 = sourceFolder.createPackageFragment("test1", false, null);
+		ICompilationUnit cu1 = pack1.createCompilationUnit("E123.java", "package test1;\npublic class E123 {\n}\n", false, null);
+		openDocument(cu1, cu1.getSource(), 1);
+
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		Job workspaceJob = new Job("Hold the workspace") {
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				started.countDown();
+				try {
+					release.await(30, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return Status.OK_STATUS;
+			}
+		};
+		workspaceJob.setRule(ResourcesPlugin.getWorkspace().getRoot());
+		workspaceJob.schedule();
+		try {
+			assertTrue(started.await(10, TimeUnit.SECONDS));
+			String content = "package test1;\npublic class E123 {\n  X x;\n}\n";
+			CompletableFuture<Void> change = CompletableFuture.runAsync(() -> {
+				try {
+					changeDocumentFull(cu1, content, 2);
+				} catch (JavaModelException e) {
+					throw new RuntimeException(e);
+				}
+			});
+			change.get(10, TimeUnit.SECONDS);
+			assertEquals(content, cu1.getSource());
+		} finally {
+			release.countDown();
+			workspaceJob.join();
+		}
+	}
+
 	@Test
 	public void testFixInDependencyScenario() throws Exception {
 		IJavaProject javaProject = newEmptyProject();
@@ -254,7 +307,7 @@ public class DocumentLifeCycleHandlerTest extends AbstractProjectsManagerBasedTe
 		assertEquals(false, cu2.hasUnsavedChanges());
 		assertNewProblemReported(new ExpectedProblemReport(cu2, 1));
 		assertEquals(1, sharedASTProvider.getCacheSize());
-		assertNewASTsCreated(1);
+		assertNewASTsCreated(0);
 
 		openDocument(cu1, cu1.getSource(), 1);
 
@@ -262,9 +315,10 @@ public class DocumentLifeCycleHandlerTest extends AbstractProjectsManagerBasedTe
 		assertEquals(false, cu1.hasUnsavedChanges());
 		assertEquals(true, cu2.isWorkingCopy());
 		assertEquals(false, cu2.hasUnsavedChanges());
-		assertNewProblemReported(new ExpectedProblemReport(cu2, 1), new ExpectedProblemReport(cu1, 0));
+		// the content of cu1 didn't change, cu2 doesn't need to be revalidated
+		assertNewProblemReported(new ExpectedProblemReport(cu1, 0));
 		assertEquals(2, sharedASTProvider.getCacheSize());
-		assertNewASTsCreated(2);
+		assertNewASTsCreated(0);
 
 		buf = new StringBuilder();
 		buf.append("package test1;\n");
@@ -280,7 +334,7 @@ public class DocumentLifeCycleHandlerTest extends AbstractProjectsManagerBasedTe
 		assertEquals(false, cu2.hasUnsavedChanges());
 		assertNewProblemReported(new ExpectedProblemReport(cu2, 0), new ExpectedProblemReport(cu1, 0));
 		assertEquals(2, sharedASTProvider.getCacheSize());
-		assertNewASTsCreated(2);
+		assertNewASTsCreated(1);
 
 		saveDocument(cu1);
 
@@ -313,6 +367,147 @@ public class DocumentLifeCycleHandlerTest extends AbstractProjectsManagerBasedTe
 		assertNewASTsCreated(0);
 	}
 
+	@Test
+	public void testBodyChangeDoesNotRevalidateDependents() throws Exception {
+		IJavaProject javaProject = newEmptyProject();
+		IPackageFragmentRoot sourceFolder = javaProject.getPackageFragmentRoot(javaProject.getProject().getFolder("src"));
+		IPackageFragment pack1 = sourceFolder.createPackageFragment("test1", false, null);
+
+		StringBuilder buf = new StringBuilder();
+		buf.append("package test1;\n");
+		buf.append("public class F123 {\n");
+		buf.append("  public static void foo() {}\n");
+		buf.append("}\n");
+		ICompilationUnit cu1 = pack1.createCompilationUnit("F123.java", buf.toString(), false, null);
+
+		buf = new StringBuilder();
+		buf.append("package test1;\n");
+		buf.append("public class F456 {\n");
+		buf.append("  { F123.foo(); }\n");
+		buf.append("}\n");
+		ICompilationUnit cu2 = pack1.createCompilationUnit("F456.java", buf.toString(), false, null);
+
+		buf = new StringBuilder();
+		buf.append("package test1;\n");
+		buf.append("public class F789 {\n");
+		buf.append("}\n");
+		ICompilationUnit cu3 = pack1.createCompilationUnit("F789.java", buf.toString(), false, null);
+
+		openDocument(cu2, cu2.getSource(), 1);
+		openDocument(cu1, cu1.getSource(), 1);
+		openDocument(cu3, cu3.getSource(), 1);
+		assertNewProblemReported(new ExpectedProblemReport(cu2, 0), new ExpectedProblemReport(cu1, 0), new ExpectedProblemReport(cu3, 0));
+		assertEquals(3, sharedASTProvider.getCacheSize());
+		assertNewASTsCreated(0);
+
+		buf = new StringBuilder();
+		buf.append("package test1;\n");
+		buf.append("public class F123 {\n");
+		buf.append("  public static void foo() { int i = 0; }\n");
+		buf.append("}\n");
+		changeDocumentFull(cu1, buf.toString(), 2);
+
+		assertNewProblemReported(new ExpectedProblemReport(cu1, 0));
+		assertEquals(3, sharedASTProvider.getCacheSize());
+		assertNewASTsCreated(0);
+
+		buf = new StringBuilder();
+		buf.append("package test1;\n");
+		buf.append("public class F123 {\n");
+		buf.append("  public static void foo(int i) { }\n");
+		buf.append("}\n");
+		changeDocumentFull(cu1, buf.toString(), 3);
+
+		// cu2 uses F123, cu3 doesn't
+		assertNewProblemReported(new ExpectedProblemReport(cu2, 1), new ExpectedProblemReport(cu1, 0));
+		assertEquals(3, sharedASTProvider.getCacheSize());
+		assertNewASTsCreated(1);
+	}
+
+	@Test
+	public void testReceiverChangeRevalidatesDependents() throws Exception {
+		IJavaProject javaProject = newEmptyProject();
+		IPackageFragmentRoot sourceFolder = javaProject.getPackageFragmentRoot(javaProject.getProject().getFolder("src"));
+		IPackageFragment pack1 = sourceFolder.createPackageFragment("test1", false, null);
+
+		StringBuilder buf = new StringBuilder();
+		buf.append("package test1;\n");
+		buf.append("public class A {\n");
+		buf.append("  public void m(String s) {}\n");
+		buf.append("}\n");
+		pack1.createCompilationUnit("A.java", buf.toString(), false, null);
+
+		buf = new StringBuilder();
+		buf.append("package test1;\n");
+		buf.append("public class B extends A {\n");
+		buf.append("}\n");
+		ICompilationUnit cuB = pack1.createCompilationUnit("B.java", buf.toString(), false, null);
+
+		buf = new StringBuilder();
+		buf.append("package test1;\n");
+		buf.append("public class C {\n");
+		buf.append("  static B getB() { return new B(); }\n");
+		buf.append("}\n");
+		pack1.createCompilationUnit("C.java", buf.toString(), false, null);
+
+		buf = new StringBuilder();
+		buf.append("package test1;\n");
+		buf.append("public class D {\n");
+		buf.append("  { C.getB().m(null); }\n");
+		buf.append("}\n");
+		ICompilationUnit cuD = pack1.createCompilationUnit("D.java", buf.toString(), false, null);
+
+		openDocument(cuD, cuD.getSource(), 1);
+		openDocument(cuB, cuB.getSource(), 1);
+		assertNewProblemReported(new ExpectedProblemReport(cuD, 0), new ExpectedProblemReport(cuB, 0));
+
+		// D never names B, which it reaches through the return type of getB()
+		buf = new StringBuilder();
+		buf.append("package test1;\n");
+		buf.append("public class B extends A {\n");
+		buf.append("  public void m(Integer i) {}\n");
+		buf.append("}\n");
+		changeDocumentFull(cuB, buf.toString(), 2);
+
+		assertNewProblemReported(new ExpectedProblemReport(cuD, 1), new ExpectedProblemReport(cuB, 0));
+	}
+
+	@Test
+	public void testValidateSeveralDocuments() throws Exception {
+		lifeCycleHandler = new DocumentLifeCycleHandler(new JavaClientConnection(client), preferenceManager, projectsManager, true);
+		IJavaProject javaProject = newEmptyProject();
+		IPackageFragmentRoot sourceFolder = javaProject.getPackageFragmentRoot(javaProject.getProject().getFolder("src"));
+		IPackageFragment pack1 = sourceFolder.createPackageFragment("test1", false, null);
+
+		ICompilationUnit cu0 = pack1.createCompilationUnit("F000.java", "package test1;\npublic class F000 {\n}\n", false, null);
+		ICompilationUnit cu1 = pack1.createCompilationUnit("F111.java", "package test1;\npublic class F111 {\n  { F000.foo(); }\n}\n", false, null);
+		ICompilationUnit cu2 = pack1.createCompilationUnit("F222.java", "package test1;\npublic class F222 {\n  { F000.foo(); }\n}\n", false, null);
+
+		openDocument(cu0, cu0.getSource(), 1);
+		openDocument(cu1, cu1.getSource(), 1);
+		openDocument(cu2, cu2.getSource(), 1);
+		Job.getJobManager().join(DocumentLifeCycleHandler.DOCUMENT_LIFE_CYCLE_JOBS, null);
+
+		Map<String, Integer> problems = getLatestProblemCounts();
+		assertEquals(Integer.valueOf(0), problems.get(JDTUtils.getFileURI(cu0)));
+		assertEquals(Integer.valueOf(1), problems.get(JDTUtils.getFileURI(cu1)));
+		assertEquals(Integer.valueOf(1), problems.get(JDTUtils.getFileURI(cu2)));
+		assertEquals(3, sharedASTProvider.getCacheSize());
+		assertNewASTsCreated(0);
+
+		changeDocumentFull(cu0, "package test1;\npublic class F000 {\n  public static void foo() {}\n}\n", 2);
+		Job.getJobManager().join(DocumentLifeCycleHandler.DOCUMENT_LIFE_CYCLE_JOBS, null);
+
+		problems = getLatestProblemCounts();
+		assertEquals(3, problems.size());
+		assertEquals(Integer.valueOf(0), problems.get(JDTUtils.getFileURI(cu0)));
+		assertEquals(Integer.valueOf(0), problems.get(JDTUtils.getFileURI(cu1)));
+		assertEquals(Integer.valueOf(0), problems.get(JDTUtils.getFileURI(cu2)));
+		assertEquals(3, sharedASTProvider.getCacheSize());
+		// the dependents are parsed in one batch
+		assertNewASTsCreated(2);
+	}
+
 	@Test
 	public void testDidOpenStandaloneFile() throws Exception {
 		IJavaProject javaProject = newDefaultProject();
@@ -501,6 +696,16 @@ public class DocumentLifeCycleHandlerTest extends AbstractProjectsManagerBasedTe
 		diags.clear();
 	}
 
+	private Map<String, Integer> getLatestProblemCounts() {
+		List<PublishDiagnosticsParams> diags = getClientRequests("publishDiagnostics");
+		Map<String, Integer> problems = new HashMap<>();
+		for (PublishDiagnosticsParams diag : diags) {
+			problems.put(diag.getUri(), diag.getDiagnostics().size());
+		}
+		diags.clear();
+		return problems;
+	}
+
 	private void assertNewASTsCreated(int expected) {
 		assertEquals(expected, sharedASTProvider.getASTCreationCount());
 		sharedASTProvider.clearASTCreationCount();
@@ -11,6 +11,7 @@
 package org.eclipse.jdt.ls.core.internal.handlers;
 
 
+import static org.junit.Assert.assertEquals;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
@@ -22,6 +23,7 @@ import java.util.HashMap;
 import java.util.Map;
 
 import org.eclipse.jdt.ls.core.internal.JavaClientConnection.JavaLanguageClient;
+import org.eclipse.jdt.ls.core.internal.ServerMetrics;
 import org.eclipse.jdt.ls.core.internal.managers.ProjectsManager;
 import org.eclipse.jdt.ls.core.internal.preferences.ClientPreferences;
 import org.eclipse.jdt.ls.core.internal.preferences.PreferenceManager;
@@ -119,6 +121,19 @@ public class JDTLanguageServerTest {
 		verify(client, never()).unregisterCapability(any());
 	}
 
+	@Test
+	public void testNotificationsAreTimed() throws Exception {
+		ServerMetrics.getInstance().reset();
+		setDynamicCapabilities(false);
+
+		server.didChangeConfiguration(new DidChangeConfigurationParams(new HashMap<>()));
+		server.didChangeConfiguration(new DidChangeConfigurationParams(new HashMap<>()));
+
+		Map<String, Object> operation = ServerMetrics.getInstance().getOperation("workspace/didChangeConfiguration");
+		assertEquals(2L, operation.get("count"));
+		assertEquals(0, operation.get("inFlight"));
+	}
+
 	private void setDynamicCapabilities(boolean enable) {
 		when(clientPreferences.isCodeLensDynamicRegistrationSupported()).thenReturn(enable);
 		when(clientPreferences.isFormattingDynamicRegistrationSupported()).thenReturn(enable);
@@ -0,0 +1,88 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Red Hat Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat Inc. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ls.core.internal.handlers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+import java.util.List;
+
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.jdt.ls.core.internal.JavaClientConnection;
+import org.eclipse.jdt.ls.core.internal.JavaLanguageServerPlugin;
+import org.eclipse.lsp4j.MessageType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class LogHandlerTest {
+
+	@Mock
+	private JavaClientConnection connection;
+
+	private LogHandler logHandler;
+
+	@Before
+	public void setup() {
+		logHandler = new LogHandler();
+		logHandler.install(connection);
+	}
+
+	@After
+	public void tearDown() {
+		logHandler.uninstall();
+	}
+
+	@Test
+	public void testFilteredByLevel() throws Exception {
+		logHandler.processLogMessage(status(IStatus.INFO, "info"));
+		logHandler.processLogMessage(status(IStatus.ERROR, "error"));
+		verify(connection, timeout(5000)).logMessage(any(MessageType.class), anyString());
+		verify(connection, never()).logMessage(eq(MessageType.Info), anyString());
+	}
+
+	@Test
+	public void testBatching() throws Exception {
+		for (int i = 0; i < 120; i++) {
+			logHandler.processLogMessage(status(IStatus.ERROR, "error " + i));
+		}
+		ArgumentCaptor<String> messages = ArgumentCaptor.forClass(String.class);
+		int lines = 0;
+		long end = System.currentTimeMillis() + 5000;
+		while (lines < 120 && System.currentTimeMillis() < end) {
+			Thread.sleep(10);
+			messages = ArgumentCaptor.forClass(String.class);
+			verify(connection, atLeast(0)).logMessage(any(MessageType.class), messages.capture());
+			lines = messages.getAllValues().stream().mapToInt(m -> m.split("\n").length).sum();
+		}
+		List<String> batches = messages.getAllValues();
+		assertEquals(120, lines);
+		assertTrue("Messages were not batched: " + batches.size(), batches.size() < 120);
+		assertTrue(batches.get(0).contains("error 0"));
+	}
+
+	private static IStatus status(int severity, String message) {
+		return new Status(severity, JavaLanguageServerPlugin.PLUGIN_ID, message);
+	}
+}
@@ -0,0 +1,111 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Red Hat Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat Inc. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ls.core.internal.handlers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.ls.core.internal.SharedASTProvider;
+import org.eclipse.jdt.ls.core.internal.managers.AbstractProjectsManagerBasedTest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PrewarmerTest extends AbstractProjectsManagerBasedTest {
+
+	private SharedASTProvider sharedASTProvider;
+	private Prewarmer prewarmer;
+	private volatile boolean interactiveWork;
+	private final CountDownLatch interactiveWorkChecks = new CountDownLatch(2);
+	private ICompilationUnit cu;
+
+	@Before
+	public void setup() throws Exception {
+		sharedASTProvider = SharedASTProvider.getInstance();
+		sharedASTProvider.invalidateAll();
+		sharedASTProvider.clearASTCreationCount();
+		prewarmer = new Prewarmer(sharedASTProvider, () -> {
+			interactiveWorkChecks.countDown();
+			return interactiveWork;
+		});
+
+		IJavaProject javaProject = newEmptyProject();
+		IPackageFragmentRoot sourceFolder = javaProject.getPackageFragmentRoot(javaProject.getProject().getFolder("src"));
+		IPackageFragment pack1 = sourceFolder.createPackageFragment("test1", false, null);
+		cu = pack1.createCompilationUnit("A.java", "package test1;\npublic class A {\n}\n", false, null);
+		cu.becomeWorkingCopy(null);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		prewarmer.dispose();
+		sharedASTProvider.invalidateAll();
+		for (ICompilationUnit unit : JavaCore.getWorkingCopies(null)) {
+			unit.discardWorkingCopy();
+		}
+	}
+
+	@Test
+	public void testPrewarmOpenDocument() throws Exception {
+		prewarmer.prewarm(cu);
+		Job.getJobManager().join(Prewarmer.PREWARM_JOBS, null);
+
+		assertEquals(1, sharedASTProvider.getCacheSize());
+		assertEquals(1, sharedASTProvider.getASTCreationCount());
+
+		// the request finds the AST in the cache
+		sharedASTProvider.getAST(cu, null);
+		assertEquals(1, sharedASTProvider.getASTCreationCount());
+	}
+
+	@Test
+	public void testYieldToInteractiveWork() throws Exception {
+		interactiveWork = true;
+		prewarmer.prewarm(cu);
+		// the job yielded, and checked again after its rescheduling
+		assertTrue(interactiveWorkChecks.await(10, TimeUnit.SECONDS));
+		assertEquals(0, sharedASTProvider.getASTCreationCount());
+
+		interactiveWork = false;
+		Job.getJobManager().join(Prewarmer.PREWARM_JOBS, null);
+		assertEquals(1, sharedASTProvider.getASTCreationCount());
+	}
+
+	@Test
+	public void testSkipPendingValidation() throws Exception {
+		prewarmer.setValidationPending(unit -> cu.equals(unit));
+		prewarmer.prewarm(cu);
+		Job.getJobManager().join(Prewarmer.PREWARM_JOBS, null);
+		assertEquals(0, sharedASTProvider.getASTCreationCount());
+	}
+
+	@Test
+	public void testRespectMemoryBudget() throws Exception {
+		long memoryBudget = sharedASTProvider.getMemoryBudget();
+		try {
+			sharedASTProvider.setMemoryBudget(0);
+			prewarmer.prewarm(cu);
+			Job.getJobManager().join(Prewarmer.PREWARM_JOBS, null);
+			assertEquals(0, sharedASTProvider.getASTCreationCount());
+		} finally {
+			sharedASTProvider.setMemoryBudget(memoryBudget);
+		}
+	}
+}
@@ -0,0 +1,179 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Red Hat Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat Inc. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ls.core.internal.handlers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+import org.eclipse.jdt.ls.core.internal.handlers.RequestScheduler.Lane;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RequestSchedulerTest {
+
+	private static final String REFERENCES = "textDocument/references";
+
+	private RequestScheduler scheduler;
+	private CountDownLatch release;
+
+	@Before
+	public void setup() {
+		scheduler = new RequestScheduler(1, 2, Collections.singletonMap(REFERENCES, 1));
+		release = new CountDownLatch(1);
+	}
+
+	@After
+	public void tearDown() {
+		release.countDown();
+		scheduler.shutdown();
+	}
+
+	@Test
+	public void testInteractiveNotBlockedByBackground() throws Exception {
+		CompletableFuture<String> references = scheduler.computeAsync("workspace/symbol", Lane.BACKGROUND, cc -> block());
+		CompletableFuture<String> completion = scheduler.computeAsync("textDocument/completion", Lane.INTERACTIVE, cc -> "completion");
+		assertEquals("completion", completion.get(5, TimeUnit.SECONDS));
+		assertFalse(references.isDone());
+	}
+
+	@Test
+	public void testMethodLimit() throws Exception {
+		CompletableFuture<String> first = scheduler.computeAsync(REFERENCES, Lane.BACKGROUND, cc -> block());
+		CompletableFuture<String> second = scheduler.computeAsync(REFERENCES, Lane.BACKGROUND, cc -> "second");
+		CompletableFuture<String> other = scheduler.computeAsync("codeLens/resolve", Lane.BACKGROUND, cc -> "other");
+		// the background lane has a free thread, but references are limited to 1
+		assertEquals("other", other.get(5, TimeUnit.SECONDS));
+		assertFalse(second.isDone());
+		assertEquals(1, scheduler.getWaitingCount(REFERENCES));
+
+		release.countDown();
+		assertEquals("first", first.get(5, TimeUnit.SECONDS));
+		assertEquals("second", second.get(5, TimeUnit.SECONDS));
+		assertEquals(0, scheduler.getWaitingCount(REFERENCES));
+	}
+
+	@Test
+	public void testQueueDepth() throws Exception {
+		scheduler.computeAsync("textDocument/hover", Lane.INTERACTIVE, cc -> block());
+		CompletableFuture<String> queued = scheduler.computeAsync("textDocument/hover", Lane.INTERACTIVE, cc -> "queued");
+		waitFor(() -> scheduler.getActiveCount(Lane.INTERACTIVE) == 1);
+		assertEquals(1, scheduler.getQueueDepth(Lane.INTERACTIVE));
+		Map<String, Integer> statistics = scheduler.getStatistics();
+		assertEquals(Integer.valueOf(1), statistics.get("interactive.queued"));
+		assertEquals(Integer.valueOf(0), statistics.get("background.queued"));
+
+		release.countDown();
+		assertEquals("queued", queued.get(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testCancellation() throws Exception {
+		CountDownLatch started = new CountDownLatch(1);
+		AtomicBoolean cancelled = new AtomicBoolean();
+		CompletableFuture<String> running = scheduler.computeAsync("textDocument/hover", Lane.INTERACTIVE, cc -> {
+			started.countDown();
+			try {
+				while (true) {
+					cc.checkCanceled();
+					Thread.sleep(10);
+				}
+			} catch (CancellationException e) {
+				cancelled.set(true);
+				throw e;
+			} catch (InterruptedException e) {
+				return null;
+			}
+		});
+		AtomicBoolean ran = new AtomicBoolean();
+		CompletableFuture<String> queued = scheduler.computeAsync("textDocument/hover", Lane.INTERACTIVE, cc -> {
+			ran.set(true);
+			return "queued";
+		});
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		queued.cancel(true);
+		running.cancel(true);
+		waitFor(cancelled::get);
+		CompletableFuture<String> next = scheduler.computeAsync("textDocument/hover", Lane.INTERACTIVE, cc -> "next");
+		assertEquals("next", next.get(5, TimeUnit.SECONDS));
+		assertFalse(ran.get());
+	}
+
+	@Test
+	public void testSupersession() throws Exception {
+		CountDownLatch started = new CountDownLatch(1);
+		CompletableFuture<String> stale = scheduler.computeAsync("textDocument/completion", Lane.INTERACTIVE, "file:///Foo.java", cc -> {
+			started.countDown();
+			while (true) {
+				cc.checkCanceled();
+				sleep();
+			}
+		});
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		CompletableFuture<String> otherDocument = scheduler.computeAsync("textDocument/completion", Lane.BACKGROUND, "file:///Bar.java", cc -> "bar");
+		CompletableFuture<String> otherMethod = scheduler.computeAsync("textDocument/signatureHelp", Lane.BACKGROUND, "file:///Foo.java", cc -> "signature");
+		assertEquals("bar", otherDocument.get(5, TimeUnit.SECONDS));
+		assertEquals("signature", otherMethod.get(5, TimeUnit.SECONDS));
+		assertFalse(stale.isDone());
+
+		CompletableFuture<String> latest = scheduler.computeAsync("textDocument/completion", Lane.INTERACTIVE, "file:///Foo.java", cc -> "latest");
+		assertTrue(stale.isCancelled());
+		assertEquals("latest", latest.get(5, TimeUnit.SECONDS));
+		assertEquals(1, scheduler.getSupersededCount());
+
+		// completed requests are not cancelled, nor counted
+		scheduler.computeAsync("textDocument/completion", Lane.INTERACTIVE, "file:///Foo.java", cc -> "again").get(5, TimeUnit.SECONDS);
+		assertEquals(1, scheduler.getSupersededCount());
+	}
+
+	@Test
+	public void testParseLimits() {
+		Map<String, Integer> limits = RequestScheduler.parseLimits("textDocument/references=2, workspace/symbol = 1,invalid,bad=x");
+		assertEquals(2, limits.size());
+		assertEquals(Integer.valueOf(2), limits.get(REFERENCES));
+		assertEquals(Integer.valueOf(1), limits.get("workspace/symbol"));
+	}
+
+	private String block() {
+		try {
+			release.await(10, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return "first";
+	}
+
+	private static void sleep() {
+		try {
+			Thread.sleep(10);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+		long end = System.currentTimeMillis() + 5000;
+		while (!condition.getAsBoolean() && System.currentTimeMillis() < end) {
+			Thread.sleep(10);
+		}
+		assertTrue(condition.getAsBoolean());
+	}
+}
@@ -0,0 +1,78 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Red Hat Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat Inc. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ls.core.internal.handlers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+public class ValidationDelayTest {
+
+	private final ValidationDelay delay = new ValidationDelay();
+
+	@Test
+	public void testUnknownCost() {
+		delay.changed("A", 0);
+		assertEquals(ValidationDelay.DEFAULT_DELAY, delay.getDelay(Collections.singletonList("A")));
+		assertEquals(ValidationDelay.DEFAULT_DELAY, delay.getLastDelay());
+	}
+
+	@Test
+	public void testCheapDocument() {
+		delay.reconciled("A", 20);
+		delay.changed("A", 0);
+		assertEquals(ValidationDelay.MIN_DELAY, delay.getDelay(Collections.singletonList("A")));
+	}
+
+	@Test
+	public void testExpensiveDocument() {
+		for (int i = 0; i < 20; i++) {
+			delay.reconciled("A", 800);
+		}
+		delay.changed("A", 0);
+		assertEquals(800, delay.getDelay(Collections.singletonList("A")));
+
+		for (int i = 0; i < 20; i++) {
+			delay.reconciled("B", 10000);
+		}
+		assertEquals(ValidationDelay.MAX_DELAY, delay.getDelay(Collections.singletonList("B")));
+	}
+
+	@Test
+	public void testTyping() {
+		delay.reconciled("A", 20);
+		for (int i = 0; i < 20; i++) {
+			delay.changed("A", i * 200);
+		}
+		// waits for a pause in the typing
+		assertEquals(300, delay.getDelay(Collections.singletonList("A")));
+
+		delay.changed("A", 10000);
+		assertEquals(ValidationDelay.MIN_DELAY, delay.getDelay(Collections.singletonList("A")));
+	}
+
+	@Test
+	public void testPendingDocuments() {
+		delay.reconciled("A", 20);
+		for (int i = 0; i < 20; i++) {
+			delay.reconciled("B", 600);
+		}
+		long pendingDelay = delay.getDelay(Arrays.asList("A", "B"));
+		assertTrue(String.valueOf(pendingDelay), pendingDelay > 590 && pendingDelay <= 600);
+
+		delay.remove("B");
+		assertEquals(ValidationDelay.DEFAULT_DELAY, delay.getDelay(Arrays.asList("A", "B")));
+	}
+}
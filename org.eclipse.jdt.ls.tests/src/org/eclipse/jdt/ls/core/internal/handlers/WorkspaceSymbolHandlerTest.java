@@ -16,7 +16,9 @@ import static org.junit.Assert.assertTrue;
 
 import java.util.List;
 
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jdt.ls.core.internal.JDTUtils;
+import org.eclipse.jdt.ls.core.internal.TypeNameIndex;
 import org.eclipse.jdt.ls.core.internal.managers.AbstractProjectsManagerBasedTest;
 import org.eclipse.lsp4j.Location;
 import org.eclipse.lsp4j.Range;
@@ -99,4 +101,33 @@ public class WorkspaceSymbolHandlerTest extends AbstractProjectsManagerBasedTest
 		assertTrue("Did not find "+className, foundClass);
 	}
 
+	@Test
+	public void testIndexedSearch() throws Exception {
+		// the first search schedules the indexing
+		handler.search("IFoo", monitor);
+		Job.getJobManager().join(TypeNameIndex.INDEX_JOBS, null);
+
+		List<SymbolInformation> results = handler.search("IFoo", monitor);
+		assertEquals("Found " + results.size() + " results", 1, results.size());
+		assertEquals(SymbolKind.Interface, results.get(0).getKind());
+		assertEquals("java", results.get(0).getContainerName());
+		assertTrue("Unexpected uri " + results.get(0).getLocation().getUri(), results.get(0).getLocation().getUri().endsWith("Foo.java"));
+
+		results = handler.search("HaMa", monitor);
+		assertTrue(results.stream().anyMatch(s -> "HashMap".equals(s.getName())));
+	}
+
+	@Test
+	public void testWildcardSearch() throws Exception {
+		handler.search("IFoo", monitor);
+		Job.getJobManager().join(TypeNameIndex.INDEX_JOBS, null);
+
+		// the patterns are searched in the indexes of the search engine
+		List<SymbolInformation> results = handler.search("*Foo", monitor);
+		assertTrue(results.stream().anyMatch(s -> "IFoo".equals(s.getName())));
+
+		results = handler.search("Str?ng", monitor);
+		assertTrue(results.stream().anyMatch(s -> "String".equals(s.getName())));
+	}
+
 }
@@ -0,0 +1,92 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Red Hat Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat Inc. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ls.core.internal.javadoc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.ls.core.internal.managers.AbstractProjectsManagerBasedTest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class JavadocCacheTest extends AbstractProjectsManagerBasedTest {
+
+	private JavadocCache javadocCache;
+	private ICompilationUnit cu;
+
+	@Before
+	public void setup() throws Exception {
+		javadocCache = JavadocCache.getInstance();
+		javadocCache.invalidateAll();
+		IJavaProject javaProject = newEmptyProject();
+		IPackageFragmentRoot sourceFolder = javaProject.getPackageFragmentRoot(javaProject.getProject().getFolder("src"));
+		IPackageFragment pack1 = sourceFolder.createPackageFragment("test1", false, null);
+		cu = pack1.createCompilationUnit("A.java", "package test1;\npublic class A {\n  /** Foo docs */\n  void foo() {}\n}\n", false, null);
+		cu.becomeWorkingCopy(null);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		javadocCache.invalidateAll();
+		for (ICompilationUnit unit : JavaCore.getWorkingCopies(null)) {
+			unit.discardWorkingCopy();
+		}
+	}
+
+	@Test
+	public void testCache() throws Exception {
+		IMethod foo = cu.getType("A").getMethod("foo", new String[0]);
+		long misses = javadocCache.getMissCount();
+		long hits = javadocCache.getHitCount();
+		assertTrue(javadocCache.getPlainText(foo, 10000).contains("Foo docs"));
+		assertTrue(javadocCache.getPlainText(foo, 10000).contains("Foo docs"));
+		assertEquals(misses + 1, javadocCache.getMissCount());
+		assertEquals(hits + 1, javadocCache.getHitCount());
+
+		// read again once edited
+		cu.getBuffer().replace(cu.getSource().indexOf("Foo docs"), 3, "Bar");
+		cu.reconcile(ICompilationUnit.NO_AST, false, null, null);
+		foo = cu.getType("A").getMethod("foo", new String[0]);
+		assertTrue(javadocCache.getPlainText(foo, 10000).contains("Bar docs"));
+		assertEquals(misses + 2, javadocCache.getMissCount());
+	}
+
+	@Test
+	public void testTimeout() throws Exception {
+		IMethod foo = cu.getType("A").getMethod("foo", new String[0]);
+		long misses = javadocCache.getMissCount();
+		javadocCache.getPlainText(foo, 0);
+		// the read goes on, and is returned to the next request
+		assertTrue(javadocCache.getPlainText(foo, 10000).contains("Foo docs"));
+		assertEquals(misses + 1, javadocCache.getMissCount());
+	}
+
+	@Test
+	public void testPrefetch() throws Exception {
+		IMethod foo = cu.getType("A").getMethod("foo", new String[0]);
+		javadocCache.prefetch(() -> Collections.singletonList(foo));
+		while (javadocCache.getCacheSize() == 0) {
+			Thread.sleep(10);
+		}
+		long misses = javadocCache.getMissCount();
+		assertTrue(javadocCache.getPlainText(foo, 10000).contains("Foo docs"));
+		assertEquals(misses, javadocCache.getMissCount());
+	}
+}
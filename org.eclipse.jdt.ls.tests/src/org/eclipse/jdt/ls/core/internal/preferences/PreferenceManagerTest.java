@@ -63,6 +63,14 @@ public class PreferenceManagerTest {
 		verify(mavenConfig).setUserSettingsFile(null);
 	}
 
+	@Test
+	public void testCompletionMaxResults() throws Exception {
+		assertEquals(Preferences.COMPLETION_MAX_RESULTS_DEFAULT, Preferences.createFrom(Collections.emptyMap()).getCompletionMaxResults());
+		// the numbers of the JSON configuration are read as doubles
+		Preferences preferences = Preferences.createFrom(Collections.singletonMap(Preferences.COMPLETION_MAX_RESULTS_KEY, 3.0));
+		assertEquals(3, preferences.getCompletionMaxResults());
+	}
+
 	@Test
 	public void testInitialize() throws Exception {
 		preferenceManager.initialize();